@@ -0,0 +1,47 @@
+package com.ugnavigate.benchmarks;
+
+import com.ugnavigate.algorithms.RoutingAlgorithm;
+import com.ugnavigate.services.TrafficService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The all-pairs distance map. The engine only keeps an all-pairs table for maps of up to
+ * {@link RoutingAlgorithm#ALL_PAIRS_MAX_NODES} locations, so larger generated maps are left out.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AllPairsBenchmark {
+    // Named apart from the other benchmarks' map, so -p map=100000 cannot ask for a 10^10-entry table
+    @Param({ BenchmarkMaps.CAMPUS, "1000" })
+    public String allPairsMap;
+
+    private RoutingAlgorithm routingAlgorithm;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        routingAlgorithm = new RoutingAlgorithm(BenchmarkMaps.load(allPairsMap), new TrafficService());
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Double>> findAllShortestPaths() {
+        return routingAlgorithm.findAllShortestPaths();
+    }
+}
@@ -0,0 +1,25 @@
+package com.ugnavigate.benchmarks;
+
+import com.ugnavigate.models.CampusMap;
+import com.ugnavigate.services.CampusDataService;
+
+/**
+ * The maps benchmarks run over: "campus" for the bundled campus map, or a generated one given as a location count
+ * (a grid) or a model and count such as "clustered:10000"
+ */
+public final class BenchmarkMaps {
+    public static final String CAMPUS = "campus";
+    public static final long SEED = 42L;
+
+    private BenchmarkMaps() {
+    }
+
+    public static CampusMap load(String name) {
+        if (CAMPUS.equals(name)) {
+            CampusDataService campusDataService = new CampusDataService();
+            campusDataService.initializeCampusData();
+            return campusDataService.getCampusMap();
+        }
+        return CampusMapGenerator.generate(name, SEED);
+    }
+}
@@ -0,0 +1,401 @@
+package com.ugnavigate.benchmarks;
+
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.CampusMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates campus maps of any size for benchmarks and load tests, laid out around the Legon campus.
+ * Every map is connected, its paths are two-way and run somewhat longer than the straight line between their ends,
+ * and categories come in spatially coherent zones, so category and landmark searches behave as on a real campus.
+ */
+public final class CampusMapGenerator {
+
+    /**
+     * How locations are placed and joined
+     */
+    public enum Model {
+        /** A jittered square lattice, with a diagonal shortcut across about a quarter of the blocks */
+        GRID,
+        /** Uniformly scattered locations, each joined to every other within a radius giving about seven paths */
+        GEOMETRIC,
+        /** Building complexes of about forty locations joined by long footpaths between neighbouring complexes */
+        CLUSTERED
+    }
+
+    private static final String[] CATEGORIES = { "academic", "administrative", "facility", "residential", "service" };
+    private static final String[] LANDMARKS = { "Library", "Cafeteria", "Bus Stop", "ATM", "Lecture Theatre",
+            "Sports Field", "Clinic", "Bookshop" };
+    private static final double CENTRE_LATITUDE = 5.6505;
+    private static final double CENTRE_LONGITUDE = -0.1875;
+    private static final double KM_PER_DEGREE = 111.195;
+    // Typical distance between neighbouring locations
+    private static final double SPACING_KM = 0.04;
+    private static final double ZONE_KM = 0.4;
+    private static final int LANDMARK_EVERY = 15;
+    private static final int CLUSTER_SIZE = 40;
+
+    private final int nodes;
+    private final Random random;
+    private final double[] xs;
+    private final double[] ys;
+    private final List<int[]> paths = new ArrayList<>();
+    private final List<Double> lengths = new ArrayList<>();
+    private final Set<Long> joined = new HashSet<>();
+
+    private CampusMapGenerator(int nodes, long seed) {
+        this.nodes = nodes;
+        this.random = new Random(seed);
+        this.xs = new double[nodes];
+        this.ys = new double[nodes];
+    }
+
+    /**
+     * Generates a map; the same model, size and seed always give the same map
+     */
+    public static CampusMap generate(Model model, int nodes, long seed) {
+        CampusMap campusMap = new CampusMap();
+        campusMap.replaceWith(generateGraph(model, nodes, seed));
+        return campusMap;
+    }
+
+    public static CampusGraph generateGraph(Model model, int nodes, long seed) {
+        if (nodes < 1) {
+            throw new IllegalArgumentException("A generated map needs at least one location: " + nodes);
+        }
+        CampusMapGenerator generator = new CampusMapGenerator(nodes, seed);
+        switch (model) {
+            case GRID:
+                generator.grid();
+                break;
+            case GEOMETRIC:
+                generator.geometric();
+                break;
+            default:
+                generator.clustered();
+                break;
+        }
+        generator.connectComponents();
+        return generator.build();
+    }
+
+    public static CampusMap generate(String specification, long seed) {
+        CampusMap campusMap = new CampusMap();
+        campusMap.replaceWith(generateGraph(specification, seed));
+        return campusMap;
+    }
+
+    /**
+     * Generates the graph for a map specification: a location count for a grid, or a model and count such as
+     * "clustered:10000"
+     */
+    public static CampusGraph generateGraph(String specification, long seed) {
+        int colon = specification.indexOf(':');
+        Model model = colon < 0 ? Model.GRID
+                : Model.valueOf(specification.substring(0, colon).trim().toUpperCase(Locale.ROOT));
+        return generateGraph(model, Integer.parseInt(specification.substring(colon + 1).trim()), seed);
+    }
+
+    private void grid() {
+        int side = (int) Math.ceil(Math.sqrt(nodes));
+        for (int v = 0; v < nodes; v++) {
+            xs[v] = (v % side + random.nextDouble() * 0.3) * SPACING_KM;
+            ys[v] = (v / side + random.nextDouble() * 0.3) * SPACING_KM;
+        }
+        for (int v = 0; v < nodes; v++) {
+            boolean right = v % side + 1 < side;
+            if (right && v + 1 < nodes) {
+                connect(v, v + 1);
+            }
+            if (v + side < nodes) {
+                connect(v, v + side);
+            }
+            if (right && v + side + 1 < nodes && random.nextInt(4) == 0) {
+                if (random.nextBoolean()) {
+                    connect(v, v + side + 1);
+                } else {
+                    connect(v + 1, v + side);
+                }
+            }
+        }
+    }
+
+    private void geometric() {
+        double side = Math.sqrt(nodes) * SPACING_KM;
+        for (int v = 0; v < nodes; v++) {
+            xs[v] = random.nextDouble() * side;
+            ys[v] = random.nextDouble() * side;
+        }
+        // Expected neighbours within r are n * pi * r^2 / area
+        double radius = Math.sqrt(7.0 / Math.PI) * SPACING_KM;
+        Buckets buckets = new Buckets(radius);
+        for (int u = 0; u < nodes; u++) {
+            for (int v : buckets.near(xs[u], ys[u])) {
+                if (u < v && Math.hypot(xs[u] - xs[v], ys[u] - ys[v]) <= radius) {
+                    connect(u, v);
+                }
+            }
+        }
+    }
+
+    private void clustered() {
+        int clusters = Math.max(1, nodes / CLUSTER_SIZE);
+        // Complexes spread out more than single buildings, leaving open ground for the footpaths
+        double side = Math.sqrt(nodes) * SPACING_KM * 1.5;
+        double[] centreXs = new double[clusters];
+        double[] centreYs = new double[clusters];
+        for (int c = 0; c < clusters; c++) {
+            centreXs[c] = random.nextDouble() * side;
+            centreYs[c] = random.nextDouble() * side;
+        }
+        int[][] members = new int[clusters][];
+        for (int c = 0; c < clusters; c++) {
+            members[c] = new int[nodes / clusters + (c < nodes % clusters ? 1 : 0)];
+        }
+        int[] filled = new int[clusters];
+        for (int v = 0; v < nodes; v++) {
+            int c = v % clusters;
+            members[c][filled[c]++] = v;
+            xs[v] = centreXs[c] + random.nextGaussian() * SPACING_KM * 1.2;
+            ys[v] = centreYs[c] + random.nextGaussian() * SPACING_KM * 1.2;
+        }
+
+        // Inside a complex every building has a path to its three nearest neighbours
+        for (int[] complex : members) {
+            for (int u : complex) {
+                for (int v : nearest(complex, xs[u], ys[u], u, 3)) {
+                    connect(u, v);
+                }
+            }
+        }
+        // Footpaths join the entrance of each complex, its first building, to the entrances of the three nearest
+        int[] entrances = new int[clusters];
+        for (int c = 0; c < clusters; c++) {
+            entrances[c] = members[c][0];
+        }
+        Buckets buckets = new Buckets(side / Math.sqrt(clusters), entrances);
+        for (int c = 0; c < clusters; c++) {
+            int entrance = entrances[c];
+            for (int other : buckets.nearest(xs[entrance], ys[entrance], entrance, 3)) {
+                connect(entrance, other);
+            }
+        }
+    }
+
+    // Joins every location outside the largest connected part to the closest location inside it
+    private void connectComponents() {
+        int[] parent = new int[nodes];
+        for (int v = 0; v < nodes; v++) {
+            parent[v] = v;
+        }
+        for (int[] path : paths) {
+            parent[find(parent, path[0])] = find(parent, path[1]);
+        }
+        int[] sizes = new int[nodes];
+        int largest = 0;
+        for (int v = 0; v < nodes; v++) {
+            int root = find(parent, v);
+            if (++sizes[root] > sizes[largest]) {
+                largest = root;
+            }
+        }
+        if (sizes[largest] == nodes) {
+            return;
+        }
+        int[] main = new int[sizes[largest]];
+        int count = 0;
+        for (int v = 0; v < nodes; v++) {
+            if (find(parent, v) == largest) {
+                main[count++] = v;
+            }
+        }
+        Buckets buckets = new Buckets(SPACING_KM * 4.0, main);
+        for (int v = 0; v < nodes; v++) {
+            if (find(parent, v) != largest) {
+                connect(v, buckets.nearest(xs[v], ys[v], v, 1)[0]);
+            }
+        }
+    }
+
+    private CampusGraph build() {
+        CampusGraph.Builder builder = CampusGraph.builder();
+        for (int v = 0; v < nodes; v++) {
+            String category = zoneCategory(xs[v], ys[v]);
+            int id = builder.addNode("Building " + v, CENTRE_LATITUDE + ys[v] / KM_PER_DEGREE,
+                    CENTRE_LONGITUDE + xs[v] / (KM_PER_DEGREE * Math.cos(Math.toRadians(CENTRE_LATITUDE))),
+                    category, "Generated " + category + " building " + v);
+            if (v % LANDMARK_EVERY == 0) {
+                // Each landmark name is shared by a handful of locations, so landmark searches have choices
+                builder.addLandmark(id, LANDMARKS[(v / LANDMARK_EVERY) % LANDMARKS.length] + " "
+                        + v / (LANDMARK_EVERY * LANDMARKS.length * 4));
+            }
+        }
+        for (int i = 0; i < paths.size(); i++) {
+            int[] path = paths.get(i);
+            builder.addEdge(path[0], path[1], lengths.get(i));
+            builder.addEdge(path[1], path[0], lengths.get(i));
+        }
+        return builder.build();
+    }
+
+    // Paths wind a little, running 5-30% longer than the straight line, and never shorter than a metre
+    private void connect(int u, int v) {
+        if (!joined.add(Math.min(u, v) * (long) nodes + Math.max(u, v))) {
+            return;
+        }
+        double straight = Math.hypot(xs[u] - xs[v], ys[u] - ys[v]);
+        paths.add(new int[] { u, v });
+        lengths.add(Math.max(0.001, straight * (1.05 + random.nextDouble() * 0.25)));
+    }
+
+    private String zoneCategory(double x, double y) {
+        long zone = (long) Math.floor(x / ZONE_KM) * 31L + (long) Math.floor(y / ZONE_KM);
+        return CATEGORIES[(int) Math.floorMod(zone * 0x9E3779B97F4A7C15L >>> 32, (long) CATEGORIES.length)];
+    }
+
+    // The k locations of a set closest to a point, leaving out one location
+    private int[] nearest(int[] candidates, double x, double y, int exclude, int k) {
+        int[] best = new int[k];
+        double[] distances = new double[k];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        int found = 0;
+        for (int v : candidates) {
+            if (v == exclude) {
+                continue;
+            }
+            double distance = Math.hypot(xs[v] - x, ys[v] - y);
+            if (distance < distances[k - 1]) {
+                int at = k - 1;
+                while (at > 0 && distances[at - 1] > distance) {
+                    best[at] = best[at - 1];
+                    distances[at] = distances[at - 1];
+                    at--;
+                }
+                best[at] = v;
+                distances[at] = distance;
+                found = Math.min(k, found + 1);
+            }
+        }
+        return Arrays.copyOf(best, found);
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    /**
+     * Square buckets over a set of locations, for finding neighbours without comparing every pair
+     */
+    private final class Buckets {
+        private final double size;
+        private final double minX;
+        private final double minY;
+        private final int columns;
+        private final int rows;
+        private final int[] offsets;
+        private final int[] members;
+
+        Buckets(double size) {
+            this(size, null);
+        }
+
+        Buckets(double size, int[] subset) {
+            int[] all = subset;
+            if (all == null) {
+                all = new int[nodes];
+                for (int v = 0; v < nodes; v++) {
+                    all[v] = v;
+                }
+            }
+            double lowX = Double.POSITIVE_INFINITY;
+            double lowY = Double.POSITIVE_INFINITY;
+            double highX = Double.NEGATIVE_INFINITY;
+            double highY = Double.NEGATIVE_INFINITY;
+            for (int v : all) {
+                lowX = Math.min(lowX, xs[v]);
+                lowY = Math.min(lowY, ys[v]);
+                highX = Math.max(highX, xs[v]);
+                highY = Math.max(highY, ys[v]);
+            }
+            this.size = size;
+            this.minX = lowX;
+            this.minY = lowY;
+            this.columns = (int) ((highX - lowX) / size) + 1;
+            this.rows = (int) ((highY - lowY) / size) + 1;
+            offsets = new int[columns * rows + 1];
+            for (int v : all) {
+                offsets[cell(xs[v], ys[v]) + 1]++;
+            }
+            for (int i = 1; i < offsets.length; i++) {
+                offsets[i] += offsets[i - 1];
+            }
+            members = new int[all.length];
+            int[] cursor = Arrays.copyOf(offsets, offsets.length - 1);
+            for (int v : all) {
+                members[cursor[cell(xs[v], ys[v])]++] = v;
+            }
+        }
+
+        // Every member in the 3x3 block of buckets around a point
+        int[] near(double x, double y) {
+            return within(column(x), row(y), 1);
+        }
+
+        // The k members closest to a point, widening the search until the k-th is certain
+        int[] nearest(double x, double y, int exclude, int k) {
+            int column = column(x);
+            int row = row(y);
+            for (int reach = 1;; reach *= 2) {
+                int[] result = CampusMapGenerator.this.nearest(within(column, row, reach), x, y, exclude, k);
+                if (reach >= Math.max(columns, rows)) {
+                    return result;
+                }
+                // Anything outside the searched block is at least reach buckets away
+                int last = result.length - 1;
+                if (result.length == k && Math.hypot(xs[result[last]] - x, ys[result[last]] - y) <= reach * size) {
+                    return result;
+                }
+            }
+        }
+
+        private int[] within(int column, int row, int reach) {
+            int count = 0;
+            int[] found = new int[16];
+            for (int r = Math.max(0, row - reach); r <= Math.min(rows - 1, row + reach); r++) {
+                for (int c = Math.max(0, column - reach); c <= Math.min(columns - 1, column + reach); c++) {
+                    int cell = r * columns + c;
+                    for (int i = offsets[cell]; i < offsets[cell + 1]; i++) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = members[i];
+                    }
+                }
+            }
+            return Arrays.copyOf(found, count);
+        }
+
+        private int cell(double x, double y) {
+            return row(y) * columns + column(x);
+        }
+
+        private int column(double x) {
+            return (int) Math.max(0, Math.min(columns - 1, Math.floor((x - minX) / size)));
+        }
+
+        private int row(double y) {
+            return (int) Math.max(0, Math.min(rows - 1, Math.floor((y - minY) / size)));
+        }
+    }
+}
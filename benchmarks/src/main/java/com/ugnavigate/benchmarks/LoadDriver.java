@@ -0,0 +1,338 @@
+package com.ugnavigate.benchmarks;
+
+import com.ugnavigate.App;
+import com.ugnavigate.controllers.RoutingController;
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.CampusMap;
+import com.ugnavigate.services.CampusDataService;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process load test: starts the application without its web server, points it at a map, and calls the
+ * {@link RoutingController} endpoints from several threads with a weighted mix of random requests, then prints
+ * p50/p90/p99/p99.9 latencies per endpoint.
+ * <p>
+ * Without --rate every thread sends its next request as soon as the last returns, which measures service time at
+ * that concurrency. With --rate requests are paced to a fixed schedule and latency counts from the moment a request
+ * was due, so stalls show up in the percentiles instead of silently lowering the request rate.
+ * <p>
+ * Options are --map=campus|[grid|geometric|clustered:]count, --threads=n, --warmup=seconds, --duration=seconds,
+ * --rate=requests-per-second (0 for unpaced), --seed=n and --mix=endpoint:weight,... over the endpoints below.
+ * Any other argument goes to the application, so --ugnavigate.route-cache.maximum-size=0 runs without the cache.
+ */
+public final class LoadDriver {
+    private static final Map<String, Endpoint> ENDPOINTS = new LinkedHashMap<>();
+    private static final String DEFAULT_MIX = "shortest:40,optimal:15,top:5,suggest:25,nearest:5,snap:10";
+    private static final long HIGHEST_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    static {
+        ENDPOINTS.put("shortest", (c, q, r) -> c.getShortestRoute(q.location(r), q.location(r), null, null));
+        ENDPOINTS.put("optimal", (c, q, r) -> c.getOptimalRoute(q.location(r), q.location(r), null, null));
+        ENDPOINTS.put("top", (c, q, r) -> c.getTopRoutes(q.location(r), q.location(r), null, null, 3));
+        ENDPOINTS.put("departure",
+                (c, q, r) -> c.getDepartureRoute(q.location(r), q.location(r), null, null, "08:30"));
+        ENDPOINTS.put("search", (c, q, r) -> c.searchRoutes(q.location(r), q.location(r), q.term(r)));
+        ENDPOINTS.put("suggest", (c, q, r) -> c.suggestLocations(q.prefix(r), 8));
+        ENDPOINTS.put("nearest", (c, q, r) -> {
+            double[] point = q.point(r);
+            return c.getNearestLocations(point[0], point[1], 5);
+        });
+        ENDPOINTS.put("snap", (c, q, r) -> c.getShortestRoute(null, null, q.pointText(r), q.pointText(r)));
+        ENDPOINTS.put("reachable", (c, q, r) -> c.getReachableLocations(q.location(r), 10));
+    }
+
+    private LoadDriver() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("map", "clustered:10000");
+        options.put("threads", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        options.put("warmup", "10");
+        options.put("duration", "30");
+        options.put("rate", "0");
+        options.put("seed", "1");
+        options.put("mix", DEFAULT_MIX);
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String key = arg.startsWith("--") && equals > 2 ? arg.substring(2, equals) : null;
+            if (key != null && options.containsKey(key)) {
+                options.put(key, arg.substring(equals + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+
+        List<String> names = new ArrayList<>();
+        List<Endpoint> endpoints = new ArrayList<>();
+        int[] cumulative = parseMix(options.get("mix"), names, endpoints);
+
+        SpringApplication application = new SpringApplication(App.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setBannerMode(Banner.Mode.OFF);
+        try (ConfigurableApplicationContext context = application.run(applicationArgs.toArray(new String[0]))) {
+            CampusMap campusMap = context.getBean(CampusDataService.class).getCampusMap();
+            String map = options.get("map");
+            long seed = Long.parseLong(options.get("seed"));
+            if (!BenchmarkMaps.CAMPUS.equals(map)) {
+                long start = System.nanoTime();
+                campusMap.replaceWith(CampusMapGenerator.generateGraph(map, seed));
+                System.out.printf(Locale.ROOT, "Generated %s in %d ms%n", map,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            Queries queries = new Queries(campusMap.getGraph());
+            RoutingController controller = context.getBean(RoutingController.class);
+
+            int threads = Integer.parseInt(options.get("threads"));
+            double rate = Double.parseDouble(options.get("rate"));
+            long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("warmup")));
+            long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration")));
+            // Each thread takes an equal share of the paced rate
+            long intervalNanos = rate > 0 ? (long) (threads * 1e9 / rate) : 0L;
+
+            System.out.printf(Locale.ROOT, "%d locations, %d threads, %s, warmup %d s, measuring %d s%n",
+                    queries.size(), threads, rate > 0 ? "paced at " + rate + " requests/s" : "unpaced",
+                    TimeUnit.NANOSECONDS.toSeconds(warmupNanos), TimeUnit.NANOSECONDS.toSeconds(durationNanos));
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+            List<Future<Worker>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Worker worker = new Worker(controller, queries, endpoints, cumulative, new Random(seed + t), start,
+                        start + warmupNanos, start + warmupNanos + durationNanos, intervalNanos);
+                futures.add(executor.submit(worker, worker));
+            }
+            List<Worker> workers = new ArrayList<>();
+            for (Future<Worker> future : futures) {
+                workers.add(future.get());
+            }
+            executor.shutdown();
+            report(names, workers, durationNanos);
+        }
+    }
+
+    // Weights become a cumulative table, so picking an endpoint is one binary search
+    private static int[] parseMix(String mix, List<String> names, List<Endpoint> endpoints) {
+        List<Integer> weights = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split(":");
+            Endpoint endpoint = ENDPOINTS.get(pair[0]);
+            if (endpoint == null || pair.length != 2) {
+                throw new IllegalArgumentException("Expected endpoint:weight with an endpoint from "
+                        + ENDPOINTS.keySet() + ", got " + part);
+            }
+            names.add(pair[0]);
+            endpoints.add(endpoint);
+            weights.add(Integer.parseInt(pair[1]));
+        }
+        int[] cumulative = new int[weights.size()];
+        int total = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            total += weights.get(i);
+            cumulative[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The mix needs a positive weight: " + mix);
+        }
+        return cumulative;
+    }
+
+    private static void report(List<String> names, List<Worker> workers, long durationNanos) {
+        double seconds = durationNanos / 1e9;
+        Histogram all = new Histogram(HIGHEST_LATENCY_NANOS, 3);
+        long allErrors = 0;
+        System.out.printf(Locale.ROOT, "%n%-10s %10s %8s %10s %10s %10s %10s %10s %10s%n", "endpoint", "requests",
+                "errors", "req/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+        for (int e = 0; e < names.size(); e++) {
+            Histogram merged = new Histogram(HIGHEST_LATENCY_NANOS, 3);
+            long errors = 0;
+            for (Worker worker : workers) {
+                merged.add(worker.histograms[e]);
+                errors += worker.errors[e];
+            }
+            all.add(merged);
+            allErrors += errors;
+            printRow(names.get(e), merged, errors, seconds);
+        }
+        printRow("all", all, allErrors, seconds);
+    }
+
+    private static void printRow(String name, Histogram histogram, long errors, double seconds) {
+        System.out.printf(Locale.ROOT, "%-10s %10d %8d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n", name,
+                histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50.0) / 1e3, histogram.getValueAtPercentile(90.0) / 1e3,
+                histogram.getValueAtPercentile(99.0) / 1e3, histogram.getValueAtPercentile(99.9) / 1e3,
+                histogram.getMaxValue() / 1e3);
+    }
+
+    /**
+     * One kind of request: picks its arguments and calls the controller
+     */
+    private interface Endpoint {
+        ResponseEntity<?> call(RoutingController controller, Queries queries, Random random);
+    }
+
+    /**
+     * Sends requests until the end time, recording latencies and failures per endpoint once warmup is over
+     */
+    private static final class Worker implements Runnable {
+        private final RoutingController controller;
+        private final Queries queries;
+        private final List<Endpoint> endpoints;
+        private final int[] cumulative;
+        private final Random random;
+        private final long start;
+        private final long measureFrom;
+        private final long end;
+        private final long intervalNanos;
+        private final Histogram[] histograms;
+        private final long[] errors;
+
+        Worker(RoutingController controller, Queries queries, List<Endpoint> endpoints, int[] cumulative,
+                Random random, long start, long measureFrom, long end, long intervalNanos) {
+            this.controller = controller;
+            this.queries = queries;
+            this.endpoints = endpoints;
+            this.cumulative = cumulative;
+            this.random = random;
+            this.start = start;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.intervalNanos = intervalNanos;
+            this.histograms = new Histogram[endpoints.size()];
+            for (int e = 0; e < histograms.length; e++) {
+                histograms[e] = new Histogram(HIGHEST_LATENCY_NANOS, 3);
+            }
+            this.errors = new long[endpoints.size()];
+        }
+
+        @Override
+        public void run() {
+            // Stagger paced threads so their requests do not all fall due at once
+            long due = start + (intervalNanos > 0 ? (long) (random.nextDouble() * intervalNanos) : 0L);
+            while (true) {
+                long now = System.nanoTime();
+                if (intervalNanos > 0) {
+                    while (now < due) {
+                        LockSupport.parkNanos(due - now);
+                        now = System.nanoTime();
+                    }
+                } else {
+                    due = now;
+                }
+                if (due >= end) {
+                    return;
+                }
+
+                int e = pick(random.nextInt(cumulative[cumulative.length - 1]));
+                boolean failed;
+                try {
+                    failed = !endpoints.get(e).call(controller, queries, random).getStatusCode().is2xxSuccessful();
+                } catch (RuntimeException ex) {
+                    failed = true;
+                }
+                long latency = System.nanoTime() - due;
+                if (due >= measureFrom) {
+                    histograms[e].recordValue(Math.min(latency, HIGHEST_LATENCY_NANOS));
+                    if (failed) {
+                        errors[e]++;
+                    }
+                }
+                due += intervalNanos;
+            }
+        }
+
+        private int pick(int ticket) {
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] > ticket) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Random request arguments drawn from the map: location names, search terms, typed prefixes and positions
+     */
+    private static final class Queries {
+        private final String[] names;
+        private final String[] terms;
+        private final double[] latitudes;
+        private final double[] longitudes;
+
+        Queries(CampusGraph graph) {
+            int n = graph.getNodeCount();
+            names = new String[n];
+            latitudes = new double[n];
+            longitudes = new double[n];
+            List<String> termList = new ArrayList<>();
+            for (int v = 0; v < n; v++) {
+                names[v] = graph.nameOf(v);
+                latitudes[v] = graph.latitude(v);
+                longitudes[v] = graph.longitude(v);
+                termList.addAll(graph.landmarks(v));
+                if (v < 16) {
+                    termList.add(graph.category(v));
+                }
+            }
+            if (termList.isEmpty()) {
+                termList.add(names[0]);
+            }
+            terms = termList.toArray(new String[0]);
+        }
+
+        int size() {
+            return names.length;
+        }
+
+        String location(Random random) {
+            return names[random.nextInt(names.length)];
+        }
+
+        String term(Random random) {
+            return terms[random.nextInt(terms.length)];
+        }
+
+        // The first one to four letters of a word of a location name or search term, as typed into a search box
+        String prefix(Random random) {
+            String[] words = (random.nextBoolean() ? location(random) : term(random)).split(" ");
+            String word = words[random.nextInt(words.length)];
+            return word.substring(0, Math.min(word.length(), 1 + random.nextInt(4)));
+        }
+
+        // A phone position up to about 30 m from a location
+        double[] point(Random random) {
+            int v = random.nextInt(names.length);
+            return new double[] { latitudes[v] + (random.nextDouble() - 0.5) * 0.0005,
+                    longitudes[v] + (random.nextDouble() - 0.5) * 0.0005 };
+        }
+
+        String pointText(Random random) {
+            double[] point = point(random);
+            return point[0] + "," + point[1];
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ugnavigate.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ugnavigate.models.Route;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing routes as JSON with the object mapper Spring MVC builds, over the shortest routes of the query set
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RouteJsonBenchmark {
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final List<Route> routes = new ArrayList<>();
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setUp(RoutingState state) {
+        for (int i = 0; i < RoutingState.QUERIES; i++) {
+            Route route = state.getRoutingService().findShortestRoute(state.start(i), state.end(i));
+            if (route != null) {
+                routes.add(route);
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] writeRoute() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(routes.get(query++ % routes.size()));
+    }
+}
@@ -0,0 +1,45 @@
+package com.ugnavigate.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-to-point queries against the routing engine, without the service's route cache in front of it
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RoutingAlgorithmBenchmark {
+    private int query;
+
+    @Benchmark
+    public List<String> findShortestPath(RoutingState state) {
+        int i = query++;
+        return state.getRoutingAlgorithm().findShortestPath(state.start(i), state.end(i));
+    }
+
+    @Benchmark
+    public List<String> findOptimalPath(RoutingState state) {
+        int i = query++;
+        return state.getRoutingAlgorithm().findOptimalPath(state.start(i), state.end(i));
+    }
+
+    @Benchmark
+    public List<List<String>> findTopRoutes(RoutingState state) {
+        int i = query++;
+        return state.getRoutingAlgorithm().findTopRoutes(state.start(i), state.end(i), 3);
+    }
+}
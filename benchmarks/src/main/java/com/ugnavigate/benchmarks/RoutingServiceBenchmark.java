@@ -0,0 +1,38 @@
+package com.ugnavigate.benchmarks;
+
+import com.ugnavigate.models.Route;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search-based routing through the service, cycling through a landmark, a category and a name prefix
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RoutingServiceBenchmark {
+    private static final String[] CAMPUS_TERMS = { "Library", "academic", "Computer" };
+    private static final String[] GENERATED_TERMS = { "Library 0", "service", "Building 12" };
+
+    private int query;
+
+    @Benchmark
+    public List<Route> searchRoutes(RoutingState state) {
+        int i = query++;
+        String[] terms = BenchmarkMaps.CAMPUS.equals(state.map) ? CAMPUS_TERMS : GENERATED_TERMS;
+        return state.getRoutingService().searchRoutes(state.start(i), state.end(i), terms[i % terms.length]);
+    }
+}
@@ -0,0 +1,67 @@
+package com.ugnavigate.benchmarks;
+
+import com.ugnavigate.algorithms.RoutingAlgorithm;
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.CampusMap;
+import com.ugnavigate.services.RoutingService;
+import com.ugnavigate.services.TrafficService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * A map with its routing engine and service, shared by every benchmark thread, and a fixed set of random queries.
+ * Queries cycle through QUERIES start and end pairs, so results reflect typical rather than one lucky pair.
+ */
+@State(Scope.Benchmark)
+public class RoutingState {
+    public static final int QUERIES = 256;
+
+    @Param({ BenchmarkMaps.CAMPUS, "1000", "10000", "100000" })
+    public String map;
+
+    private CampusMap campusMap;
+    private RoutingAlgorithm routingAlgorithm;
+    private RoutingService routingService;
+    private final String[] starts = new String[QUERIES];
+    private final String[] ends = new String[QUERIES];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        campusMap = BenchmarkMaps.load(map);
+        TrafficService trafficService = new TrafficService();
+        routingAlgorithm = new RoutingAlgorithm(campusMap, trafficService);
+        routingService = new RoutingService(campusMap, trafficService);
+
+        CampusGraph graph = campusMap.getGraph();
+        Random random = new Random(7L);
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = graph.nameOf(random.nextInt(graph.getNodeCount()));
+            ends[i] = graph.nameOf(random.nextInt(graph.getNodeCount()));
+        }
+    }
+
+    public CampusMap getCampusMap() {
+        return campusMap;
+    }
+
+    public RoutingAlgorithm getRoutingAlgorithm() {
+        return routingAlgorithm;
+    }
+
+    public RoutingService getRoutingService() {
+        return routingService;
+    }
+
+    public String start(int query) {
+        return starts[query % QUERIES];
+    }
+
+    public String end(int query) {
+        return ends[query % QUERIES];
+    }
+}
@@ -0,0 +1,73 @@
+package com.ugnavigate.benchmarks;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ugnavigate.models.CampusGraph;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+class CampusMapGeneratorTest {
+
+    private static final int[] SIZES = { 1, 2, 40, 500, 3000 };
+
+    @Test
+    void testEveryModelGivesOneConnectedComponent() {
+        for (CampusMapGenerator.Model model : CampusMapGenerator.Model.values()) {
+            for (int size : SIZES) {
+                CampusGraph graph = CampusMapGenerator.generateGraph(model, size, 42L);
+                assertEquals(size, graph.getNodeCount(), model + " " + size);
+                assertEquals(size, reachableFrom(graph, 0), model + " " + size);
+            }
+        }
+    }
+
+    @Test
+    void testEveryPathRunsBothWays() {
+        for (CampusMapGenerator.Model model : CampusMapGenerator.Model.values()) {
+            for (int size : SIZES) {
+                CampusGraph graph = CampusMapGenerator.generateGraph(model, size, 7L);
+                for (int u = 0; u < graph.getNodeCount(); u++) {
+                    for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                        int v = graph.target(e);
+                        int reverse = graph.findEdge(v, u);
+                        assertTrue(reverse >= 0, model + " " + size + ": " + u + " -> " + v + " has no way back");
+                        assertEquals(graph.weight(e), graph.weight(reverse), 0.0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSameSeedGivesSameMap() {
+        CampusGraph first = CampusMapGenerator.generateGraph("clustered:500", 3L);
+        CampusGraph second = CampusMapGenerator.generateGraph("clustered:500", 3L);
+        assertEquals(first.getEdgeCount(), second.getEdgeCount());
+        for (int e = 0; e < first.getEdgeCount(); e++) {
+            assertEquals(first.target(e), second.target(e));
+            assertEquals(first.weight(e), second.weight(e), 0.0);
+        }
+    }
+
+    private static int reachableFrom(CampusGraph graph, int source) {
+        boolean[] seen = new boolean[graph.getNodeCount()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        seen[source] = true;
+        queue.add(source);
+        int count = 0;
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            count++;
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.target(e);
+                if (!seen[v]) {
+                    seen[v] = true;
+                    queue.add(v);
+                }
+            }
+        }
+        return count;
+    }
+}
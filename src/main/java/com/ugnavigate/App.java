@@ -1,8 +1,11 @@
 package com.ugnavigate;
 
+import com.ugnavigate.services.BatchExecutor;
 import com.ugnavigate.services.CampusDataService;
 import com.ugnavigate.services.RoutingService;
 import com.ugnavigate.services.TrafficService;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -24,7 +27,30 @@ public class App {
     }
 
     @Bean
-    public RoutingService routingService(CampusDataService campusDataService, TrafficService trafficService) {
-        return new RoutingService(campusDataService.getCampusMap(), trafficService);
+    public RoutingService routingService(CampusDataService campusDataService, TrafficService trafficService,
+            @Value("${ugnavigate.precompute.parallelism:0}") int precomputeParallelism,
+            @Value("${ugnavigate.route-cache.maximum-size:10000}") int routeCacheSize,
+            @Value("${ugnavigate.alt.anchors:8}") int altAnchors) {
+        RoutingService routingService = new RoutingService(campusDataService.getCampusMap(), trafficService,
+                routeCacheSize);
+        routingService.setPrecomputeParallelism(precomputeParallelism);
+        routingService.setAltAnchorCount(altAnchors);
+        routingService.precompute();
+        return routingService;
     }
-}
\ No newline at end of file
+
+    @Bean
+    public MeterBinder routeCacheMetrics(RoutingService routingService) {
+        return routingService.getRouteCache();
+    }
+
+    @Bean
+    public MeterBinder routingMetrics(RoutingService routingService) {
+        return routingService.getMetrics();
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public BatchExecutor batchExecutor(@Value("${ugnavigate.batch.threads:0}") int threads) {
+        return new BatchExecutor(threads);
+    }
+}
@@ -0,0 +1,10 @@
+package com.ugnavigate.algorithms;
+
+/**
+ * Lower bound on the shortest-path distance between two nodes, used to guide A* searches.
+ * Implementations must never overestimate, and should be consistent so that settled nodes stay settled.
+ */
+public interface AStarHeuristic {
+
+    double lowerBound(int from, int to);
+}
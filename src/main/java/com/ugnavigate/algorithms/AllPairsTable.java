@@ -0,0 +1,283 @@
+package com.ugnavigate.algorithms;
+
+import com.ugnavigate.models.CampusGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Dense all-pairs distance and next-hop matrices for one {@link CampusGraph} snapshot.
+ * Both matrices are stored row-major in flat arrays, so entry (i, j) is at i * n + j.
+ */
+public final class AllPairsTable {
+    private final CampusGraph graph;
+    private final int n;
+    private final double[] distances;
+    private final int[] nextHops;
+    private String method;
+    private long buildTimeMillis;
+    private int computedRows;
+
+    private AllPairsTable(CampusGraph graph, double[] distances, int[] nextHops) {
+        this.graph = graph;
+        this.n = graph.getNodeCount();
+        this.distances = distances;
+        this.nextHops = nextHops;
+    }
+
+    /**
+     * Builds the table with one Dijkstra per source on sparse graphs and Floyd-Warshall on dense ones.
+     * A parallelism of 0 or less uses every available processor.
+     */
+    public static AllPairsTable compute(CampusGraph graph, int parallelism) {
+        long n = graph.getNodeCount();
+        if (graph.getEdgeCount() * 8L < n * n) {
+            return parallelDijkstra(graph, parallelism);
+        }
+        return floydWarshall(graph);
+    }
+
+    /**
+     * Builds the table by running a one-to-all Dijkstra from every node on a ForkJoinPool.
+     * Each task owns a range of source rows, so workers never write to the same part of the matrices.
+     */
+    public static AllPairsTable parallelDijkstra(CampusGraph graph, int parallelism) {
+        long started = System.nanoTime();
+        int n = graph.getNodeCount();
+        AllPairsTable table = new AllPairsTable(graph, new double[n * n], new int[n * n]);
+
+        int[] rows = new int[n];
+        for (int source = 0; source < n; source++) {
+            rows[source] = source;
+        }
+        table.fillRows(rows, parallelism);
+
+        table.method = "Parallel Dijkstra";
+        table.buildTimeMillis = (System.nanoTime() - started) / 1_000_000;
+        return table;
+    }
+
+    /**
+     * Returns the table for a graph that differs from this table's graph only in the weights of the given edges.
+     * Only the rows that can change are searched again: a row can only change if one of the edges, at the
+     * shorter of its old and new weights, ties or beats the row's current distance to the edge's head.
+     * Every other row, and every path through it, is still a shortest one.
+     */
+    public AllPairsTable repair(CampusGraph updated, int[] edges, int parallelism) {
+        if (!graph.hasSameEdges(updated)) {
+            throw new IllegalArgumentException("The graph has different edges");
+        }
+        long started = System.nanoTime();
+        int[] tails = new int[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            tails[i] = graph.source(edges[i]);
+        }
+
+        int[] rows = new int[n];
+        int count = 0;
+        for (int source = 0; source < n; source++) {
+            int row = source * n;
+            for (int i = 0; i < edges.length; i++) {
+                double tail = distances[row + tails[i]];
+                double head = distances[row + graph.target(edges[i])];
+                double weight = Math.min(graph.weight(edges[i]), updated.weight(edges[i]));
+                // The slack allows for sums rounded differently along equally short paths
+                if (tail < Double.POSITIVE_INFINITY && tail + weight <= head + 1e-9 * Math.max(1.0, head)) {
+                    rows[count++] = source;
+                    break;
+                }
+            }
+        }
+
+        AllPairsTable table = new AllPairsTable(updated, distances.clone(), nextHops.clone());
+        table.fillRows(Arrays.copyOf(rows, count), parallelism);
+        table.method = "Incremental repair";
+        table.buildTimeMillis = (System.nanoTime() - started) / 1_000_000;
+        return table;
+    }
+
+    /**
+     * Builds the table with the Floyd-Warshall algorithm
+     */
+    public static AllPairsTable floydWarshall(CampusGraph graph) {
+        long started = System.nanoTime();
+        int n = graph.getNodeCount();
+        double[] dist = new double[n * n];
+        int[] next = new int[n * n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        Arrays.fill(next, -1);
+
+        // Initialize distances and next matrix
+        for (int i = 0; i < n; i++) {
+            dist[i * n + i] = 0.0;
+            next[i * n + i] = i;
+            for (int e = graph.edgeStart(i), end = graph.edgeEnd(i); e < end; e++) {
+                int j = graph.target(e);
+                if (i != j && graph.weight(e) < dist[i * n + j]) {
+                    dist[i * n + j] = graph.weight(e);
+                    next[i * n + j] = j;
+                }
+            }
+        }
+
+        for (int k = 0; k < n; k++) {
+            int rowK = k * n;
+            for (int i = 0; i < n; i++) {
+                double ik = dist[i * n + k];
+                if (ik == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                int rowI = i * n;
+                int hop = next[rowI + k];
+                for (int j = 0; j < n; j++) {
+                    double candidate = ik + dist[rowK + j];
+                    if (candidate < dist[rowI + j]) {
+                        dist[rowI + j] = candidate;
+                        next[rowI + j] = hop;
+                    }
+                }
+            }
+        }
+
+        AllPairsTable table = new AllPairsTable(graph, dist, next);
+        table.method = "Floyd-Warshall";
+        table.computedRows = n;
+        table.buildTimeMillis = (System.nanoTime() - started) / 1_000_000;
+        return table;
+    }
+
+    public CampusGraph getGraph() {
+        return graph;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public long getBuildTimeMillis() {
+        return buildTimeMillis;
+    }
+
+    /**
+     * Returns how many rows were computed when the table was built or last repaired
+     */
+    public int getComputedRows() {
+        return computedRows;
+    }
+
+    public double distance(int from, int to) {
+        return distances[from * n + to];
+    }
+
+    /**
+     * Returns the first node after from on a shortest path to to, or -1 if to is unreachable
+     */
+    public int nextHop(int from, int to) {
+        return nextHops[from * n + to];
+    }
+
+    /**
+     * Follows the next-hop chain, returning the node ids from source to target,
+     * or an empty array if target is unreachable
+     */
+    public int[] path(int from, int to) {
+        if (nextHops[from * n + to] < 0) {
+            return new int[0];
+        }
+        int length = 1;
+        for (int node = from; node != to; node = nextHops[node * n + to]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int node = from;
+        for (int i = 0; i < length; i++) {
+            path[i] = node;
+            node = nextHops[node * n + to];
+        }
+        return path;
+    }
+
+    // Runs a one-to-all search from each of the rows' sources and stores the results
+    private void fillRows(int[] rows, int parallelism) {
+        computedRows = rows.length;
+        if (rows.length <= RowTask.ROWS_PER_TASK) {
+            new RowTask(this, rows, 0, rows.length).fill();
+            return;
+        }
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new RowTask(this, rows, 0, rows.length));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void fillRow(int source, SearchWorkspace workspace) {
+        int row = source * n;
+        for (int target = 0; target < n; target++) {
+            distances[row + target] = workspace.distance(target);
+            nextHops[row + target] = -1;
+        }
+        nextHops[row + source] = source;
+
+        // The next hop towards a target is the child of source on its branch of the search tree
+        for (int target = 0; target < n; target++) {
+            if (nextHops[row + target] >= 0 || !workspace.isReached(target)) {
+                continue;
+            }
+            int hop = -1;
+            for (int node = target; hop < 0;) {
+                int parent = workspace.parent(node);
+                if (parent == source) {
+                    hop = node;
+                } else if (nextHops[row + parent] >= 0) {
+                    hop = nextHops[row + parent];
+                } else {
+                    node = parent;
+                }
+            }
+            for (int node = target; node != source && nextHops[row + node] < 0; node = workspace.parent(node)) {
+                nextHops[row + node] = hop;
+            }
+        }
+    }
+
+    private static final class RowTask extends RecursiveAction {
+        private static final int ROWS_PER_TASK = 8;
+
+        private final AllPairsTable table;
+        private final int[] rows;
+        private final int from;
+        private final int to;
+
+        RowTask(AllPairsTable table, int[] rows, int from, int to) {
+            this.table = table;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RowTask(table, rows, from, middle), new RowTask(table, rows, middle, to));
+                return;
+            }
+            fill();
+        }
+
+        void fill() {
+            CampusGraph graph = table.graph;
+            for (int i = from; i < to; i++) {
+                SearchWorkspace workspace = SearchWorkspace.forward(graph.getNodeCount());
+                DijkstraSearch.run(graph, workspace, rows[i], -1);
+                table.fillRow(rows[i], workspace);
+            }
+            // The pool is shut down once the table is filled, and its threads' counts with it
+            SearchWorkspace.publishCounts();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.ugnavigate.algorithms;
+
+import com.ugnavigate.models.AnchorTable;
+import com.ugnavigate.models.CampusGraph;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * ALT heuristic: A* with anchor nodes and the triangle inequality.
+ * Distances from and to a few well-spread anchor nodes are precomputed; for any anchor a,
+ * d(v, t) is at least d(a, t) - d(a, v) and at least d(v, a) - d(t, a).
+ */
+public final class AltHeuristic implements AStarHeuristic {
+    private final CampusGraph graph;
+    private final int[] anchors;
+    private final int k;
+    // Row per node, one column per anchor, so a bound reads two short contiguous runs
+    private final DoubleBuffer fromAnchor;
+    private final DoubleBuffer toAnchor;
+
+    private AltHeuristic(CampusGraph graph, int[] anchors, DoubleBuffer fromAnchor, DoubleBuffer toAnchor) {
+        this.graph = graph;
+        this.anchors = anchors;
+        this.k = anchors.length;
+        this.fromAnchor = fromAnchor;
+        this.toAnchor = toAnchor;
+    }
+
+    /**
+     * Chooses up to anchorCount anchors by farthest-point selection and precomputes their distances
+     */
+    public static AltHeuristic build(CampusGraph graph, int anchorCount) {
+        int n = graph.getNodeCount();
+        int k = Math.min(anchorCount, n);
+        int[] anchors = new int[k];
+        double[] fromAnchor = new double[n * k];
+        double[] toAnchor = new double[n * k];
+        Transpose reverse = new Transpose(graph);
+
+        // Minimum distance from every node to the anchors chosen so far
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        int candidate = farthestFrom(graph, 0);
+        for (int a = 0; a < k; a++) {
+            anchors[a] = candidate;
+            SearchWorkspace workspace = SearchWorkspace.forward(n);
+            DijkstraSearch.run(graph, workspace, candidate, -1);
+            for (int v = 0; v < n; v++) {
+                fromAnchor[v * k + a] = workspace.distance(v);
+            }
+            workspace = SearchWorkspace.forward(n);
+            reverse.run(workspace, candidate);
+            for (int v = 0; v < n; v++) {
+                toAnchor[v * k + a] = workspace.distance(v);
+            }
+
+            candidate = -1;
+            double farthest = -1.0;
+            for (int v = 0; v < n; v++) {
+                double distance = fromAnchor[v * k + a];
+                if (distance < nearest[v]) {
+                    nearest[v] = distance;
+                }
+                // Unreached nodes count as farthest, so other components also get an anchor
+                if (nearest[v] > farthest) {
+                    farthest = nearest[v];
+                    candidate = v;
+                }
+            }
+        }
+        return new AltHeuristic(graph, anchors, DoubleBuffer.wrap(fromAnchor), DoubleBuffer.wrap(toAnchor));
+    }
+
+    /**
+     * Returns the same bounds for a graph with the same edges, none of them shorter than in this heuristic's graph.
+     * Old distances can only under-estimate the new ones, so the bounds stay admissible and consistent.
+     */
+    public AltHeuristic rebind(CampusGraph lengthened) {
+        if (!graph.hasSameEdges(lengthened)) {
+            throw new IllegalArgumentException("The graph has different edges");
+        }
+        return new AltHeuristic(lengthened, anchors, fromAnchor, toAnchor);
+    }
+
+    /**
+     * Uses the anchor distances stored with the graph, or returns null if it carries none
+     */
+    public static AltHeuristic fromAnchorTable(CampusGraph graph) {
+        AnchorTable table = graph.getAnchorTable();
+        if (table == null) {
+            return null;
+        }
+        return new AltHeuristic(graph, table.getAnchors(), table.getFromAnchor(), table.getToAnchor());
+    }
+
+    /**
+     * Returns the precomputed distances in a form that can be stored with the graph
+     */
+    public AnchorTable toAnchorTable() {
+        return new AnchorTable(anchors.clone(), fromAnchor.duplicate(), toAnchor.duplicate());
+    }
+
+    public CampusGraph getGraph() {
+        return graph;
+    }
+
+    public int[] getAnchors() {
+        return anchors.clone();
+    }
+
+    @Override
+    public double lowerBound(int from, int to) {
+        double best = 0.0;
+        int v = from * k;
+        int t = to * k;
+        for (int a = 0; a < k; a++) {
+            double forward = fromAnchor.get(t + a) - fromAnchor.get(v + a);
+            if (forward > best && forward < Double.POSITIVE_INFINITY) {
+                best = forward;
+            }
+            double backward = toAnchor.get(v + a) - toAnchor.get(t + a);
+            if (backward > best && backward < Double.POSITIVE_INFINITY) {
+                best = backward;
+            }
+        }
+        return best;
+    }
+
+    private static int farthestFrom(CampusGraph graph, int source) {
+        if (graph.getNodeCount() == 0) {
+            return 0;
+        }
+        SearchWorkspace workspace = SearchWorkspace.forward(graph.getNodeCount());
+        DijkstraSearch.run(graph, workspace, source, -1);
+        int farthest = source;
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            if (workspace.isReached(v) && workspace.distance(v) > workspace.distance(farthest)) {
+                farthest = v;
+            }
+        }
+        return farthest;
+    }
+
+    /**
+     * Reversed copy of the graph's edges, for distances towards an anchor
+     */
+    private static final class Transpose {
+        private final int[] offsets;
+        private final int[] sources;
+        private final double[] weights;
+
+        Transpose(CampusGraph graph) {
+            int n = graph.getNodeCount();
+            offsets = new int[n + 1];
+            for (int e = 0; e < graph.getEdgeCount(); e++) {
+                offsets[graph.target(e) + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] cursor = Arrays.copyOf(offsets, n);
+            sources = new int[graph.getEdgeCount()];
+            weights = new double[graph.getEdgeCount()];
+            for (int u = 0; u < n; u++) {
+                for (int e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                    int slot = cursor[graph.target(e)]++;
+                    sources[slot] = u;
+                    weights[slot] = graph.weight(e);
+                }
+            }
+        }
+
+        void run(SearchWorkspace workspace, int target) {
+            IndexedHeap heap = workspace.heap();
+            workspace.start(target, 0.0, 0.0);
+            while (!heap.isEmpty()) {
+                int node = heap.poll();
+                workspace.settle(node);
+                double distance = workspace.distance(node);
+                for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                    if (!workspace.isSettled(sources[e])) {
+                        double candidate = distance + weights[e];
+                        workspace.relax(sources[e], candidate, node, candidate);
+                    }
+                }
+            }
+        }
+    }
+}
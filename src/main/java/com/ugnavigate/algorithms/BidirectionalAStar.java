@@ -0,0 +1,91 @@
+package com.ugnavigate.algorithms;
+
+import com.ugnavigate.models.CampusGraph;
+
+/**
+ * A* run from the start and the end at the same time.
+ * Both directions use the average potential p(v) = (h(v, t) - h(s, v)) / 2 and its negation,
+ * which keeps reduced edge costs non-negative in both searches, so the search can stop as soon
+ * as the two smallest queue keys add up to the best path found.
+ * Connections are two-way, so the backward search walks the same edge lists as the forward one.
+ */
+public final class BidirectionalAStar {
+
+    private BidirectionalAStar() {
+    }
+
+    /**
+     * Returns the node ids of a shortest path from source to target, or an empty array if there is none
+     */
+    public static int[] findPath(CampusGraph graph, AStarHeuristic heuristic, int source, int target) {
+        if (source == target) {
+            return new int[] { source };
+        }
+        int n = graph.getNodeCount();
+        SearchWorkspace forward = SearchWorkspace.forward(n);
+        SearchWorkspace backward = SearchWorkspace.backward(n);
+        IndexedHeap forwardHeap = forward.heap();
+        IndexedHeap backwardHeap = backward.heap();
+        forward.start(source, 0.0, potential(heuristic, source, source, target));
+        backward.start(target, 0.0, -potential(heuristic, target, source, target));
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+            if (forwardHeap.peekKey() + backwardHeap.peekKey() >= best) {
+                break;
+            }
+
+            boolean isForward = forwardHeap.peekKey() <= backwardHeap.peekKey();
+            SearchWorkspace search = isForward ? forward : backward;
+            SearchWorkspace other = isForward ? backward : forward;
+            int node = search.heap().poll();
+            search.settle(node);
+
+            double distance = search.distance(node);
+            for (int e = graph.edgeStart(node), end = graph.edgeEnd(node); e < end; e++) {
+                int neighbor = graph.target(e);
+                if (search.isSettled(neighbor)) {
+                    continue;
+                }
+                double candidate = distance + graph.weight(e);
+                double p = potential(heuristic, neighbor, source, target);
+                if (search.relax(neighbor, candidate, node, candidate + (isForward ? p : -p))
+                        && other.isReached(neighbor) && candidate + other.distance(neighbor) < best) {
+                    best = candidate + other.distance(neighbor);
+                    meeting = neighbor;
+                }
+            }
+        }
+
+        if (meeting < 0) {
+            return new int[0];
+        }
+
+        int length = 0;
+        for (int node = meeting; node != -1; node = forward.parent(node)) {
+            length++;
+        }
+        for (int node = backward.parent(meeting); node != -1; node = backward.parent(node)) {
+            length++;
+        }
+        int[] path = new int[length];
+        int i = 0;
+        for (int node = meeting; node != -1; node = forward.parent(node)) {
+            path[i++] = node;
+        }
+        for (int lo = 0, hi = i - 1; lo < hi; lo++, hi--) {
+            int swap = path[lo];
+            path[lo] = path[hi];
+            path[hi] = swap;
+        }
+        for (int node = backward.parent(meeting); node != -1; node = backward.parent(node)) {
+            path[i++] = node;
+        }
+        return path;
+    }
+
+    private static double potential(AStarHeuristic heuristic, int node, int source, int target) {
+        return 0.5 * (heuristic.lowerBound(node, target) - heuristic.lowerBound(source, node));
+    }
+}
@@ -0,0 +1,463 @@
+package com.ugnavigate.algorithms;
+
+import com.ugnavigate.models.CampusGraph;
+
+import java.util.Arrays;
+
+/**
+ * Contraction Hierarchies over a {@link CampusGraph} snapshot.
+ * Nodes are contracted in order of edge difference, deleted neighbours and hierarchy level,
+ * adding shortcuts wherever a witness search cannot find a path around the contracted node.
+ * Queries run a bidirectional Dijkstra that only follows edges towards higher-ranked nodes,
+ * then unpack the shortcuts on the result.
+ */
+public final class ContractionHierarchy {
+    // Witness searches give up after this many settled nodes and add the shortcut instead
+    private static final int WITNESS_SETTLE_LIMIT = 64;
+
+    private final CampusGraph graph;
+    private final int[] rank;
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final double[] upWeights;
+    private final int[] upMiddles;
+    private final int[] downOffsets;
+    private final int[] downSources;
+    private final double[] downWeights;
+    private final int[] downMiddles;
+    private final int shortcutCount;
+    private final long buildTimeMillis;
+
+    private ContractionHierarchy(CampusGraph graph, int[] rank, EdgeLists up, EdgeLists down, int shortcutCount,
+            long buildTimeMillis) {
+        this.graph = graph;
+        this.rank = rank;
+        this.shortcutCount = shortcutCount;
+        this.buildTimeMillis = buildTimeMillis;
+        int n = graph.getNodeCount();
+
+        upOffsets = new int[n + 1];
+        downOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            upOffsets[v + 1] = upOffsets[v] + up.size[v];
+            downOffsets[v + 1] = downOffsets[v] + down.size[v];
+        }
+        upTargets = new int[upOffsets[n]];
+        upWeights = new double[upOffsets[n]];
+        upMiddles = new int[upOffsets[n]];
+        downSources = new int[downOffsets[n]];
+        downWeights = new double[downOffsets[n]];
+        downMiddles = new int[downOffsets[n]];
+        for (int v = 0; v < n; v++) {
+            for (int i = 0; i < up.size[v]; i++) {
+                upTargets[upOffsets[v] + i] = up.nodes[v][i];
+                upWeights[upOffsets[v] + i] = up.weights[v][i];
+                upMiddles[upOffsets[v] + i] = up.middles[v][i];
+            }
+            for (int i = 0; i < down.size[v]; i++) {
+                downSources[downOffsets[v] + i] = down.nodes[v][i];
+                downWeights[downOffsets[v] + i] = down.weights[v][i];
+                downMiddles[downOffsets[v] + i] = down.middles[v][i];
+            }
+        }
+    }
+
+    /**
+     * Orders and contracts every node of the graph
+     */
+    public static ContractionHierarchy build(CampusGraph graph) {
+        long started = System.nanoTime();
+        return new Contractor(graph).contract(started);
+    }
+
+    public CampusGraph getGraph() {
+        return graph;
+    }
+
+    public int getShortcutCount() {
+        return shortcutCount;
+    }
+
+    public long getBuildTimeMillis() {
+        return buildTimeMillis;
+    }
+
+    /**
+     * Returns the node ids of a shortest path from source to target, or an empty array if there is none
+     */
+    public int[] findPath(int source, int target) {
+        if (source == target) {
+            return new int[] { source };
+        }
+        int n = graph.getNodeCount();
+        SearchWorkspace forward = SearchWorkspace.forward(n);
+        SearchWorkspace backward = SearchWorkspace.backward(n);
+        IndexedHeap forwardHeap = forward.heap();
+        IndexedHeap backwardHeap = backward.heap();
+        forward.start(source, 0.0, 0.0);
+        backward.start(target, 0.0, 0.0);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        while (true) {
+            double forwardMin = forwardHeap.isEmpty() ? Double.POSITIVE_INFINITY : forwardHeap.peekKey();
+            double backwardMin = backwardHeap.isEmpty() ? Double.POSITIVE_INFINITY : backwardHeap.peekKey();
+            // Neither direction can improve on the best meeting point once both minimum keys reach it
+            if (Math.min(forwardMin, backwardMin) >= best) {
+                break;
+            }
+
+            if (forwardMin <= backwardMin) {
+                int node = forwardHeap.poll();
+                forward.settle(node);
+                double distance = forward.distance(node);
+                if (backward.isReached(node) && distance + backward.distance(node) < best) {
+                    best = distance + backward.distance(node);
+                    meeting = node;
+                }
+                if (!isStalled(forward, downOffsets, downSources, downWeights, node, distance)) {
+                    for (int e = upOffsets[node]; e < upOffsets[node + 1]; e++) {
+                        double candidate = distance + upWeights[e];
+                        forward.relax(upTargets[e], candidate, node, candidate);
+                    }
+                }
+            } else {
+                int node = backwardHeap.poll();
+                backward.settle(node);
+                double distance = backward.distance(node);
+                if (forward.isReached(node) && distance + forward.distance(node) < best) {
+                    best = distance + forward.distance(node);
+                    meeting = node;
+                }
+                if (!isStalled(backward, upOffsets, upTargets, upWeights, node, distance)) {
+                    for (int e = downOffsets[node]; e < downOffsets[node + 1]; e++) {
+                        double candidate = distance + downWeights[e];
+                        backward.relax(downSources[e], candidate, node, candidate);
+                    }
+                }
+            }
+        }
+
+        if (meeting < 0) {
+            return new int[0];
+        }
+        return unpack(forward, backward, source, meeting);
+    }
+
+    /**
+     * Stall-on-demand: a node reached more cheaply through a higher-ranked neighbour than by its
+     * own upward search cannot lie on a shortest up-down path, so its edges need not be relaxed
+     */
+    private static boolean isStalled(SearchWorkspace workspace, int[] offsets, int[] neighbours, double[] weights,
+            int node, double distance) {
+        for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+            if (workspace.distance(neighbours[e]) + weights[e] < distance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int[] unpack(SearchWorkspace forward, SearchWorkspace backward, int source, int meeting) {
+        // Hierarchy path, pushed so that the node after source ends up on top of the stack:
+        // target .. meeting from the backward tree, then meeting .. source from the forward tree
+        IntList backwardHalf = new IntList();
+        for (int node = backward.parent(meeting); node != -1; node = backward.parent(node)) {
+            backwardHalf.add(node);
+        }
+        IntList stack = new IntList();
+        for (int i = backwardHalf.size - 1; i >= 0; i--) {
+            stack.add(backwardHalf.values[i]);
+        }
+        for (int node = meeting; node != source; node = forward.parent(node)) {
+            stack.add(node);
+        }
+
+        // Expand every shortcut into its two halves until only original edges remain
+        IntList path = new IntList();
+        path.add(source);
+        int current = source;
+        while (stack.size > 0) {
+            int next = stack.values[stack.size - 1];
+            int middle = middleOf(current, next);
+            if (middle < 0) {
+                stack.size--;
+                path.add(next);
+                current = next;
+            } else {
+                stack.add(middle);
+            }
+        }
+        return Arrays.copyOf(path.values, path.size);
+    }
+
+    private int middleOf(int from, int to) {
+        if (rank[from] < rank[to]) {
+            for (int e = upOffsets[from]; e < upOffsets[from + 1]; e++) {
+                if (upTargets[e] == to) {
+                    return upMiddles[e];
+                }
+            }
+        } else {
+            for (int e = downOffsets[to]; e < downOffsets[to + 1]; e++) {
+                if (downSources[e] == from) {
+                    return downMiddles[e];
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Growable per-node edge lists holding the neighbour, weight and shortcut middle node (-1 for original edges)
+     */
+    private static final class EdgeLists {
+        final int[][] nodes;
+        final double[][] weights;
+        final int[][] middles;
+        final int[] size;
+
+        EdgeLists(int n) {
+            nodes = new int[n][];
+            weights = new double[n][];
+            middles = new int[n][];
+            size = new int[n];
+            for (int v = 0; v < n; v++) {
+                nodes[v] = new int[2];
+                weights[v] = new double[2];
+                middles[v] = new int[2];
+            }
+        }
+
+        int indexOf(int owner, int node) {
+            for (int i = 0; i < size[owner]; i++) {
+                if (nodes[owner][i] == node) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void remove(int owner, int node) {
+            int i = indexOf(owner, node);
+            if (i >= 0) {
+                int last = --size[owner];
+                nodes[owner][i] = nodes[owner][last];
+                weights[owner][i] = weights[owner][last];
+                middles[owner][i] = middles[owner][last];
+            }
+        }
+
+        void add(int owner, int node, double weight, int middle) {
+            int i = size[owner]++;
+            if (i == nodes[owner].length) {
+                nodes[owner] = Arrays.copyOf(nodes[owner], i * 2);
+                weights[owner] = Arrays.copyOf(weights[owner], i * 2);
+                middles[owner] = Arrays.copyOf(middles[owner], i * 2);
+            }
+            nodes[owner][i] = node;
+            weights[owner][i] = weight;
+            middles[owner][i] = middle;
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private static final class Contractor {
+        private final CampusGraph graph;
+        private final int n;
+        private final EdgeLists out;
+        private final EdgeLists in;
+        private final EdgeLists up;
+        private final EdgeLists down;
+        private final boolean[] contracted;
+        private final int[] deletedNeighbors;
+        private final int[] levels;
+        private final int[] rank;
+        private int shortcuts;
+
+        Contractor(CampusGraph graph) {
+            this.graph = graph;
+            this.n = graph.getNodeCount();
+            out = new EdgeLists(n);
+            in = new EdgeLists(n);
+            up = new EdgeLists(n);
+            down = new EdgeLists(n);
+            contracted = new boolean[n];
+            deletedNeighbors = new int[n];
+            levels = new int[n];
+            rank = new int[n];
+
+            for (int u = 0; u < n; u++) {
+                for (int e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                    int v = graph.target(e);
+                    if (v != u && graph.weight(e) < Double.POSITIVE_INFINITY) {
+                        addEdge(u, v, graph.weight(e), -1);
+                    }
+                }
+            }
+        }
+
+        ContractionHierarchy contract(long started) {
+            IndexedHeap queue = new IndexedHeap(n);
+            for (int v = 0; v < n; v++) {
+                queue.insertOrDecrease(v, priority(v));
+            }
+
+            int nextRank = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                // Lazy update: re-queue if the priority has grown past the next candidate
+                double priority = priority(v);
+                if (!queue.isEmpty() && priority > queue.peekKey()) {
+                    queue.insertOrDecrease(v, priority);
+                    continue;
+                }
+
+                addShortcuts(v, true);
+                for (int i = 0; i < out.size[v]; i++) {
+                    int w = out.nodes[v][i];
+                    if (!contracted[w]) {
+                        up.add(v, w, out.weights[v][i], out.middles[v][i]);
+                    }
+                }
+                for (int i = 0; i < in.size[v]; i++) {
+                    int u = in.nodes[v][i];
+                    if (!contracted[u]) {
+                        down.add(v, u, in.weights[v][i], in.middles[v][i]);
+                    }
+                }
+                contracted[v] = true;
+                rank[v] = nextRank++;
+                for (int i = 0; i < out.size[v]; i++) {
+                    in.remove(out.nodes[v][i], v);
+                }
+                for (int i = 0; i < in.size[v]; i++) {
+                    out.remove(in.nodes[v][i], v);
+                }
+
+                for (int i = 0; i < out.size[v]; i++) {
+                    neighbourContracted(v, out.nodes[v][i], queue);
+                }
+                for (int i = 0; i < in.size[v]; i++) {
+                    neighbourContracted(v, in.nodes[v][i], queue);
+                }
+            }
+
+            return new ContractionHierarchy(graph, rank, up, down, shortcuts,
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+
+        private void neighbourContracted(int v, int node, IndexedHeap queue) {
+            if (!contracted[node] && queue.contains(node)) {
+                deletedNeighbors[node]++;
+                levels[node] = Math.max(levels[node], levels[v] + 1);
+                // Only account for the new deleted neighbour here; the lazy check on poll
+                // recomputes the edge difference, which needs witness searches
+                queue.update(node, queue.keyOf(node) + 1);
+            }
+        }
+
+        private double priority(int v) {
+            int edges = 0;
+            for (int i = 0; i < out.size[v]; i++) {
+                if (!contracted[out.nodes[v][i]]) {
+                    edges++;
+                }
+            }
+            for (int i = 0; i < in.size[v]; i++) {
+                if (!contracted[in.nodes[v][i]]) {
+                    edges++;
+                }
+            }
+            return 2 * (addShortcuts(v, false) - edges) + deletedNeighbors[v] + levels[v];
+        }
+
+        /**
+         * Counts, and optionally adds, the shortcuts needed to contract v
+         */
+        private int addShortcuts(int v, boolean add) {
+            int count = 0;
+            for (int i = 0; i < in.size[v]; i++) {
+                int u = in.nodes[v][i];
+                if (contracted[u]) {
+                    continue;
+                }
+                double toV = in.weights[v][i];
+
+                double limit = -1.0;
+                for (int j = 0; j < out.size[v]; j++) {
+                    int w = out.nodes[v][j];
+                    if (!contracted[w] && w != u) {
+                        limit = Math.max(limit, toV + out.weights[v][j]);
+                    }
+                }
+                if (limit < 0.0) {
+                    continue;
+                }
+
+                SearchWorkspace witness = witnessSearch(u, v, limit);
+                for (int j = 0; j < out.size[v]; j++) {
+                    int w = out.nodes[v][j];
+                    if (contracted[w] || w == u) {
+                        continue;
+                    }
+                    double viaV = toV + out.weights[v][j];
+                    if (witness.distance(w) > viaV) {
+                        count++;
+                        if (add) {
+                            addEdge(u, w, viaV, v);
+                            shortcuts++;
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+
+        private SearchWorkspace witnessSearch(int source, int excluded, double limit) {
+            SearchWorkspace workspace = SearchWorkspace.forward(n);
+            IndexedHeap heap = workspace.heap();
+            workspace.start(source, 0.0, 0.0);
+            int settled = 0;
+            while (!heap.isEmpty() && heap.peekKey() <= limit && settled < WITNESS_SETTLE_LIMIT) {
+                int node = heap.poll();
+                workspace.settle(node);
+                settled++;
+                double distance = workspace.distance(node);
+                for (int i = 0; i < out.size[node]; i++) {
+                    int next = out.nodes[node][i];
+                    if (next != excluded && !contracted[next] && !workspace.isSettled(next)) {
+                        double candidate = distance + out.weights[node][i];
+                        workspace.relax(next, candidate, node, candidate);
+                    }
+                }
+            }
+            return workspace;
+        }
+
+        private void addEdge(int from, int to, double weight, int middle) {
+            int i = out.indexOf(from, to);
+            if (i < 0) {
+                out.add(from, to, weight, middle);
+                in.add(to, from, weight, middle);
+            } else if (weight < out.weights[from][i]) {
+                out.weights[from][i] = weight;
+                out.middles[from][i] = middle;
+                int j = in.indexOf(to, from);
+                in.weights[to][j] = weight;
+                in.middles[to][j] = middle;
+            }
+        }
+    }
+}
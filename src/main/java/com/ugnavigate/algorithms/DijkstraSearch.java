@@ -0,0 +1,60 @@
+package com.ugnavigate.algorithms;
+
+import com.ugnavigate.models.CampusGraph;
+
+/**
+ * Dijkstra's algorithm over a {@link CampusGraph} using a reusable {@link SearchWorkspace}.
+ */
+public final class DijkstraSearch {
+
+    private DijkstraSearch() {
+    }
+
+    /**
+     * Runs Dijkstra from source until target is settled, or over the whole graph when target is -1.
+     * Distances and parents are left in the workspace.
+     */
+    public static void run(CampusGraph graph, SearchWorkspace workspace, int source, int target) {
+        IndexedHeap heap = workspace.heap();
+        workspace.start(source, 0.0, 0.0);
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            workspace.settle(current);
+            if (current == target) {
+                return;
+            }
+
+            double base = workspace.distance(current);
+            for (int e = graph.edgeStart(current), end = graph.edgeEnd(current); e < end; e++) {
+                int neighbor = graph.target(e);
+                if (!workspace.isSettled(neighbor)) {
+                    double distance = base + graph.weight(e);
+                    workspace.relax(neighbor, distance, current, distance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks the parent chain back from target, returning the node ids from source to target,
+     * or an empty array if target was not reached
+     */
+    public static int[] path(SearchWorkspace workspace, int source, int target) {
+        if (!workspace.isReached(target)) {
+            return new int[0];
+        }
+        int length = 1;
+        for (int node = target; node != source; length++) {
+            node = workspace.parent(node);
+            if (node == -1) {
+                return new int[0];
+            }
+        }
+        int[] path = new int[length];
+        for (int node = target, i = length - 1; i >= 0; node = workspace.parent(node), i--) {
+            path[i] = node;
+        }
+        return path;
+    }
+}
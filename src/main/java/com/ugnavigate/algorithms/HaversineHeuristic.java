@@ -0,0 +1,77 @@
+package com.ugnavigate.algorithms;
+
+import com.ugnavigate.models.CampusGraph;
+
+/**
+ * Great-circle lower bound in kilometres, the unit of {@link CampusGraph} edge weights.
+ * The distance is scaled down by the smallest ratio of edge weight to great-circle length found
+ * in the graph, so the bound stays admissible and consistent even where coordinates are approximate.
+ */
+public final class HaversineHeuristic implements AStarHeuristic {
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final CampusGraph graph;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] cosLatitudes;
+    private final double scale;
+
+    public HaversineHeuristic(CampusGraph graph) {
+        this.graph = graph;
+        int n = graph.getNodeCount();
+        latitudes = new double[n];
+        longitudes = new double[n];
+        cosLatitudes = new double[n];
+        for (int v = 0; v < n; v++) {
+            latitudes[v] = Math.toRadians(graph.latitude(v));
+            longitudes[v] = Math.toRadians(graph.longitude(v));
+            cosLatitudes[v] = Math.cos(latitudes[v]);
+        }
+
+        double ratio = 1.0;
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                double straight = greatCircle(u, graph.target(e));
+                if (straight > 0.0 && graph.weight(e) < ratio * straight) {
+                    ratio = graph.weight(e) / straight;
+                }
+            }
+        }
+        scale = ratio;
+    }
+
+    public CampusGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the factor applied to great-circle distances;
+     * 1.0 when every edge is at least as long as the straight line between its ends
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    @Override
+    public double lowerBound(int from, int to) {
+        return scale * greatCircle(from, to);
+    }
+
+    /**
+     * Returns the great-circle distance in kilometres between two points given in degrees
+     */
+    public static double distanceKm(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        double sinLat = Math.sin(Math.toRadians(toLatitude - fromLatitude) * 0.5);
+        double sinLon = Math.sin(Math.toRadians(toLongitude - fromLongitude) * 0.5);
+        double h = sinLat * sinLat
+                + Math.cos(Math.toRadians(fromLatitude)) * Math.cos(Math.toRadians(toLatitude)) * sinLon * sinLon;
+        return 2.0 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(h)));
+    }
+
+    private double greatCircle(int from, int to) {
+        double sinLat = Math.sin((latitudes[to] - latitudes[from]) * 0.5);
+        double sinLon = Math.sin((longitudes[to] - longitudes[from]) * 0.5);
+        double h = sinLat * sinLat + cosLatitudes[from] * cosLatitudes[to] * sinLon * sinLon;
+        return 2.0 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(h)));
+    }
+}
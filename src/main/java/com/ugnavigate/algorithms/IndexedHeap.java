@@ -0,0 +1,170 @@
+package com.ugnavigate.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Primitive 4-ary min-heap of node ids keyed by double, with a position index
+ * so that a node's key can be decreased in place instead of pushing duplicates.
+ */
+public final class IndexedHeap {
+    private static final int ARITY = 4;
+
+    private int[] nodes;
+    private double[] keys;
+    private int[] positions;
+    private int size;
+
+    public IndexedHeap(int capacity) {
+        nodes = new int[Math.max(capacity, 1)];
+        keys = new double[Math.max(capacity, 1)];
+        positions = new int[Math.max(capacity, 1)];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Makes room for node ids below the given capacity
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > positions.length) {
+            int oldLength = positions.length;
+            nodes = Arrays.copyOf(nodes, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            Arrays.fill(positions, oldLength, capacity, -1);
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return positions[node] >= 0;
+    }
+
+    /**
+     * Returns the key of a queued node
+     */
+    public double keyOf(int node) {
+        return keys[positions[node]];
+    }
+
+    public double peekKey() {
+        return keys[0];
+    }
+
+    public int peek() {
+        return nodes[0];
+    }
+
+    /**
+     * Inserts the node, or lowers its key if it is queued with a larger one.
+     * Returns true if the heap changed.
+     */
+    public boolean insertOrDecrease(int node, double key) {
+        int position = positions[node];
+        if (position < 0) {
+            position = size++;
+            nodes[position] = node;
+            keys[position] = key;
+            positions[node] = position;
+            siftUp(position);
+            return true;
+        }
+        if (key < keys[position]) {
+            keys[position] = key;
+            siftUp(position);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Inserts the node or moves it to a new key, which may be larger than its current one
+     */
+    public void update(int node, double key) {
+        int position = positions[node];
+        if (position < 0 || key < keys[position]) {
+            insertOrDecrease(node, key);
+        } else if (key > keys[position]) {
+            keys[position] = key;
+            siftDown(position);
+        }
+    }
+
+    /**
+     * Removes and returns the node with the smallest key
+     */
+    public int poll() {
+        int top = nodes[0];
+        positions[top] = -1;
+        size--;
+        if (size > 0) {
+            nodes[0] = nodes[size];
+            keys[0] = keys[size];
+            positions[nodes[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Empties the heap in O(size) rather than O(capacity)
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[nodes[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        int node = nodes[position];
+        double key = keys[position];
+        while (position > 0) {
+            int parent = (position - 1) / ARITY;
+            if (keys[parent] <= key) {
+                break;
+            }
+            nodes[position] = nodes[parent];
+            keys[position] = keys[parent];
+            positions[nodes[position]] = position;
+            position = parent;
+        }
+        nodes[position] = node;
+        keys[position] = key;
+        positions[node] = position;
+    }
+
+    private void siftDown(int position) {
+        int node = nodes[position];
+        double key = keys[position];
+        while (true) {
+            int first = position * ARITY + 1;
+            if (first >= size) {
+                break;
+            }
+            int best = first;
+            int last = Math.min(first + ARITY, size);
+            for (int child = first + 1; child < last; child++) {
+                if (keys[child] < keys[best]) {
+                    best = child;
+                }
+            }
+            if (keys[best] >= key) {
+                break;
+            }
+            nodes[position] = nodes[best];
+            keys[position] = keys[best];
+            positions[nodes[position]] = position;
+            position = best;
+        }
+        nodes[position] = node;
+        keys[position] = key;
+        positions[node] = position;
+    }
+}
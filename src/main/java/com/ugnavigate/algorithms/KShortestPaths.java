@@ -0,0 +1,206 @@
+package com.ugnavigate.algorithms;
+
+import com.ugnavigate.models.CampusGraph;
+
+import java.util.*;
+
+/**
+ * Yen's k shortest loopless paths, with two standard speed-ups.
+ * A single shortest-path tree towards the target is built first; whenever the tree path from a spur
+ * node avoids everything the spur search must avoid, it is reused as the spur path directly, and
+ * otherwise its distances serve as an exact-where-possible A* bound for the restricted search.
+ * Spur nodes before a path's deviation point are skipped, since they were explored for its parent.
+ * Connections are two-way, so the tree towards the target is a search from the target.
+ */
+public final class KShortestPaths {
+
+    private KShortestPaths() {
+    }
+
+    /**
+     * Returns up to k distinct loopless paths from source to target as node id arrays, shortest first
+     */
+    public static List<int[]> find(CampusGraph graph, int source, int target, int k) {
+        List<int[]> accepted = new ArrayList<>();
+        if (k <= 0) {
+            return accepted;
+        }
+        if (source == target) {
+            accepted.add(new int[] { source });
+            return accepted;
+        }
+
+        int n = graph.getNodeCount();
+        SearchWorkspace tree = SearchWorkspace.backward(n);
+        DijkstraSearch.run(graph, tree, target, -1);
+        if (!tree.isReached(source)) {
+            return accepted;
+        }
+
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+        Set<PathKey> seen = new HashSet<>();
+        int[] first = treePath(tree, source);
+        seen.add(new PathKey(first));
+        List<Integer> deviations = new ArrayList<>();
+        accepted.add(first);
+        deviations.add(0);
+
+        boolean[] inRoot = new boolean[n];
+        while (accepted.size() < k) {
+            int[] previous = accepted.get(accepted.size() - 1);
+            double rootCost = 0.0;
+            for (int i = 0; i < previous.length - 1; i++) {
+                int spur = previous[i];
+                if (i >= deviations.get(deviations.size() - 1)) {
+                    int[] blockedNext = blockedNextHops(accepted, previous, i);
+                    int[] spurPath = spurPath(graph, tree, spur, target, inRoot, blockedNext);
+                    if (spurPath != null) {
+                        int[] path = new int[i + spurPath.length];
+                        System.arraycopy(previous, 0, path, 0, i);
+                        System.arraycopy(spurPath, 0, path, i, spurPath.length);
+                        if (seen.add(new PathKey(path))) {
+                            candidates.add(new Candidate(path, rootCost + graph.pathDistance(spurPath), i));
+                        }
+                    }
+                }
+                inRoot[spur] = true;
+                rootCost += graph.distance(spur, previous[i + 1]);
+            }
+            for (int node : previous) {
+                inRoot[node] = false;
+            }
+
+            Candidate next = candidates.poll();
+            if (next == null) {
+                break;
+            }
+            accepted.add(next.path);
+            deviations.add(next.deviation);
+        }
+        return accepted;
+    }
+
+    private static int[] treePath(SearchWorkspace tree, int from) {
+        int length = 1;
+        for (int node = from; tree.parent(node) != -1; node = tree.parent(node)) {
+            length++;
+        }
+        int[] path = new int[length];
+        int node = from;
+        for (int i = 0; i < length; i++) {
+            path[i] = node;
+            node = tree.parent(node);
+        }
+        return path;
+    }
+
+    /**
+     * Next hops out of the spur node already used by accepted paths that share the root up to it
+     */
+    private static int[] blockedNextHops(List<int[]> accepted, int[] previous, int spurIndex) {
+        int[] blocked = new int[accepted.size()];
+        int count = 0;
+        for (int[] path : accepted) {
+            if (path.length > spurIndex + 1 && sharesPrefix(path, previous, spurIndex)) {
+                blocked[count++] = path[spurIndex + 1];
+            }
+        }
+        return Arrays.copyOf(blocked, count);
+    }
+
+    private static boolean sharesPrefix(int[] a, int[] b, int lastIndex) {
+        for (int i = 0; i <= lastIndex; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] spurPath(CampusGraph graph, SearchWorkspace tree, int spur, int target, boolean[] inRoot,
+            int[] blockedNext) {
+        // Reuse the tree path when it leaves the spur node by an allowed edge and never touches the root
+        int hop = tree.parent(spur);
+        if (hop != -1 && !contains(blockedNext, hop)) {
+            boolean usable = true;
+            for (int node = hop; node != -1; node = tree.parent(node)) {
+                if (inRoot[node]) {
+                    usable = false;
+                    break;
+                }
+            }
+            if (usable) {
+                return treePath(tree, spur);
+            }
+        }
+
+        // Restricted A*, guided by distances to the target in the unrestricted graph
+        SearchWorkspace search = SearchWorkspace.forward(graph.getNodeCount());
+        IndexedHeap heap = search.heap();
+        search.start(spur, 0.0, tree.distance(spur));
+        while (!heap.isEmpty()) {
+            int node = heap.poll();
+            if (node == target) {
+                return DijkstraSearch.path(search, spur, target);
+            }
+            search.settle(node);
+            double distance = search.distance(node);
+            for (int e = graph.edgeStart(node), end = graph.edgeEnd(node); e < end; e++) {
+                int neighbor = graph.target(e);
+                if (inRoot[neighbor] || search.isSettled(neighbor) || !tree.isReached(neighbor)
+                        || (node == spur && contains(blockedNext, neighbor))) {
+                    continue;
+                }
+                double candidate = distance + graph.weight(e);
+                search.relax(neighbor, candidate, node, candidate + tree.distance(neighbor));
+            }
+        }
+        return null;
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        final int[] path;
+        final double cost;
+        final int deviation;
+
+        Candidate(int[] path, double cost, int deviation) {
+            this.path = path;
+            this.cost = cost;
+            this.deviation = deviation;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            return Double.compare(cost, other.cost);
+        }
+    }
+
+    private static final class PathKey {
+        final int[] path;
+        final int hash;
+
+        PathKey(int[] path) {
+            this.path = path;
+            this.hash = Arrays.hashCode(path);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof PathKey && Arrays.equals(path, ((PathKey) obj).path);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
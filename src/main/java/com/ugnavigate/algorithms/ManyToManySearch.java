@@ -0,0 +1,216 @@
+package com.ugnavigate.algorithms;
+
+import com.ugnavigate.models.CampusGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Source-by-target distance tables from parallel one-to-all searches.
+ * One search runs per row, stopping as soon as every column is settled, and rows are spread over a ForkJoinPool.
+ * Connections are two-way, so the searches run from whichever side of the table is smaller.
+ */
+public final class ManyToManySearch {
+
+    private ManyToManySearch() {
+    }
+
+    /**
+     * Prices a shortest path given as node ids from source to target, such as by its travel time
+     */
+    public interface PathCost {
+        double of(int[] path);
+    }
+
+    /**
+     * Returns the distance from every source to every target, indexed [source][target].
+     * Ids of -1 and unreachable pairs give Double.POSITIVE_INFINITY.
+     */
+    public static double[][] compute(CampusGraph graph, int[] sources, int[] targets, ForkJoinPool pool) {
+        return compute(graph, sources, targets, pool, null, null);
+    }
+
+    /**
+     * Returns the distances as above, and also prices the shortest path behind every cell into costs, which is
+     * indexed the same way. Cells without a path cost Double.POSITIVE_INFINITY.
+     */
+    public static double[][] compute(CampusGraph graph, int[] sources, int[] targets, ForkJoinPool pool,
+            PathCost pathCost, double[][] costs) {
+        boolean transpose = targets.length < sources.length;
+        int[] rows = transpose ? targets : sources;
+        int[] columns = transpose ? sources : targets;
+
+        // How many columns each node stands for, so a search knows when it has settled all of them
+        int[] columnCount = new int[graph.getNodeCount()];
+        for (int column : columns) {
+            if (column >= 0) {
+                columnCount[column]++;
+            }
+        }
+
+        double[][] table = new double[rows.length][columns.length];
+        Pricing pricing = pathCost == null ? null : new Pricing(pathCost, costs, transpose);
+        pool.invoke(new RowTask(graph, rows, columns, columnCount, table, pricing, 0, rows.length));
+        if (!transpose) {
+            return table;
+        }
+
+        double[][] result = new double[sources.length][targets.length];
+        for (int i = 0; i < sources.length; i++) {
+            for (int j = 0; j < targets.length; j++) {
+                result[i][j] = table[j][i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the table out of a precomputed all-pairs table instead of searching
+     */
+    public static double[][] compute(AllPairsTable allPairs, int[] sources, int[] targets) {
+        return compute(allPairs, sources, targets, null, null);
+    }
+
+    /**
+     * Reads the distances out of a precomputed all-pairs table, pricing the path behind every cell into costs
+     */
+    public static double[][] compute(AllPairsTable allPairs, int[] sources, int[] targets, PathCost pathCost,
+            double[][] costs) {
+        double[][] result = new double[sources.length][targets.length];
+        for (int i = 0; i < sources.length; i++) {
+            for (int j = 0; j < targets.length; j++) {
+                result[i][j] = sources[i] < 0 || targets[j] < 0
+                        ? Double.POSITIVE_INFINITY
+                        : allPairs.distance(sources[i], targets[j]);
+                if (pathCost != null) {
+                    costs[i][j] = result[i][j] < Double.POSITIVE_INFINITY
+                            ? pathCost.of(allPairs.path(sources[i], targets[j]))
+                            : Double.POSITIVE_INFINITY;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void fillRow(CampusGraph graph, int source, int[] columns, int[] columnCount, double[] row,
+            Pricing pricing, int rowIndex) {
+        if (source < 0) {
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+            if (pricing != null) {
+                for (int j = 0; j < columns.length; j++) {
+                    pricing.set(rowIndex, j, Double.POSITIVE_INFINITY);
+                }
+            }
+            return;
+        }
+
+        int remaining = 0;
+        for (int column : columns) {
+            if (column >= 0) {
+                remaining++;
+            }
+        }
+        SearchWorkspace workspace = SearchWorkspace.forward(graph.getNodeCount());
+        IndexedHeap heap = workspace.heap();
+        workspace.start(source, 0.0, 0.0);
+        while (!heap.isEmpty() && remaining > 0) {
+            int current = heap.poll();
+            workspace.settle(current);
+            remaining -= columnCount[current];
+
+            double base = workspace.distance(current);
+            for (int e = graph.edgeStart(current), end = graph.edgeEnd(current); e < end; e++) {
+                int neighbor = graph.target(e);
+                if (!workspace.isSettled(neighbor)) {
+                    double distance = base + graph.weight(e);
+                    workspace.relax(neighbor, distance, current, distance);
+                }
+            }
+        }
+
+        for (int j = 0; j < columns.length; j++) {
+            boolean settled = columns[j] >= 0 && workspace.isSettled(columns[j]);
+            row[j] = settled ? workspace.distance(columns[j]) : Double.POSITIVE_INFINITY;
+            if (pricing != null) {
+                // Paths are read off this search before the thread's workspace is reused
+                pricing.set(rowIndex, j, settled
+                        ? pricing.pathCost.of(pricing.oriented(DijkstraSearch.path(workspace, source, columns[j])))
+                        : Double.POSITIVE_INFINITY);
+            }
+        }
+    }
+
+    // Where path costs go, and whether the searches ran from the targets
+    private static final class Pricing {
+        private final PathCost pathCost;
+        private final double[][] costs;
+        private final boolean transpose;
+
+        Pricing(PathCost pathCost, double[][] costs, boolean transpose) {
+            this.pathCost = pathCost;
+            this.costs = costs;
+            this.transpose = transpose;
+        }
+
+        // A search from a target finds the path backwards; connections are two-way, so it can be walked reversed
+        int[] oriented(int[] path) {
+            if (transpose) {
+                for (int i = 0, j = path.length - 1; i < j; i++, j--) {
+                    int node = path[i];
+                    path[i] = path[j];
+                    path[j] = node;
+                }
+            }
+            return path;
+        }
+
+        void set(int row, int column, double cost) {
+            if (transpose) {
+                costs[column][row] = cost;
+            } else {
+                costs[row][column] = cost;
+            }
+        }
+    }
+
+    private static final class RowTask extends RecursiveAction {
+        private static final int ROWS_PER_TASK = 2;
+
+        private final CampusGraph graph;
+        private final int[] rows;
+        private final int[] columns;
+        private final int[] columnCount;
+        private final double[][] table;
+        private final Pricing pricing;
+        private final int from;
+        private final int to;
+
+        RowTask(CampusGraph graph, int[] rows, int[] columns, int[] columnCount, double[][] table, Pricing pricing,
+                int from, int to) {
+            this.graph = graph;
+            this.rows = rows;
+            this.columns = columns;
+            this.columnCount = columnCount;
+            this.table = table;
+            this.pricing = pricing;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RowTask(graph, rows, columns, columnCount, table, pricing, from, middle),
+                        new RowTask(graph, rows, columns, columnCount, table, pricing, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                fillRow(graph, rows[i], columns, columnCount, table[i], pricing, i);
+            }
+            // Pool threads may not search again for a while
+            SearchWorkspace.publishCounts();
+        }
+    }
+}
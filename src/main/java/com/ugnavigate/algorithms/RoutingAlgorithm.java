@@ -1,24 +1,89 @@
 package com.ugnavigate.algorithms;
 
+import com.ugnavigate.models.CampusGraph;
 import com.ugnavigate.models.CampusMap;
 import com.ugnavigate.models.Location;
+import com.ugnavigate.models.RouteMatrix;
+import com.ugnavigate.models.TrafficOverlay;
+import com.ugnavigate.models.TrafficProfile;
 import com.ugnavigate.services.TrafficService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 public class RoutingAlgorithm {
+    private static final Logger log = LoggerFactory.getLogger(RoutingAlgorithm.class);
+
+    public static final int DEFAULT_ALT_ANCHORS = 8;
+
+    // Above this many nodes the n x n tables cost more memory than they save in search time
+    public static final int ALL_PAIRS_MAX_NODES = 2000;
+
     private CampusMap campusMap;
     private TrafficService trafficService;
+    private volatile AllPairsTable allPairsTable;
+    // Guards publishing the all-pairs table and the edge updates that repair it
+    private final Object allPairsLock = new Object();
+    // The graph whose all-pairs table is being built in the background, guarded by allPairsLock
+    private CampusGraph allPairsBuilding;
+    private volatile ContractionHierarchy contractionHierarchy;
+    // Contracting a large map takes seconds, so the hierarchy is published under a lock of its own
+    private final Object contractionLock = new Object();
+    // The graph whose contraction hierarchy is being built in the background, guarded by contractionLock
+    private CampusGraph contractionBuilding;
+    private volatile AltHeuristic altHeuristic;
+    // Guards publishing the ALT anchors, and the graph they are being selected for in the background
+    private final Object altLock = new Object();
+    private CampusGraph altBuilding;
+    private volatile HaversineHeuristic haversineHeuristic;
+    // Wall-clock times the tables above were last built or repaired, 0 before the first build
+    private volatile long allPairsBuiltAt;
+    private volatile long contractionBuiltAt;
+    private volatile long altBuiltAt;
+    private int precomputeParallelism;
+    // Runs distance matrices apart from the common pool, created on first use. Edge updates hold the all-pairs lock
+    // for seconds while they repair the table, so the pool has a lock of its own.
+    private final Object matrixPoolLock = new Object();
+    private ForkJoinPool matrixPool;
+    private int altAnchorCount = DEFAULT_ALT_ANCHORS;
 
     public RoutingAlgorithm(CampusMap campusMap, TrafficService trafficService) {
         this.campusMap = campusMap;
         this.trafficService = trafficService;
     }
 
+    /**
+     * Caps the number of threads used to build precomputed tables and distance matrices; 0 uses every processor
+     */
+    public void setPrecomputeParallelism(int precomputeParallelism) {
+        this.precomputeParallelism = precomputeParallelism;
+        synchronized (matrixPoolLock) {
+            if (matrixPool != null) {
+                matrixPool.shutdown();
+                matrixPool = null;
+            }
+        }
+    }
+
+    /**
+     * Sets how many anchor nodes the ALT heuristic uses for A*; 0 uses the great-circle bound alone
+     */
+    public void setAltAnchorCount(int altAnchorCount) {
+        this.altAnchorCount = altAnchorCount;
+    }
+
     // Dijkstra's Algorithm Implementation
     public List<String> findShortestPath(String startLocation, String endLocation) {
+        return findShortestPath(campusMap.getSnapshot(), startLocation, endLocation);
+    }
+
+    public List<String> findShortestPath(CampusMap.Snapshot snapshot, String startLocation, String endLocation) {
         if (startLocation == null || endLocation == null ||
-                !campusMap.hasLocation(startLocation) || !campusMap.hasLocation(endLocation)) {
+                snapshot.getGraph().idOf(startLocation) < 0 || snapshot.getGraph().idOf(endLocation) < 0) {
             return new ArrayList<>();
         }
 
@@ -26,55 +91,25 @@ public class RoutingAlgorithm {
             return Arrays.asList(startLocation);
         }
 
-        Map<String, Double> distances = new HashMap<>();
-        Map<String, String> previous = new HashMap<>();
-        PriorityQueue<String> queue = new PriorityQueue<>(
-                Comparator.comparingDouble(distances::get));
-        Set<String> visited = new HashSet<>();
-
-        // Initialize distances
-        for (String location : campusMap.getLocations()) {
-            distances.put(location, Double.POSITIVE_INFINITY);
-        }
-        distances.put(startLocation, 0.0);
-        queue.offer(startLocation);
-
-        while (!queue.isEmpty()) {
-            String current = queue.poll();
-
-            if (current.equals(endLocation)) {
-                break;
-            }
+        CampusGraph graph = snapshot.getGraph();
+        int source = graph.idOf(startLocation);
+        int target = graph.idOf(endLocation);
 
-            if (visited.contains(current)) {
-                continue;
-            }
-            visited.add(current);
-
-            // Check all neighbors
-            for (String neighbor : campusMap.getNeighbors(current)) {
-                if (!visited.contains(neighbor)) {
-                    double distance = campusMap.getDistance(current, neighbor);
-                    if (distance < Double.POSITIVE_INFINITY) {
-                        double newDistance = distances.get(current) + distance;
-                        if (newDistance < distances.get(neighbor)) {
-                            distances.put(neighbor, newDistance);
-                            previous.put(neighbor, current);
-                            queue.offer(neighbor);
-                        }
-                    }
-                }
-            }
-        }
+        SearchWorkspace workspace = SearchWorkspace.forward(graph.getNodeCount());
+        DijkstraSearch.run(graph, workspace, source, target);
 
         // Reconstruct path
-        return reconstructPath(previous, startLocation, endLocation);
+        return graph.toNames(DijkstraSearch.path(workspace, source, target));
     }
 
-    // A* Search Algorithm Implementation
+    // Bidirectional A* Search Implementation
     public List<String> findOptimalPath(String startLocation, String endLocation) {
+        return findOptimalPath(campusMap.getSnapshot(), startLocation, endLocation);
+    }
+
+    public List<String> findOptimalPath(CampusMap.Snapshot snapshot, String startLocation, String endLocation) {
         if (startLocation == null || endLocation == null ||
-                !campusMap.hasLocation(startLocation) || !campusMap.hasLocation(endLocation)) {
+                snapshot.getGraph().idOf(startLocation) < 0 || snapshot.getGraph().idOf(endLocation) < 0) {
             return new ArrayList<>();
         }
 
@@ -82,255 +117,540 @@ public class RoutingAlgorithm {
             return Arrays.asList(startLocation);
         }
 
-        Map<String, Double> gScore = new HashMap<>();
-        Map<String, Double> fScore = new HashMap<>();
-        Map<String, String> cameFrom = new HashMap<>();
-        PriorityQueue<String> openSet = new PriorityQueue<>(
-                Comparator.comparingDouble(fScore::get));
-        Set<String> closedSet = new HashSet<>();
+        CampusGraph graph = snapshot.getGraph();
+        int source = graph.idOf(startLocation);
+        int target = graph.idOf(endLocation);
+
+        AStarHeuristic heuristic = getHeuristic(graph);
+        return graph.toNames(BidirectionalAStar.findPath(graph, heuristic, source, target));
+    }
 
-        // Initialize scores
-        for (String location : campusMap.getLocations()) {
-            gScore.put(location, Double.POSITIVE_INFINITY);
-            fScore.put(location, Double.POSITIVE_INFINITY);
+    /**
+     * Returns the A* heuristic for a snapshot:
+     * the great-circle bound, strengthened by ALT bounds when anchors are enabled and have been selected for it.
+     * Anchors are selected in the background, so searches use the great-circle bound alone until they are ready.
+     */
+    public AStarHeuristic getHeuristic(CampusGraph graph) {
+        HaversineHeuristic haversine = haversineHeuristic;
+        if (haversine == null || haversine.getGraph() != graph) {
+            haversine = new HaversineHeuristic(graph);
+            haversineHeuristic = haversine;
+        }
+        if (altAnchorCount <= 0) {
+            return haversine;
         }
 
-        gScore.put(startLocation, 0.0);
-        fScore.put(startLocation, heuristic(startLocation, endLocation));
-        openSet.offer(startLocation);
+        AltHeuristic alt = altHeuristic;
+        if (alt == null || alt.getGraph() != graph) {
+            // A graph opened from a graph file may already carry its anchor distances
+            alt = AltHeuristic.fromAnchorTable(graph);
+            if (alt == null || alt.getAnchors().length != Math.min(altAnchorCount, graph.getNodeCount())) {
+                buildAltHeuristicInBackground(graph, altAnchorCount);
+                return haversine;
+            }
+            publishAltHeuristic(alt);
+        }
+        // The larger of two consistent lower bounds is still a consistent lower bound
+        AStarHeuristic landmarks = alt;
+        AStarHeuristic greatCircle = haversine;
+        return (from, to) -> Math.max(landmarks.lowerBound(from, to), greatCircle.lowerBound(from, to));
+    }
 
-        while (!openSet.isEmpty()) {
-            String current = openSet.poll();
+    private void buildAltHeuristicInBackground(CampusGraph graph, int anchorCount) {
+        synchronized (altLock) {
+            if (altBuilding == graph) {
+                return;
+            }
+            altBuilding = graph;
+        }
+        startBuilder("alt-precompute", () -> {
+            try {
+                long started = System.nanoTime();
+                AltHeuristic alt = AltHeuristic.build(graph, anchorCount);
+                log.info("Selected {} ALT anchors for {} locations in {} ms", alt.getAnchors().length,
+                        graph.getNodeCount(), (System.nanoTime() - started) / 1_000_000);
+                publishAltHeuristic(alt);
+            } finally {
+                synchronized (altLock) {
+                    if (altBuilding == graph) {
+                        altBuilding = null;
+                    }
+                }
+            }
+        });
+    }
 
-            if (current.equals(endLocation)) {
-                return reconstructPath(cameFrom, startLocation, endLocation);
+    private void publishAltHeuristic(AltHeuristic alt) {
+        synchronized (altLock) {
+            AltHeuristic current = altHeuristic;
+            // Never replace the anchors of a newer version with ones that finished late
+            if (current == null || current.getGraph().getVersion() <= alt.getGraph().getVersion()) {
+                altHeuristic = alt;
+                altBuiltAt = System.currentTimeMillis();
             }
+        }
+    }
 
-            closedSet.add(current);
+    // Contraction Hierarchies query
+    public List<String> findContractedPath(String startLocation, String endLocation) {
+        return findContractedPath(campusMap.getSnapshot(), startLocation, endLocation);
+    }
 
-            for (String neighbor : campusMap.getNeighbors(current)) {
-                if (closedSet.contains(neighbor)) {
-                    continue;
-                }
+    public List<String> findContractedPath(CampusMap.Snapshot snapshot, String startLocation, String endLocation) {
+        if (startLocation == null || endLocation == null ||
+                snapshot.getGraph().idOf(startLocation) < 0 || snapshot.getGraph().idOf(endLocation) < 0) {
+            return new ArrayList<>();
+        }
 
-                double tentativeGScore = gScore.get(current) + campusMap.getDistance(current, neighbor);
+        CampusGraph graph = snapshot.getGraph();
+        ContractionHierarchy hierarchy = contractionHierarchy;
+        if (hierarchy == null || hierarchy.getGraph() != graph) {
+            // The same shortest path, found by searching the map itself until its hierarchy is ready
+            buildContractionHierarchyInBackground(graph);
+            return findShortestPath(snapshot, startLocation, endLocation);
+        }
+        return graph.toNames(hierarchy.findPath(graph.idOf(startLocation), graph.idOf(endLocation)));
+    }
 
-                if (tentativeGScore < gScore.get(neighbor)) {
-                    cameFrom.put(neighbor, current);
-                    gScore.put(neighbor, tentativeGScore);
-                    fScore.put(neighbor, tentativeGScore + heuristic(neighbor, endLocation));
+    /**
+     * Returns the contraction hierarchy for the current map, building it first if it is missing or out of date
+     */
+    public ContractionHierarchy getContractionHierarchy() {
+        return computeContractionHierarchy(campusMap.getGraph());
+    }
 
-                    if (!openSet.contains(neighbor)) {
-                        openSet.offer(neighbor);
+    private void buildContractionHierarchyInBackground(CampusGraph graph) {
+        synchronized (contractionLock) {
+            if (contractionBuilding == graph) {
+                return;
+            }
+            contractionBuilding = graph;
+        }
+        startBuilder("contraction-precompute", () -> {
+            try {
+                computeContractionHierarchy(graph);
+            } finally {
+                synchronized (contractionLock) {
+                    if (contractionBuilding == graph) {
+                        contractionBuilding = null;
                     }
                 }
             }
-        }
+        });
+    }
 
-        return new ArrayList<>();
+    // Builds outside the lock, so queries, edge updates and the other tables never wait for it
+    private ContractionHierarchy computeContractionHierarchy(CampusGraph graph) {
+        ContractionHierarchy hierarchy = contractionHierarchy;
+        if (hierarchy != null && hierarchy.getGraph() == graph) {
+            return hierarchy;
+        }
+        hierarchy = ContractionHierarchy.build(graph);
+        synchronized (contractionLock) {
+            ContractionHierarchy current = contractionHierarchy;
+            if (current != null && current.getGraph() == graph) {
+                return current;
+            }
+            // Never replace the hierarchy of a newer version with one that finished late
+            if (current == null || current.getGraph().getVersion() <= graph.getVersion()) {
+                contractionHierarchy = hierarchy;
+                contractionBuiltAt = System.currentTimeMillis();
+            }
+        }
+        log.info("Contracted {} locations with {} shortcuts in {} ms",
+                graph.getNodeCount(), hierarchy.getShortcutCount(), hierarchy.getBuildTimeMillis());
+        return hierarchy;
     }
 
     // Floyd-Warshall Algorithm Implementation
     public Map<String, Map<String, Double>> findAllShortestPaths() {
+        AllPairsTable table = computeAllPairsTable();
+        CampusGraph graph = table.getGraph();
+
         Map<String, Map<String, Double>> distances = new HashMap<>();
-        Map<String, Map<String, String>> next = new HashMap<>();
-
-        // Initialize distances and next matrix
-        for (String i : campusMap.getLocations()) {
-            distances.put(i, new HashMap<>());
-            next.put(i, new HashMap<>());
-            for (String j : campusMap.getLocations()) {
-                if (i.equals(j)) {
-                    distances.get(i).put(j, 0.0);
-                } else {
-                    double distance = campusMap.getDistance(i, j);
-                    distances.get(i).put(j, distance);
-                    if (distance < Double.POSITIVE_INFINITY) {
-                        next.get(i).put(j, j);
+        // Names come from the table's own graph, so a reload part-way through cannot mix two versions
+        for (int from = 0; from < graph.getNodeCount(); from++) {
+            Map<String, Double> row = new HashMap<>();
+            for (int to = 0; to < graph.getNodeCount(); to++) {
+                row.put(graph.nameOf(to), table.distance(from, to));
+            }
+            distances.put(graph.nameOf(from), row);
+        }
+        return distances;
+    }
+
+    /**
+     * Returns the all-pairs table for the current map, or null if the map is too large to keep one or its table is
+     * not ready yet. A missing table is built in the background while callers fall back to searching.
+     */
+    public AllPairsTable getAllPairsTable() {
+        CampusGraph graph = campusMap.getGraph();
+        if (graph.getNodeCount() > ALL_PAIRS_MAX_NODES) {
+            return null;
+        }
+        AllPairsTable table = allPairsTable;
+        if (table != null && table.getGraph() == graph) {
+            return table;
+        }
+        buildAllPairsTableInBackground(graph);
+        return null;
+    }
+
+    /**
+     * Starts building the precomputed tables for the current map, so they are ready before the first queries
+     */
+    public void precompute() {
+        getAllPairsTable();
+    }
+
+    private void buildAllPairsTableInBackground(CampusGraph graph) {
+        synchronized (allPairsLock) {
+            if (allPairsBuilding == graph) {
+                return;
+            }
+            allPairsBuilding = graph;
+        }
+        startBuilder("all-pairs-precompute", () -> {
+            try {
+                computeAllPairsTable(graph);
+            } finally {
+                synchronized (allPairsLock) {
+                    if (allPairsBuilding == graph) {
+                        allPairsBuilding = null;
                     }
                 }
             }
+        });
+    }
+
+    private static void startBuilder(String name, Runnable build) {
+        Thread builder = new Thread(build, name);
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    private AllPairsTable computeAllPairsTable() {
+        return computeAllPairsTable(campusMap.getGraph());
+    }
+
+    // Builds outside the lock, so queries and edge updates never wait for it
+    private AllPairsTable computeAllPairsTable(CampusGraph graph) {
+        AllPairsTable table = allPairsTable;
+        if (table != null && table.getGraph() == graph) {
+            return table;
+        }
+        table = AllPairsTable.compute(graph, precomputeParallelism);
+        synchronized (allPairsLock) {
+            AllPairsTable current = allPairsTable;
+            if (current != null && current.getGraph() == graph) {
+                return current;
+            }
+            // Never replace a table for a newer version, such as one repaired by an edge update meanwhile
+            if (current == null || current.getGraph().getVersion() <= graph.getVersion()) {
+                allPairsTable = table;
+                allPairsBuiltAt = System.currentTimeMillis();
+            }
         }
+        log.info("Precomputed all-pairs table for {} locations using {} in {} ms",
+                graph.getNodeCount(), table.getMethod(), table.getBuildTimeMillis());
+        return table;
+    }
+
+    /**
+     * Returns when the all-pairs table was last built or repaired, in epoch milliseconds, or 0 if it never was
+     */
+    public long getAllPairsBuiltAt() {
+        return allPairsBuiltAt;
+    }
+
+    /**
+     * Returns when the contraction hierarchy was last built, in epoch milliseconds, or 0 if it never was
+     */
+    public long getContractionBuiltAt() {
+        return contractionBuiltAt;
+    }
 
-        // Floyd-Warshall algorithm
-        for (String k : campusMap.getLocations()) {
-            for (String i : campusMap.getLocations()) {
-                for (String j : campusMap.getLocations()) {
-                    double ik = distances.get(i).get(k);
-                    double kj = distances.get(k).get(j);
-                    double ij = distances.get(i).get(j);
+    /**
+     * Returns when the ALT anchors were last selected, in epoch milliseconds, or 0 if they never were
+     */
+    public long getAltBuiltAt() {
+        return altBuiltAt;
+    }
 
-                    if (ik + kj < ij) {
-                        distances.get(i).put(j, ik + kj);
-                        next.get(i).put(j, next.get(i).get(k));
+    /**
+     * Applies an edge update to the map and carries the precomputed data over to the new graph instead of
+     * rebuilding it: the all-pairs table is repaired row by row, and ALT bounds are kept while edges only get longer.
+     * All-pairs builds for the new graph wait until the repair is done; the contraction hierarchy is rebuilt in the
+     * background on its next query.
+     */
+    public CampusMap.EdgeUpdate updateEdges(Supplier<CampusMap.EdgeUpdate> change) {
+        synchronized (allPairsLock) {
+            CampusMap.EdgeUpdate update = change.get();
+            CampusGraph previous = update.getPrevious();
+            CampusGraph graph = update.getGraph();
+            if (previous == graph) {
+                return update;
+            }
+
+            AllPairsTable table = allPairsTable;
+            if (table != null && table.getGraph() == previous) {
+                table = table.repair(graph, update.getEdges(), precomputeParallelism);
+                log.info("Repaired {} of {} all-pairs rows in {} ms", table.getComputedRows(),
+                        graph.getNodeCount(), table.getBuildTimeMillis());
+                allPairsTable = table;
+                allPairsBuiltAt = System.currentTimeMillis();
+            }
+            if (update.isLengthening()) {
+                synchronized (altLock) {
+                    AltHeuristic alt = altHeuristic;
+                    if (alt != null && alt.getGraph() == previous) {
+                        altHeuristic = alt.rebind(graph);
                     }
                 }
             }
+            return update;
         }
-
-        return distances;
     }
 
     // Find multiple routes based on landmarks
     public List<List<String>> findRoutesWithLandmarks(String startLocation, String endLocation, String landmark) {
+        return findRoutesWithLandmarks(campusMap.getSnapshot(), startLocation, endLocation, landmark);
+    }
+
+    public List<List<String>> findRoutesWithLandmarks(CampusMap.Snapshot snapshot, String startLocation,
+            String endLocation, String landmark) {
         List<List<String>> routes = new ArrayList<>();
 
         // Find locations near the landmark
-        List<Location> landmarkLocations = campusMap.getLocationsByLandmark(landmark);
+        List<Location> landmarkLocations = snapshot.getLocationsByLandmark(landmark);
 
         if (landmarkLocations.isEmpty()) {
             // If no landmark found, return shortest path
-            List<String> shortestPath = findShortestPath(startLocation, endLocation);
+            List<String> shortestPath = findShortestPath(snapshot, startLocation, endLocation);
             if (!shortestPath.isEmpty()) {
                 routes.add(shortestPath);
             }
             return routes;
         }
 
-        // Find routes through each landmark location
+        // Find routes through each landmark location, sorted by total distance
+        List<String> viaLocations = new ArrayList<>();
         for (Location landmarkLocation : landmarkLocations) {
-            String landmarkName = landmarkLocation.getName();
-
-            // Path from start to landmark
-            List<String> pathToLandmark = findShortestPath(startLocation, landmarkName);
-            if (pathToLandmark.isEmpty())
-                continue;
-
-            // Path from landmark to end
-            List<String> pathFromLandmark = findShortestPath(landmarkName, endLocation);
-            if (pathFromLandmark.isEmpty())
-                continue;
-
-            // Combine paths (avoid duplicate landmark)
-            List<String> combinedPath = new ArrayList<>(pathToLandmark);
-            if (!pathFromLandmark.isEmpty() && !pathFromLandmark.get(0).equals(landmarkName)) {
-                combinedPath.addAll(pathFromLandmark);
-            } else if (pathFromLandmark.size() > 1) {
-                combinedPath.addAll(pathFromLandmark.subList(1, pathFromLandmark.size()));
-            }
-
-            routes.add(combinedPath);
+            viaLocations.add(landmarkLocation.getName());
         }
+        routes.addAll(findViaRoutes(snapshot, startLocation, endLocation, viaLocations, Integer.MAX_VALUE).values());
+        return routes;
+    }
+
+    /**
+     * Finds the shortest route through each via location, keeping the best limit of them.
+     * Returns the routes keyed by via location, shortest first, using two searches however many locations there are.
+     */
+    public Map<String, List<String>> findViaRoutes(String startLocation, String endLocation,
+            Collection<String> viaLocations, int limit) {
+        return findViaRoutes(campusMap.getSnapshot(), startLocation, endLocation, viaLocations, limit);
+    }
 
-        // Sort routes by total distance
-        routes.sort(Comparator.comparingDouble(this::calculateTotalDistance));
+    public Map<String, List<String>> findViaRoutes(CampusMap.Snapshot snapshot, String startLocation,
+            String endLocation, Collection<String> viaLocations, int limit) {
+        Map<String, List<String>> routes = new LinkedHashMap<>();
+        if (startLocation == null || endLocation == null ||
+                snapshot.getGraph().idOf(startLocation) < 0 || snapshot.getGraph().idOf(endLocation) < 0) {
+            return routes;
+        }
 
+        CampusGraph graph = snapshot.getGraph();
+        int[] candidates = new int[viaLocations.size()];
+        int i = 0;
+        for (String viaLocation : viaLocations) {
+            candidates[i++] = graph.idOf(viaLocation);
+        }
+        for (ViaRouting.ViaPath viaPath : ViaRouting.find(graph, graph.idOf(startLocation),
+                graph.idOf(endLocation), candidates, limit)) {
+            routes.put(graph.nameOf(viaPath.getVia()), graph.toNames(viaPath.getPath()));
+        }
         return routes;
     }
 
-    // Find top 3 routes
+    // Yen's k shortest loopless paths
     public List<List<String>> findTopRoutes(String startLocation, String endLocation, int count) {
-        List<List<String>> allRoutes = new ArrayList<>();
+        return findTopRoutes(campusMap.getSnapshot(), startLocation, endLocation, count);
+    }
+
+    public List<List<String>> findTopRoutes(CampusMap.Snapshot snapshot, String startLocation, String endLocation,
+            int count) {
+        List<List<String>> routes = new ArrayList<>();
+        if (startLocation == null || endLocation == null ||
+                snapshot.getGraph().idOf(startLocation) < 0 || snapshot.getGraph().idOf(endLocation) < 0) {
+            return routes;
+        }
 
-        // Add shortest path
-        List<String> shortestPath = findShortestPath(startLocation, endLocation);
-        if (!shortestPath.isEmpty()) {
-            allRoutes.add(shortestPath);
+        CampusGraph graph = snapshot.getGraph();
+        for (int[] path : KShortestPaths.find(graph, graph.idOf(startLocation), graph.idOf(endLocation), count)) {
+            routes.add(graph.toNames(path));
         }
+        return routes;
+    }
 
-        // Add optimal path (A*)
-        List<String> optimalPath = findOptimalPath(startLocation, endLocation);
-        if (!optimalPath.isEmpty() && !optimalPath.equals(shortestPath)) {
-            allRoutes.add(optimalPath);
+    /**
+     * Many-to-many distance and travel time table. Times walk each shortest path edge by edge from the departure
+     * time, through the traffic profile and live congestion, so they agree with the estimated time of the same route.
+     */
+    public RouteMatrix findRouteMatrix(List<String> sources, List<String> targets, LocalTime departure) {
+        AllPairsTable table = getAllPairsTable();
+        CampusGraph graph = table != null ? table.getGraph() : campusMap.getGraph();
+        int[] sourceIds = new int[sources.size()];
+        for (int i = 0; i < sourceIds.length; i++) {
+            sourceIds[i] = sources.get(i) == null ? -1 : graph.idOf(sources.get(i));
+        }
+        int[] targetIds = new int[targets.size()];
+        for (int j = 0; j < targetIds.length; j++) {
+            targetIds[j] = targets.get(j) == null ? -1 : graph.idOf(targets.get(j));
         }
 
-        // Add routes through different landmarks
-        List<String> landmarks = campusMap.getAllLandmarks();
-        for (String landmark : landmarks) {
-            List<List<String>> landmarkRoutes = findRoutesWithLandmarks(startLocation, endLocation, landmark);
-            allRoutes.addAll(landmarkRoutes);
+        TrafficProfile profile = trafficService.getProfile(graph);
+        TrafficOverlay overlay = trafficService.getOverlay(graph);
+        double departureMinute = departure.toSecondOfDay() / 60.0;
+        ManyToManySearch.PathCost minutes = path -> profile.arrivalMinute(path, departureMinute, overlay)
+                - departureMinute;
+        double[][] costs = new double[sources.size()][targets.size()];
+        double[][] distances = table != null
+                ? ManyToManySearch.compute(table, sourceIds, targetIds, minutes, costs)
+                : ManyToManySearch.compute(graph, sourceIds, targetIds, getMatrixPool(), minutes, costs);
+
+        Double[][] distanceTable = new Double[sources.size()][targets.size()];
+        Long[][] timeTable = new Long[sources.size()][targets.size()];
+        for (int i = 0; i < sources.size(); i++) {
+            for (int j = 0; j < targets.size(); j++) {
+                if (distances[i][j] < Double.POSITIVE_INFINITY) {
+                    distanceTable[i][j] = distances[i][j];
+                    timeTable[i][j] = Math.round(costs[i][j]);
+                }
+            }
         }
+        return new RouteMatrix(sources, targets, distanceTable, timeTable);
+    }
 
-        // Remove duplicates and sort by distance
-        allRoutes = removeDuplicateRoutes(allRoutes);
-        allRoutes.sort(Comparator.comparingDouble(this::calculateTotalDistance));
+    private ForkJoinPool getMatrixPool() {
+        synchronized (matrixPoolLock) {
+            if (matrixPool == null) {
+                matrixPool = new ForkJoinPool(precomputeParallelism > 0
+                        ? precomputeParallelism : Runtime.getRuntime().availableProcessors());
+            }
+            return matrixPool;
+        }
+    }
 
-        return allRoutes.subList(0, Math.min(count, allRoutes.size()));
+    // Isochrone: everything reachable within a walking-time budget, leaving now
+    public Map<String, Long> findReachableLocations(String startLocation, long minutes) {
+        return findReachableLocations(startLocation, minutes, LocalTime.now());
     }
 
-    public long calculateArrivalTime(String startLocation, String endLocation) {
-        List<String> path = findShortestPath(startLocation, endLocation);
-        if (path.isEmpty()) {
-            return 0;
+    public Map<String, Long> findReachableLocations(String startLocation, long minutes, LocalTime departure) {
+        Map<String, Long> reachable = new LinkedHashMap<>();
+        CampusMap.Snapshot snapshot = campusMap.getSnapshot();
+        if (startLocation == null || snapshot.getGraph().idOf(startLocation) < 0 || minutes < 0) {
+            return reachable;
+        }
+
+        CampusGraph graph = snapshot.getGraph();
+        TrafficProfile profile = trafficService.getProfile(graph);
+        double departureMinute = departure.toSecondOfDay() / 60.0;
+        SearchWorkspace workspace = SearchWorkspace.forward(graph.getNodeCount());
+        // Arrival times never decrease along the search, so it can stop at the first node over budget
+        TrafficOverlay overlay = trafficService.getOverlay(graph);
+        int[] settled = TimeDependentDijkstra.runWhile(profile, overlay, workspace, graph.idOf(startLocation),
+                departureMinute, arrival -> Math.round(arrival - departureMinute) <= minutes);
+        for (int node : settled) {
+            reachable.put(graph.nameOf(node), Math.round(workspace.distance(node) - departureMinute));
         }
+        return reachable;
+    }
 
-        double totalDistance = calculateTotalDistance(path);
+    // Time-dependent Dijkstra: earliest arrival when leaving at the given time
+    public List<String> findEarliestArrivalPath(String startLocation, String endLocation, LocalTime departure) {
+        return findEarliestArrivalPath(campusMap.getSnapshot(), startLocation, endLocation, departure);
+    }
 
-        // Assume average speed of 5 km/h for walking
-        double averageSpeed = 5.0; // km/h
-        long baseTime = Math.round((totalDistance / averageSpeed) * 60); // Convert to minutes
+    public List<String> findEarliestArrivalPath(CampusMap.Snapshot snapshot, String startLocation, String endLocation,
+            LocalTime departure) {
+        if (startLocation == null || endLocation == null ||
+                snapshot.getGraph().idOf(startLocation) < 0 || snapshot.getGraph().idOf(endLocation) < 0) {
+            return new ArrayList<>();
+        }
 
-        // Adjust for traffic conditions
-        String trafficCondition = trafficService.assessTrafficConditions(startLocation);
-        return trafficService.adjustRouteForTraffic((int) baseTime, trafficCondition);
+        CampusGraph graph = snapshot.getGraph();
+        int source = graph.idOf(startLocation);
+        int target = graph.idOf(endLocation);
+
+        SearchWorkspace workspace = SearchWorkspace.forward(graph.getNodeCount());
+        TimeDependentDijkstra.run(trafficService.getProfile(graph), trafficService.getOverlay(graph), workspace,
+                source, target, departure.toSecondOfDay() / 60.0);
+        return graph.toNames(DijkstraSearch.path(workspace, source, target));
+    }
+
+    public long calculateArrivalTime(String startLocation, String endLocation) {
+        List<String> path = findShortestPath(startLocation, endLocation);
+        return calculateArrivalTimeForRoute(path);
     }
 
     public long calculateArrivalTimeForRoute(List<String> route) {
+        return calculateArrivalTimeForRoute(route, LocalTime.now());
+    }
+
+    /**
+     * Walks the route edge by edge from the departure time, costing each edge with the traffic at the time it is
+     * reached. Returns the travel time in minutes.
+     */
+    public long calculateArrivalTimeForRoute(List<String> route, LocalTime departure) {
+        return calculateArrivalTimeForRoute(campusMap.getGraph(), route, departure);
+    }
+
+    /**
+     * Walks the route over the given snapshot of the map, so a route found on it is timed on it too
+     */
+    public long calculateArrivalTimeForRoute(CampusGraph graph, List<String> route, LocalTime departure) {
         if (route.isEmpty()) {
             return 0;
         }
 
-        double totalDistance = calculateTotalDistance(route);
+        int[] path = new int[route.size()];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = graph.idOf(route.get(i));
+            if (path[i] < 0) {
+                return estimateTravelTime(route.get(0), calculateTotalDistance(graph, route));
+            }
+        }
+        double departureMinute = departure.toSecondOfDay() / 60.0;
+        double arrival = trafficService.getProfile(graph).arrivalMinute(path, departureMinute,
+                trafficService.getOverlay(graph));
+        return Math.round(arrival - departureMinute);
+    }
 
+    /**
+     * Estimates the walking time in minutes for a distance in km, adjusted for traffic at the start location
+     */
+    public long estimateTravelTime(String startLocation, double totalDistance) {
         // Assume average speed of 5 km/h for walking
         double averageSpeed = 5.0; // km/h
         long baseTime = Math.round((totalDistance / averageSpeed) * 60); // Convert to minutes
 
         // Adjust for traffic conditions
-        String trafficCondition = trafficService.assessTrafficConditions(route.get(0));
+        String trafficCondition = trafficService.assessTrafficConditions(startLocation);
         return trafficService.adjustRouteForTraffic((int) baseTime, trafficCondition);
     }
 
     // Helper methods
-    private double heuristic(String from, String to) {
-        Location fromLoc = campusMap.getLocation(from);
-        Location toLoc = campusMap.getLocation(to);
-
-        if (fromLoc != null && toLoc != null) {
-            // Calculate Euclidean distance as heuristic
-            double latDiff = fromLoc.getLatitude() - toLoc.getLatitude();
-            double lonDiff = fromLoc.getLongitude() - toLoc.getLongitude();
-            return Math.sqrt(latDiff * latDiff + lonDiff * lonDiff);
-        }
-
-        return 0.0;
-    }
-
-    private List<String> reconstructPath(Map<String, String> previous, String start, String end) {
-        List<String> path = new ArrayList<>();
-        String current = end;
-
-        while (current != null) {
-            path.add(0, current);
-            current = previous.get(current);
-        }
-
-        return path.isEmpty() || !path.get(0).equals(start) ? new ArrayList<>() : path;
-    }
-
-    private double calculateTotalDistance(List<String> path) {
+    private static double calculateTotalDistance(CampusGraph graph, List<String> path) {
         if (path.size() < 2)
             return 0.0;
 
         double totalDistance = 0.0;
         for (int i = 0; i < path.size() - 1; i++) {
-            totalDistance += campusMap.getDistance(path.get(i), path.get(i + 1));
+            int from = graph.idOf(path.get(i));
+            int to = graph.idOf(path.get(i + 1));
+            totalDistance += from < 0 || to < 0 ? Double.POSITIVE_INFINITY : graph.distance(from, to);
         }
         return totalDistance;
     }
-
-    private List<List<String>> removeDuplicateRoutes(List<List<String>> routes) {
-        Set<String> seen = new HashSet<>();
-        List<List<String>> uniqueRoutes = new ArrayList<>();
-
-        for (List<String> route : routes) {
-            String routeString = String.join("->", route);
-            if (!seen.contains(routeString)) {
-                seen.add(routeString);
-                uniqueRoutes.add(route);
-            }
-        }
-
-        return uniqueRoutes;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,162 @@
+package com.ugnavigate.algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-thread scratch arrays for graph searches.
+ * Every entry carries the generation that wrote it, so starting a new search
+ * only bumps the generation instead of refilling O(V) arrays.
+ * <p>
+ * Settled nodes, edge relaxations and heap pushes are counted in plain fields of the workspace and added to the
+ * shared totals when the thread starts its next search or calls {@link #publishCounts()}, so the search loops never
+ * touch shared memory.
+ */
+public final class SearchWorkspace {
+    private static final ThreadLocal<SearchWorkspace[]> LOCAL = ThreadLocal
+            .withInitial(() -> new SearchWorkspace[] { new SearchWorkspace(), new SearchWorkspace() });
+    private static final LongAdder SETTLED = new LongAdder();
+    private static final LongAdder RELAXED = new LongAdder();
+    private static final LongAdder PUSHED = new LongAdder();
+
+    private double[] distances = new double[0];
+    private int[] parents = new int[0];
+    private int[] reached = new int[0];
+    private int[] settled = new int[0];
+    private final IndexedHeap heap = new IndexedHeap(1);
+    private int generation;
+    private long settledCount;
+    private long relaxedCount;
+    private long pushedCount;
+
+    /**
+     * Returns this thread's workspace for forward searches, reset for a graph of n nodes
+     */
+    public static SearchWorkspace forward(int n) {
+        return LOCAL.get()[0].reset(n);
+    }
+
+    /**
+     * Returns this thread's second workspace, used by searches that run from the target at the same time
+     */
+    public static SearchWorkspace backward(int n) {
+        return LOCAL.get()[1].reset(n);
+    }
+
+    /**
+     * Adds the counts of this thread's finished searches to the shared totals
+     */
+    public static void publishCounts() {
+        SearchWorkspace[] workspaces = LOCAL.get();
+        workspaces[0].publish();
+        workspaces[1].publish();
+    }
+
+    /**
+     * Nodes settled by every search so far, including those run to precompute tables
+     */
+    public static long getSettledCount() {
+        return SETTLED.sum();
+    }
+
+    /**
+     * Edges relaxed by every search so far, whether or not they improved a distance
+     */
+    public static long getRelaxedCount() {
+        return RELAXED.sum();
+    }
+
+    /**
+     * Nodes pushed onto a search heap, or moved up it by a shorter distance, by every search so far
+     */
+    public static long getPushedCount() {
+        return PUSHED.sum();
+    }
+
+    private void publish() {
+        if (settledCount != 0 || relaxedCount != 0 || pushedCount != 0) {
+            SETTLED.add(settledCount);
+            RELAXED.add(relaxedCount);
+            PUSHED.add(pushedCount);
+            settledCount = 0;
+            relaxedCount = 0;
+            pushedCount = 0;
+        }
+    }
+
+    private SearchWorkspace reset(int n) {
+        publish();
+        if (reached.length < n) {
+            distances = new double[n];
+            parents = new int[n];
+            reached = new int[n];
+            settled = new int[n];
+            heap.ensureCapacity(n);
+            generation = 0;
+        }
+        heap.clear();
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            Arrays.fill(settled, 0);
+            generation = 1;
+        }
+        return this;
+    }
+
+    public IndexedHeap heap() {
+        return heap;
+    }
+
+    public double distance(int node) {
+        return reached[node] == generation ? distances[node] : Double.POSITIVE_INFINITY;
+    }
+
+    public int parent(int node) {
+        return reached[node] == generation ? parents[node] : -1;
+    }
+
+    public boolean isReached(int node) {
+        return reached[node] == generation;
+    }
+
+    public boolean isSettled(int node) {
+        return settled[node] == generation;
+    }
+
+    public void settle(int node) {
+        settled[node] = generation;
+        settledCount++;
+    }
+
+    /**
+     * Seeds the search at a node with the given distance and heap key
+     */
+    public void start(int node, double distance, double key) {
+        distances[node] = distance;
+        parents[node] = -1;
+        reached[node] = generation;
+        heap.insertOrDecrease(node, key);
+        pushedCount++;
+    }
+
+    /**
+     * Records a tentative distance if it improves on the current one.
+     * The heap key is passed separately so that A* can add its heuristic.
+     * An infinite distance, as across a closed connection, never reaches a node.
+     */
+    public boolean relax(int node, double distance, int parent, double key) {
+        relaxedCount++;
+        if (!(distance < Double.POSITIVE_INFINITY)) {
+            return false;
+        }
+        if (reached[node] == generation && distances[node] <= distance) {
+            return false;
+        }
+        distances[node] = distance;
+        parents[node] = parent;
+        reached[node] = generation;
+        heap.insertOrDecrease(node, key);
+        pushedCount++;
+        return true;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ugnavigate.algorithms;
+
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.TrafficOverlay;
+import com.ugnavigate.models.TrafficProfile;
+
+import java.util.Arrays;
+import java.util.function.DoublePredicate;
+
+/**
+ * Earliest-arrival Dijkstra over a {@link TrafficProfile} with a {@link TrafficOverlay} of live congestion on top.
+ * Labels are arrival minutes rather than distances, and each edge is costed from the time the search reaches it.
+ */
+public final class TimeDependentDijkstra {
+
+    private TimeDependentDijkstra() {
+    }
+
+    /**
+     * Runs from source at the departure minute until target is settled, or over the whole graph when target is -1.
+     * Workspace distances hold arrival minutes; parents give the earliest-arrival path.
+     */
+    public static void run(TrafficProfile profile, TrafficOverlay overlay, SearchWorkspace workspace, int source,
+            int target, double departureMinute) {
+        CampusGraph graph = profile.getGraph();
+        IndexedHeap heap = workspace.heap();
+        workspace.start(source, departureMinute, departureMinute);
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            workspace.settle(current);
+            if (current == target) {
+                return;
+            }
+
+            double time = workspace.distance(current);
+            for (int e = graph.edgeStart(current), end = graph.edgeEnd(current); e < end; e++) {
+                int neighbor = graph.target(e);
+                if (!workspace.isSettled(neighbor)) {
+                    double arrival = time + profile.travelMinutes(e, time, overlay.multiplier(e));
+                    workspace.relax(neighbor, arrival, current, arrival);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs from source at the departure minute, settling nodes for as long as accept holds for their arrival minute.
+     * Returns the accepted nodes in the order they were settled.
+     */
+    public static int[] runWhile(TrafficProfile profile, TrafficOverlay overlay, SearchWorkspace workspace, int source,
+            double departureMinute, DoublePredicate accept) {
+        CampusGraph graph = profile.getGraph();
+        IndexedHeap heap = workspace.heap();
+        workspace.start(source, departureMinute, departureMinute);
+        int[] settled = new int[16];
+        int count = 0;
+
+        while (!heap.isEmpty()) {
+            int current = heap.peek();
+            double time = workspace.distance(current);
+            if (!accept.test(time)) {
+                break;
+            }
+            heap.poll();
+            workspace.settle(current);
+            if (count == settled.length) {
+                settled = Arrays.copyOf(settled, count * 2);
+            }
+            settled[count++] = current;
+
+            for (int e = graph.edgeStart(current), end = graph.edgeEnd(current); e < end; e++) {
+                int neighbor = graph.target(e);
+                if (!workspace.isSettled(neighbor)) {
+                    double arrival = time + profile.travelMinutes(e, time, overlay.multiplier(e));
+                    workspace.relax(neighbor, arrival, current, arrival);
+                }
+            }
+        }
+        return Arrays.copyOf(settled, count);
+    }
+}
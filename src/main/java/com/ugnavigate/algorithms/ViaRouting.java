@@ -0,0 +1,96 @@
+package com.ugnavigate.algorithms;
+
+import com.ugnavigate.models.CampusGraph;
+
+import java.util.*;
+
+/**
+ * Ranks candidate via-nodes for a start and end pair using two one-to-all searches,
+ * one from the start and one from the end, however many candidates there are.
+ * Connections are two-way, so the search from the end also gives every distance towards it.
+ */
+public final class ViaRouting {
+
+    private ViaRouting() {
+    }
+
+    /**
+     * Returns the best routes from source to target through one of the candidates, at most limit of them,
+     * ordered by d(source, via) + d(via, target). Unreachable candidates are left out.
+     */
+    public static List<ViaPath> find(CampusGraph graph, int source, int target, int[] candidates, int limit) {
+        List<ViaPath> result = new ArrayList<>();
+        if (limit <= 0 || candidates.length == 0) {
+            return result;
+        }
+
+        int n = graph.getNodeCount();
+        SearchWorkspace fromSource = SearchWorkspace.forward(n);
+        SearchWorkspace toTarget = SearchWorkspace.backward(n);
+        DijkstraSearch.run(graph, fromSource, source, -1);
+        DijkstraSearch.run(graph, toTarget, target, -1);
+
+        // Keep the best limit candidates in a max-heap on their via distance
+        PriorityQueue<ViaPath> best = new PriorityQueue<>(
+                Comparator.comparingDouble(ViaPath::getDistance).reversed());
+        for (int via : candidates) {
+            if (via < 0 || !fromSource.isReached(via) || !toTarget.isReached(via)) {
+                continue;
+            }
+            double distance = fromSource.distance(via) + toTarget.distance(via);
+            if (best.size() < limit) {
+                best.add(new ViaPath(via, distance));
+            } else if (distance < best.peek().getDistance()) {
+                best.poll();
+                best.add(new ViaPath(via, distance));
+            }
+        }
+
+        result.addAll(best);
+        result.sort(Comparator.comparingDouble(ViaPath::getDistance));
+        for (ViaPath viaPath : result) {
+            viaPath.path = join(DijkstraSearch.path(fromSource, source, viaPath.via), toTarget, viaPath.via);
+        }
+        return result;
+    }
+
+    // The search from the target stores, for each node, the next node on its way to the target
+    private static int[] join(int[] head, SearchWorkspace toTarget, int via) {
+        int tail = 0;
+        for (int node = toTarget.parent(via); node != -1; node = toTarget.parent(node)) {
+            tail++;
+        }
+        int[] path = Arrays.copyOf(head, head.length + tail);
+        int i = head.length;
+        for (int node = toTarget.parent(via); node != -1; node = toTarget.parent(node)) {
+            path[i++] = node;
+        }
+        return path;
+    }
+
+    /**
+     * A route through one via-node, as node ids from source to target
+     */
+    public static final class ViaPath {
+        private final int via;
+        private final double distance;
+        private int[] path;
+
+        ViaPath(int via, double distance) {
+            this.via = via;
+            this.distance = distance;
+        }
+
+        public int getVia() {
+            return via;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+
+        public int[] getPath() {
+            return path;
+        }
+    }
+}
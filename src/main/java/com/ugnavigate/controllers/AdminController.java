@@ -0,0 +1,119 @@
+package com.ugnavigate.controllers;
+
+import com.ugnavigate.services.CampusDataService;
+import com.ugnavigate.services.RoutingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Endpoints that change the map every client routes on. They only exist when ugnavigate.admin.enabled is true,
+ * every request must carry the ugnavigate.admin.token secret in the X-Admin-Token header, and unlike the routing
+ * endpoints they are not opened to other origins.
+ */
+@RestController
+@RequestMapping("/api/routing")
+@ConditionalOnProperty(name = "ugnavigate.admin.enabled", havingValue = "true")
+public class AdminController {
+    public static final String TOKEN_HEADER = "X-Admin-Token";
+
+    @Autowired
+    private RoutingService routingService;
+
+    @Autowired
+    private CampusDataService campusDataService;
+
+    private byte[] token;
+
+    @Value("${ugnavigate.admin.token:}")
+    public void setToken(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            throw new IllegalStateException("ugnavigate.admin.token must be set when ugnavigate.admin.enabled is true");
+        }
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reloadCampusData(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        if (!isAuthorized(token)) {
+            return forbidden();
+        }
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("version", campusDataService.reload());
+            routingService.precompute();
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            // The old map stays in service when the new one cannot be read
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/connections/close")
+    public ResponseEntity<Map<String, Object>> closeConnection(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token,
+            @RequestBody Map<String, String> request) {
+        return updateConnection(token,
+                () -> routingService.closeConnection(request.get("from"), request.get("to")));
+    }
+
+    @PostMapping("/connections/reopen")
+    public ResponseEntity<Map<String, Object>> reopenConnection(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token,
+            @RequestBody Map<String, String> request) {
+        return updateConnection(token,
+                () -> routingService.reopenConnection(request.get("from"), request.get("to")));
+    }
+
+    @PostMapping("/connections/distance")
+    public ResponseEntity<Map<String, Object>> setConnectionDistance(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token,
+            @RequestBody Map<String, Object> request) {
+        if (!isAuthorized(token)) {
+            return forbidden();
+        }
+        Object distance = request.get("distance");
+        if (!(distance instanceof Number)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return updateConnection(token, () -> routingService.setConnectionDistance(String.valueOf(request.get("from")),
+                String.valueOf(request.get("to")), ((Number) distance).doubleValue()));
+    }
+
+    private ResponseEntity<Map<String, Object>> updateConnection(String token, LongSupplier update) {
+        if (!isAuthorized(token)) {
+            return forbidden();
+        }
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("version", update.getAsLong());
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    // Compares in constant time, so response times do not give the secret away a byte at a time
+    private boolean isAuthorized(String given) {
+        return given != null && MessageDigest.isEqual(token, given.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ResponseEntity<Map<String, Object>> forbidden() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", "Missing or wrong " + TOKEN_HEADER + " header");
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+    }
+}
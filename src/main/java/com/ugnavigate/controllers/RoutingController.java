@@ -1,21 +1,40 @@
 package com.ugnavigate.controllers;
 
 import com.ugnavigate.models.Route;
+import com.ugnavigate.models.RouteMatrix;
+import com.ugnavigate.models.Suggestion;
+import com.ugnavigate.services.BatchExecutor;
 import com.ugnavigate.services.RoutingService;
 import com.ugnavigate.services.CampusDataService;
 import com.ugnavigate.services.TrafficService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 @RestController
 @RequestMapping("/api/routing")
 @CrossOrigin(origins = "*")
 public class RoutingController {
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MAX_NEAREST = 50;
+    // Sources times targets; each cell holds a boxed distance and time in the response
+    private static final long MAX_MATRIX_CELLS = 250_000;
+    private static final int MAX_BATCH_SIZE = 10_000;
 
     @Autowired
     private RoutingService routingService;
@@ -26,6 +45,12 @@ public class RoutingController {
     @Autowired
     private TrafficService trafficService;
 
+    @Autowired
+    private BatchExecutor batchExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping("/locations")
     public ResponseEntity<List<String>> getAllLocations() {
         List<String> locations = routingService.getAllLocations();
@@ -44,11 +69,31 @@ public class RoutingController {
         return ResponseEntity.ok(categories);
     }
 
+    /**
+     * Autocompletes a location from the start of any word of its name, landmarks or description
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Suggestion>> suggestLocations(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        List<Suggestion> suggestions =
+                routingService.suggestLocations(q, Math.min(Math.max(limit, 0), MAX_SUGGESTIONS));
+        return ResponseEntity.ok(suggestions);
+    }
+
     @GetMapping("/shortest")
     public ResponseEntity<Route> getShortestRoute(
-            @RequestParam String start,
-            @RequestParam String end) {
-        Route route = routingService.findShortestRoute(start, end);
+            @RequestParam(required = false) String start,
+            @RequestParam(required = false) String end,
+            @RequestParam(required = false) String startPoint,
+            @RequestParam(required = false) String endPoint) {
+        String from = resolveLocation(start, startPoint);
+        String to = resolveLocation(end, endPoint);
+        if (from == null || to == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Route route = routingService.findShortestRoute(from, to);
         if (route != null) {
             return ResponseEntity.ok(route);
         } else {
@@ -58,9 +103,45 @@ public class RoutingController {
 
     @GetMapping("/optimal")
     public ResponseEntity<Route> getOptimalRoute(
-            @RequestParam String start,
-            @RequestParam String end) {
-        Route route = routingService.findOptimalRoute(start, end);
+            @RequestParam(required = false) String start,
+            @RequestParam(required = false) String end,
+            @RequestParam(required = false) String startPoint,
+            @RequestParam(required = false) String endPoint) {
+        String from = resolveLocation(start, startPoint);
+        String to = resolveLocation(end, endPoint);
+        if (from == null || to == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Route route = routingService.findOptimalRoute(from, to);
+        if (route != null) {
+            return ResponseEntity.ok(route);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/departure")
+    public ResponseEntity<Route> getDepartureRoute(
+            @RequestParam(required = false) String start,
+            @RequestParam(required = false) String end,
+            @RequestParam(required = false) String startPoint,
+            @RequestParam(required = false) String endPoint,
+            @RequestParam(required = false) String time) {
+        String from = resolveLocation(start, startPoint);
+        String to = resolveLocation(end, endPoint);
+        if (from == null || to == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        LocalTime departure;
+        try {
+            departure = time == null ? LocalTime.now() : LocalTime.parse(time);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Route route = routingService.findDepartureRoute(from, to, departure);
         if (route != null) {
             return ResponseEntity.ok(route);
         } else {
@@ -79,10 +160,18 @@ public class RoutingController {
 
     @GetMapping("/top")
     public ResponseEntity<List<Route>> getTopRoutes(
-            @RequestParam String start,
-            @RequestParam String end,
+            @RequestParam(required = false) String start,
+            @RequestParam(required = false) String end,
+            @RequestParam(required = false) String startPoint,
+            @RequestParam(required = false) String endPoint,
             @RequestParam(defaultValue = "3") int count) {
-        List<Route> routes = routingService.findTopRoutes(start, end, count);
+        String from = resolveLocation(start, startPoint);
+        String to = resolveLocation(end, endPoint);
+        if (from == null || to == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Route> routes = routingService.findTopRoutes(from, to, count);
         return ResponseEntity.ok(routes);
     }
 
@@ -104,6 +193,47 @@ public class RoutingController {
         return ResponseEntity.ok(routes);
     }
 
+    @GetMapping("/reachable")
+    public ResponseEntity<Map<String, Object>> getReachableLocations(
+            @RequestParam String start,
+            @RequestParam long minutes) {
+        if (minutes < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // The start itself is always reachable, so nothing at all means it is not on the map
+        Map<String, Long> locations = routingService.findReachableLocations(start, minutes);
+        if (locations == null || locations.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("start", start);
+        response.put("minutes", minutes);
+        response.put("locations", locations);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Lists the locations closest to a GPS position, nearest first, with straight-line distances in kilometres
+     */
+    @GetMapping("/nearest")
+    public ResponseEntity<Map<String, Object>> getNearestLocations(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "5") int k) {
+        if (!isPosition(lat, lng)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("lat", lat);
+        response.put("lng", lng);
+        response.put("locations", routingService.findNearestLocations(lat, lng, Math.min(Math.max(k, 0),
+                MAX_NEAREST)));
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/traffic")
     public ResponseEntity<Map<String, String>> getTrafficConditions(
             @RequestParam String location) {
@@ -114,24 +244,31 @@ public class RoutingController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/traffic")
+    public ResponseEntity<Map<String, Object>> updateTrafficConditions(
+            @RequestBody Map<String, Map<String, Float>> multipliers) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("epoch", routingService.updateLiveTraffic(multipliers));
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/route")
     public ResponseEntity<Route> createRoute(
             @RequestBody Map<String, String> request) {
-        String start = request.get("start");
-        String end = request.get("end");
+        String start = resolveLocation(request.get("start"), request.get("startPoint"));
+        String end = resolveLocation(request.get("end"), request.get("endPoint"));
         String algorithm = request.getOrDefault("algorithm", "shortest");
-
-        Route route = null;
-        switch (algorithm.toLowerCase()) {
-            case "optimal":
-                route = routingService.findOptimalRoute(start, end);
-                break;
-            case "shortest":
-            default:
-                route = routingService.findShortestRoute(start, end);
-                break;
+        if (start == null || end == null) {
+            return ResponseEntity.badRequest().build();
         }
 
+        Route route = routingService.findRoute(start, end, algorithm);
+
         if (route != null) {
             return ResponseEntity.ok(route);
         } else {
@@ -139,6 +276,111 @@ public class RoutingController {
         }
     }
 
+    /**
+     * Solves many route requests concurrently and streams one JSON line per route as soon as it is ready.
+     * Each line carries the index of its request, since lines arrive in completion order.
+     * Only twice as many requests as there are batch threads are in flight at once, so a slow client holds back
+     * the solving rather than letting finished routes pile up in memory.
+     */
+    @PostMapping(value = "/batch", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> getBatchRoutes(
+            @RequestBody List<Map<String, String>> requests) {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            CompletionService<Map<String, Object>> completionService = batchExecutor.newCompletionService();
+            Set<Future<Map<String, Object>>> inFlight = new HashSet<>();
+            int window = 2 * batchExecutor.getThreads();
+            int submitted = 0;
+            try {
+                for (int written = 0; written < requests.size(); written++) {
+                    while (submitted < requests.size() && inFlight.size() < window) {
+                        int index = submitted++;
+                        Map<String, String> request = requests.get(index);
+                        inFlight.add(completionService.submit(() -> solveBatchRequest(index, request)));
+                    }
+
+                    Future<Map<String, Object>> done = completionService.take();
+                    inFlight.remove(done);
+                    Map<String, Object> line;
+                    try {
+                        line = done.get();
+                    } catch (ExecutionException e) {
+                        // solveBatchRequest reports its own failures, so this only covers rejected work
+                        line = new LinkedHashMap<>();
+                        line.put("error", String.valueOf(e.getCause()));
+                    }
+                    outputStream.write(objectMapper.writeValueAsBytes(line));
+                    outputStream.write('\n');
+                    outputStream.flush();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // Stop outstanding work if the client went away or the stream was interrupted
+                for (Future<Map<String, Object>> future : inFlight) {
+                    future.cancel(true);
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    private Map<String, Object> solveBatchRequest(int index, Map<String, String> request) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("index", index);
+        try {
+            String algorithm = request.getOrDefault("algorithm", "shortest");
+            Route route = routingService.findRoute(resolveLocation(request.get("start"), request.get("startPoint")),
+                    resolveLocation(request.get("end"), request.get("endPoint")), algorithm);
+            if (route != null) {
+                line.put("route", route);
+            } else {
+                line.put("error", "No route found");
+            }
+        } catch (RuntimeException e) {
+            line.put("error", e.getMessage());
+        }
+        return line;
+    }
+
+    @PostMapping("/matrix")
+    public ResponseEntity<RouteMatrix> getRouteMatrix(
+            @RequestBody Map<String, List<String>> request) {
+        List<String> sources = request.get("sources");
+        List<String> targets = request.get("targets");
+        if (sources == null || targets == null || (long) sources.size() * targets.size() > MAX_MATRIX_CELLS) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        RouteMatrix matrix = routingService.computeRouteMatrix(sources, targets);
+        return ResponseEntity.ok(matrix);
+    }
+
+    // The named location, or the one a "lat,lng" point snaps to; null if neither is given or the point is invalid
+    private String resolveLocation(String name, String point) {
+        if (point == null) {
+            return name;
+        }
+        String[] parts = point.split(",");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            double lat = Double.parseDouble(parts[0].trim());
+            double lng = Double.parseDouble(parts[1].trim());
+            return isPosition(lat, lng) ? routingService.snapToLocation(lat, lng) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean isPosition(double lat, double lng) {
+        return Math.abs(lat) <= 90.0 && Math.abs(lng) <= 180.0;
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
         Map<String, Object> health = new HashMap<>();
@@ -148,6 +390,7 @@ public class RoutingController {
         health.put("locations", routingService.getAllLocations().size());
         health.put("landmarks", routingService.getAllLandmarks().size());
         health.put("categories", routingService.getAllCategories().size());
+        health.put("mapVersion", campusDataService.getCampusMap().getVersion());
         return ResponseEntity.ok(health);
     }
 }
\ No newline at end of file
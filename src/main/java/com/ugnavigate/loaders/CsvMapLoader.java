@@ -0,0 +1,119 @@
+package com.ugnavigate.loaders;
+
+import com.ugnavigate.models.CampusGraph;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a CSV map line by line. Each record starts with its type:
+ * <pre>
+ * location,name,latitude,longitude,category,description,landmark;landmark;...
+ * connection,from,to,distance
+ * </pre>
+ * Fields may be double-quoted (with "" for a quote inside) but not span lines. Blank lines and lines starting
+ * with # are skipped. Connections are two-way and their distances are in kilometres.
+ */
+public class CsvMapLoader implements MapLoader {
+
+    @Override
+    public void load(InputStream in, CampusGraph.Builder builder) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        List<String> fields = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                split(line, fields);
+                switch (fields.get(0).trim().toLowerCase()) {
+                    case "location":
+                        readLocation(fields, builder);
+                        break;
+                    case "connection":
+                        readConnection(fields, builder);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown record type '" + fields.get(0) + "'");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Bad map record on line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static void readLocation(List<String> fields, CampusGraph.Builder builder) {
+        if (fields.size() < 4 || fields.get(1).isEmpty()) {
+            throw new IllegalArgumentException("a location needs at least a name, latitude and longitude");
+        }
+        int node = builder.addNode(fields.get(1), Double.parseDouble(fields.get(2).trim()),
+                Double.parseDouble(fields.get(3).trim()), optional(fields, 4), optional(fields, 5));
+        String landmarks = optional(fields, 6);
+        if (landmarks != null) {
+            for (String landmark : landmarks.split(";")) {
+                if (!landmark.trim().isEmpty()) {
+                    builder.addLandmark(node, landmark.trim());
+                }
+            }
+        }
+    }
+
+    private static void readConnection(List<String> fields, CampusGraph.Builder builder) {
+        if (fields.size() < 4) {
+            throw new IllegalArgumentException("a connection needs from, to and distance");
+        }
+        double distance = Double.parseDouble(fields.get(3).trim());
+        if (!(distance >= 0) || Double.isInfinite(distance)) {
+            throw new IllegalArgumentException("distance must be finite and not negative: " + distance);
+        }
+        if (!fields.get(1).equals(fields.get(2))) {
+            int u = builder.node(fields.get(1));
+            int v = builder.node(fields.get(2));
+            builder.addEdge(u, v, distance);
+            builder.addEdge(v, u, distance);
+        }
+    }
+
+    private static String optional(List<String> fields, int index) {
+        return index < fields.size() && !fields.get(index).isEmpty() ? fields.get(index) : null;
+    }
+
+    // Splits one line into the reused field list, honouring double quotes
+    private static void split(String line, List<String> fields) {
+        fields.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        fields.add(field.toString());
+    }
+}
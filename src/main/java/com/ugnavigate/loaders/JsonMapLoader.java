@@ -0,0 +1,149 @@
+package com.ugnavigate.loaders;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.ugnavigate.models.CampusGraph;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a JSON map with Gson's token reader:
+ * <pre>
+ * {"locations":   [{"name": ..., "latitude": ..., "longitude": ..., "category": ..., "description": ...,
+ *                   "landmarks": [...]}],
+ *  "connections": [{"from": ..., "to": ..., "distance": ...}]}
+ * </pre>
+ * Connections are two-way and their distances are in kilometres. The sections may come in either order;
+ * a connection to a location not listed yet creates it, and the later listing fills in its details.
+ */
+public class JsonMapLoader implements MapLoader {
+
+    @Override
+    public void load(InputStream in, CampusGraph.Builder builder) throws IOException {
+        JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        try {
+            readMap(reader, builder);
+        } catch (IllegalStateException | JsonSyntaxException | NumberFormatException e) {
+            // Gson reports unexpected tokens this way; say where in the file they were
+            throw new IllegalArgumentException("Bad map structure at " + reader.getPath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void readMap(JsonReader reader, CampusGraph.Builder builder) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "locations":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        readLocation(reader, builder);
+                    }
+                    reader.endArray();
+                    break;
+                case "connections":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        readConnection(reader, builder);
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static void readLocation(JsonReader reader, CampusGraph.Builder builder) throws IOException {
+        String path = reader.getPath();
+        String name = null;
+        String category = null;
+        String description = null;
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        List<String> landmarks = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name":
+                    name = reader.nextString();
+                    break;
+                case "latitude":
+                    latitude = reader.nextDouble();
+                    break;
+                case "longitude":
+                    longitude = reader.nextDouble();
+                    break;
+                case "category":
+                    category = reader.nextString();
+                    break;
+                case "description":
+                    description = reader.nextString();
+                    break;
+                case "landmarks":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        landmarks.add(reader.nextString());
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Location without a name at " + path);
+        }
+        if (Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            throw new IllegalArgumentException("Location " + name + " needs a latitude and longitude at " + path);
+        }
+        int node = builder.addNode(name, latitude, longitude, category, description);
+        for (String landmark : landmarks) {
+            builder.addLandmark(node, landmark);
+        }
+    }
+
+    private static void readConnection(JsonReader reader, CampusGraph.Builder builder) throws IOException {
+        String path = reader.getPath();
+        String from = null;
+        String to = null;
+        double distance = Double.NaN;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "from":
+                    from = reader.nextString();
+                    break;
+                case "to":
+                    to = reader.nextString();
+                    break;
+                case "distance":
+                    distance = reader.nextDouble();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (from == null || to == null || !(distance >= 0) || Double.isInfinite(distance)) {
+            throw new IllegalArgumentException("Connection needs from, to and a distance at " + path);
+        }
+        if (!from.equals(to)) {
+            int u = builder.node(from);
+            int v = builder.node(to);
+            builder.addEdge(u, v, distance);
+            builder.addEdge(v, u, distance);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ugnavigate.loaders;
+
+import com.ugnavigate.models.CampusGraph;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams a campus map file straight into a {@link CampusGraph.Builder}, one record at a time,
+ * so the whole document never has to be held in memory.
+ */
+public interface MapLoader {
+
+    /**
+     * Reads every location and connection in the stream into the builder.
+     * Malformed records are reported as an IllegalArgumentException naming where they were found.
+     */
+    void load(InputStream in, CampusGraph.Builder builder) throws IOException;
+
+    /**
+     * Picks a loader from a file name: .json, .csv, or .osm/.xml for an OpenStreetMap export.
+     * A trailing .gz is ignored here and handled by {@link #read(String, InputStream)}.
+     */
+    static MapLoader forFile(String fileName) {
+        String name = fileName.toLowerCase();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        if (name.endsWith(".json")) {
+            return new JsonMapLoader();
+        } else if (name.endsWith(".csv")) {
+            return new CsvMapLoader();
+        } else if (name.endsWith(".osm") || name.endsWith(".xml")) {
+            return new OsmMapLoader();
+        }
+        throw new IllegalArgumentException("Unsupported map file format: " + fileName);
+    }
+
+    /**
+     * Loads a map file, decompressing it on the fly if its name ends in .gz, and builds the graph
+     */
+    static CampusGraph read(String fileName, InputStream in) throws IOException {
+        MapLoader loader = forFile(fileName);
+        CampusGraph.Builder builder = CampusGraph.builder();
+        InputStream source = fileName.toLowerCase().endsWith(".gz") ? new GZIPInputStream(in, 1 << 16) : in;
+        loader.load(source, builder);
+        return builder.build();
+    }
+}
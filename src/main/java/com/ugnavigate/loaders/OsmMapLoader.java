@@ -0,0 +1,323 @@
+package com.ugnavigate.loaders;
+
+import com.ugnavigate.algorithms.HaversineHeuristic;
+import com.ugnavigate.models.CampusGraph;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads an OpenStreetMap XML export (as written by the editors and the export API) with a StAX cursor.
+ * Every walkable way becomes a chain of two-way connections whose distances are the great-circle lengths
+ * of its segments; only nodes on such ways are kept. Named nodes keep their name, with a category taken from
+ * their tags and their short or alternative names as landmarks. Other nodes are called "node/{id}".
+ * Node coordinates are held in primitive arrays keyed by OSM id until the ways that use them are read.
+ */
+public class OsmMapLoader implements MapLoader {
+    private static final Set<String> NOT_WALKABLE = new HashSet<>(Arrays.asList(
+            "motorway", "motorway_link", "trunk", "trunk_link", "construction", "proposed", "raceway",
+            "bus_guideway", "abandoned", "platform"));
+
+    @Override
+    public void load(InputStream in, CampusGraph.Builder builder) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try {
+            XMLStreamReader xml = factory.createXMLStreamReader(new BufferedInputStream(in, 1 << 16));
+            try {
+                read(xml, builder);
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Malformed OSM XML: " + e.getMessage(), e);
+        }
+    }
+
+    private void read(XMLStreamReader xml, CampusGraph.Builder builder) throws XMLStreamException {
+        NodeTable nodes = new NodeTable();
+        Map<Long, NodeTags> tagged = new HashMap<>();
+        long[] refs = new long[64];
+        int refCount = 0;
+        boolean inNode = false;
+        boolean inWay = false;
+        long nodeId = 0;
+        NodeTags nodeTags = null;
+        String highway = null;
+        String foot = null;
+
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (xml.getLocalName()) {
+                    case "node":
+                        inNode = true;
+                        nodeId = longAttribute(xml, "id");
+                        nodes.put(nodeId, doubleAttribute(xml, "lat"), doubleAttribute(xml, "lon"));
+                        nodeTags = null;
+                        break;
+                    case "way":
+                        inWay = true;
+                        refCount = 0;
+                        highway = null;
+                        foot = null;
+                        break;
+                    case "nd":
+                        if (inWay) {
+                            if (refCount == refs.length) {
+                                refs = Arrays.copyOf(refs, refCount * 2);
+                            }
+                            refs[refCount++] = longAttribute(xml, "ref");
+                        }
+                        break;
+                    case "tag":
+                        String key = xml.getAttributeValue(null, "k");
+                        String value = xml.getAttributeValue(null, "v");
+                        if (inNode) {
+                            nodeTags = NodeTags.accept(nodeTags, key, value);
+                        } else if (inWay && "highway".equals(key)) {
+                            highway = value;
+                        } else if (inWay && "foot".equals(key)) {
+                            foot = value;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                switch (xml.getLocalName()) {
+                    case "node":
+                        if (nodeTags != null && nodeTags.name != null) {
+                            tagged.put(nodeId, nodeTags);
+                        }
+                        inNode = false;
+                        break;
+                    case "way":
+                        if (highway != null && !NOT_WALKABLE.contains(highway) && !"no".equals(foot)) {
+                            addWay(refs, refCount, nodes, tagged, builder);
+                        }
+                        inWay = false;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+
+    private static long longAttribute(XMLStreamReader xml, String name) {
+        String value = requiredAttribute(xml, name);
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw badAttribute(xml, name, value, e);
+        }
+    }
+
+    private static double doubleAttribute(XMLStreamReader xml, String name) {
+        String value = requiredAttribute(xml, name);
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw badAttribute(xml, name, value, e);
+        }
+    }
+
+    private static String requiredAttribute(XMLStreamReader xml, String name) {
+        String value = xml.getAttributeValue(null, name);
+        if (value == null) {
+            throw new IllegalArgumentException("OSM " + xml.getLocalName() + " without a " + name + " attribute at "
+                    + where(xml.getLocation()));
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException badAttribute(XMLStreamReader xml, String name, String value,
+            NumberFormatException e) {
+        return new IllegalArgumentException("OSM " + xml.getLocalName() + " has a bad " + name + " '" + value
+                + "' at " + where(xml.getLocation()), e);
+    }
+
+    private static String where(Location location) {
+        return "line " + location.getLineNumber() + ", column " + location.getColumnNumber();
+    }
+
+    private static void addWay(long[] refs, int refCount, NodeTable nodes, Map<Long, NodeTags> tagged,
+            CampusGraph.Builder builder) {
+        int previousSlot = -1;
+        for (int i = 0; i < refCount; i++) {
+            int slot = nodes.slotOf(refs[i]);
+            // Extracts clipped to a bounding box can reference nodes they do not contain
+            if (slot >= 0 && previousSlot >= 0 && slot != previousSlot) {
+                int u = nodes.builderId(previousSlot, tagged, builder);
+                int v = nodes.builderId(slot, tagged, builder);
+                double distance = HaversineHeuristic.distanceKm(nodes.latitude(previousSlot),
+                        nodes.longitude(previousSlot), nodes.latitude(slot), nodes.longitude(slot));
+                builder.addEdge(u, v, distance);
+                builder.addEdge(v, u, distance);
+            }
+            previousSlot = slot;
+        }
+    }
+
+    /**
+     * Open-addressing table from OSM node id to coordinates and, once the node is on a walkable way,
+     * its id in the builder
+     */
+    private static final class NodeTable {
+        private long[] keys = new long[1 << 12];
+        private int[] slots = new int[1 << 12];
+        private double[] latitudes = new double[1 << 11];
+        private double[] longitudes = new double[1 << 11];
+        private int[] builderIds = new int[1 << 11];
+        private long[] osmIds = new long[1 << 11];
+        private int size;
+
+        void put(long id, double latitude, double longitude) {
+            if (size * 2 >= keys.length) {
+                rehash();
+            }
+            if (size == latitudes.length) {
+                latitudes = Arrays.copyOf(latitudes, size * 2);
+                longitudes = Arrays.copyOf(longitudes, size * 2);
+                builderIds = Arrays.copyOf(builderIds, size * 2);
+                osmIds = Arrays.copyOf(osmIds, size * 2);
+            }
+            int index = find(keys, slots, id);
+            int slot = slots[index] - 1;
+            if (slot < 0) {
+                slot = size++;
+                keys[index] = id;
+                slots[index] = slot + 1;
+                osmIds[slot] = id;
+            }
+            latitudes[slot] = latitude;
+            longitudes[slot] = longitude;
+            builderIds[slot] = -1;
+        }
+
+        int slotOf(long id) {
+            return slots[find(keys, slots, id)] - 1;
+        }
+
+        double latitude(int slot) {
+            return latitudes[slot];
+        }
+
+        double longitude(int slot) {
+            return longitudes[slot];
+        }
+
+        int builderId(int slot, Map<Long, NodeTags> tagged, CampusGraph.Builder builder) {
+            if (builderIds[slot] < 0) {
+                NodeTags tags = tagged.get(osmIds[slot]);
+                String fallback = "node/" + osmIds[slot];
+                String name = tags == null ? fallback : tags.name;
+                // Names are ids in the graph, so a second place with the same name keeps its OSM id too
+                if (builder.idOf(name) >= 0) {
+                    name = name + " (" + fallback + ")";
+                }
+                int id = builder.addNode(name, latitudes[slot], longitudes[slot],
+                        tags == null ? null : tags.category, tags == null ? null : tags.description);
+                if (tags != null && tags.landmarks != null) {
+                    for (String landmark : tags.landmarks.split(";")) {
+                        builder.addLandmark(id, landmark.trim());
+                    }
+                }
+                builderIds[slot] = id;
+            }
+            return builderIds[slot];
+        }
+
+        // Slots are stored plus one so that zero marks an empty bucket
+        private static int find(long[] keys, int[] slots, long id) {
+            int mask = keys.length - 1;
+            int index = (int) (id ^ (id >>> 32)) * 0x9E3779B9 & mask;
+            while (slots[index] != 0 && keys[index] != id) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        private void rehash() {
+            long[] newKeys = new long[keys.length * 2];
+            int[] newSlots = new int[slots.length * 2];
+            for (int i = 0; i < keys.length; i++) {
+                if (slots[i] != 0) {
+                    int index = find(newKeys, newSlots, keys[i]);
+                    newKeys[index] = keys[i];
+                    newSlots[index] = slots[i];
+                }
+            }
+            keys = newKeys;
+            slots = newSlots;
+        }
+    }
+
+    /**
+     * The few tags kept for named nodes
+     */
+    private static final class NodeTags {
+        private String name;
+        private String category;
+        private String description;
+        private String landmarks;
+
+        static NodeTags accept(NodeTags tags, String key, String value) {
+            NodeTags result = tags;
+            switch (key) {
+                case "name":
+                    result = tags != null ? tags : new NodeTags();
+                    result.name = value;
+                    break;
+                case "short_name":
+                case "alt_name":
+                    result = tags != null ? tags : new NodeTags();
+                    result.landmarks = result.landmarks == null ? value : result.landmarks + ";" + value;
+                    break;
+                case "description":
+                    result = tags != null ? tags : new NodeTags();
+                    result.description = value;
+                    break;
+                case "amenity":
+                case "building":
+                case "office":
+                case "tourism":
+                case "historic":
+                case "leisure":
+                    result = tags != null ? tags : new NodeTags();
+                    if (result.category == null) {
+                        result.category = categoryOf(key, value);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return result;
+        }
+
+        // Maps OSM tags onto the campus categories used elsewhere: academic, administrative, facility, landmark
+        private static String categoryOf(String key, String value) {
+            if ("university".equals(value) || "college".equals(value) || "school".equals(value)) {
+                return "academic";
+            } else if ("office".equals(key) || "townhall".equals(value)) {
+                return "administrative";
+            } else if ("tourism".equals(key) || "historic".equals(key)) {
+                return "landmark";
+            }
+            return "facility";
+        }
+    }
+}
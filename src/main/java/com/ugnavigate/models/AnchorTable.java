@@ -0,0 +1,42 @@
+package com.ugnavigate.models;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Precomputed shortest distances from and to a few anchor nodes of a {@link CampusGraph},
+ * kept with the graph so a graph file can carry them and A* can start with its ALT bounds ready.
+ * Both tables have a row per node and a column per anchor.
+ */
+public final class AnchorTable {
+    private final int[] anchors;
+    private final DoubleBuffer fromAnchor;
+    private final DoubleBuffer toAnchor;
+
+    public AnchorTable(int[] anchors, DoubleBuffer fromAnchor, DoubleBuffer toAnchor) {
+        this.anchors = anchors;
+        this.fromAnchor = fromAnchor;
+        this.toAnchor = toAnchor;
+    }
+
+    public int getAnchorCount() {
+        return anchors.length;
+    }
+
+    public int[] getAnchors() {
+        return anchors.clone();
+    }
+
+    /**
+     * Returns the distance from anchor a to the node, at index node * anchorCount + a
+     */
+    public DoubleBuffer getFromAnchor() {
+        return fromAnchor.duplicate();
+    }
+
+    /**
+     * Returns the distance from the node to anchor a, at index node * anchorCount + a
+     */
+    public DoubleBuffer getToAnchor() {
+        return toAnchor.duplicate();
+    }
+}
@@ -0,0 +1,440 @@
+package com.ugnavigate.models;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * Frozen, int-indexed snapshot of a {@link CampusMap}.
+ * Nodes are numbered 0..n-1 and edges are stored in compressed sparse row form,
+ * so the edges leaving node u are the indices edgeStart(u) until edgeEnd(u).
+ * The arrays sit behind primitive buffers, so the same graph can be built on the heap or read in place from a
+ * memory-mapped {@link CampusGraphFile}. A graph built on the heap reads the arrays the searches walk directly,
+ * without going through the buffers.
+ */
+public final class CampusGraph {
+    private final long version;
+    private final StringTable names;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final DoubleBuffer weights;
+    private final DoubleBuffer latitudes;
+    private final DoubleBuffer longitudes;
+    private final IntBuffer categoryIds;
+    private final String[] categoryNames;
+    private final StringTable descriptions;
+    private final IntBuffer landmarkOffsets;
+    private final IntBuffer landmarkIds;
+    private final String[] landmarkNames;
+    private final AnchorTable anchorTable;
+    // The arrays behind the buffers searches read in their inner loops, or null when the graph is mapped from a file
+    private final int[] offsetArray;
+    private final int[] targetArray;
+    private final double[] weightArray;
+    private final double[] latitudeArray;
+    private final double[] longitudeArray;
+
+    CampusGraph(long version, StringTable names, IntBuffer offsets, IntBuffer targets, DoubleBuffer weights,
+            DoubleBuffer latitudes, DoubleBuffer longitudes, IntBuffer categoryIds, String[] categoryNames,
+            StringTable descriptions, IntBuffer landmarkOffsets, IntBuffer landmarkIds, String[] landmarkNames,
+            AnchorTable anchorTable) {
+        this.version = version;
+        this.names = names;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.categoryIds = categoryIds;
+        this.categoryNames = categoryNames;
+        this.descriptions = descriptions;
+        this.landmarkOffsets = landmarkOffsets;
+        this.landmarkIds = landmarkIds;
+        this.landmarkNames = landmarkNames;
+        this.anchorTable = anchorTable;
+        this.offsetArray = backingArray(offsets);
+        this.targetArray = backingArray(targets);
+        this.weightArray = backingArray(weights);
+        this.latitudeArray = backingArray(latitudes);
+        this.longitudeArray = backingArray(longitudes);
+    }
+
+    // The whole array a buffer wraps, or null if it is not backed by one
+    private static int[] backingArray(IntBuffer buffer) {
+        return buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == buffer.capacity()
+                ? buffer.array() : null;
+    }
+
+    private static double[] backingArray(DoubleBuffer buffer) {
+        return buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == buffer.capacity()
+                ? buffer.array() : null;
+    }
+
+    /**
+     * Returns the version of the map this snapshot was taken from
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the same graph under another version number, sharing all of its arrays
+     */
+    public CampusGraph withVersion(long version) {
+        return new CampusGraph(version, names, offsets, targets, weights, latitudes, longitudes, categoryIds,
+                categoryNames, descriptions, landmarkOffsets, landmarkIds, landmarkNames, anchorTable);
+    }
+
+    /**
+     * Returns the precomputed anchor distances stored with this graph, or null
+     */
+    public AnchorTable getAnchorTable() {
+        return anchorTable;
+    }
+
+    /**
+     * Returns the same graph carrying precomputed anchor distances, sharing all of its arrays
+     */
+    public CampusGraph withAnchorTable(AnchorTable anchorTable) {
+        return new CampusGraph(version, names, offsets, targets, weights, latitudes, longitudes, categoryIds,
+                categoryNames, descriptions, landmarkOffsets, landmarkIds, landmarkNames, anchorTable);
+    }
+
+    /**
+     * Returns a copy with new weights on some edges, sharing every other array, so node and edge ids stay valid.
+     * The anchor distances are only kept if no edge got shorter, as only then are they still lower bounds.
+     */
+    public CampusGraph withWeights(int[] edges, double[] newWeights) {
+        double[] copy = new double[getEdgeCount()];
+        weights.duplicate().get(copy);
+        boolean shortened = false;
+        for (int i = 0; i < edges.length; i++) {
+            shortened |= newWeights[i] < copy[edges[i]];
+            copy[edges[i]] = newWeights[i];
+        }
+        return new CampusGraph(version, names, offsets, targets, DoubleBuffer.wrap(copy), latitudes, longitudes,
+                categoryIds, categoryNames, descriptions, landmarkOffsets, landmarkIds, landmarkNames,
+                shortened ? null : anchorTable);
+    }
+
+    /**
+     * Returns true if both graphs have the very same nodes and edges, differing at most in edge weights
+     */
+    public boolean hasSameEdges(CampusGraph other) {
+        return other != null && names == other.names && offsets == other.offsets && targets == other.targets;
+    }
+
+    /**
+     * Returns the node an edge leaves from
+     */
+    public int source(int edge) {
+        int low = 0;
+        int high = getNodeCount() - 1;
+        // The last node whose edge range starts at or before the edge
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (edgeStart(middle) <= edge) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    public int getNodeCount() {
+        return names.size();
+    }
+
+    public int getEdgeCount() {
+        return targets.capacity();
+    }
+
+    /**
+     * Returns the node id for a location name, or -1 if the name is unknown
+     */
+    public int idOf(String name) {
+        return names.indexOf(name);
+    }
+
+    public String nameOf(int node) {
+        return names.get(node);
+    }
+
+    public int edgeStart(int node) {
+        return offsetArray != null ? offsetArray[node] : offsets.get(node);
+    }
+
+    public int edgeEnd(int node) {
+        return offsetArray != null ? offsetArray[node + 1] : offsets.get(node + 1);
+    }
+
+    public int target(int edge) {
+        return targetArray != null ? targetArray[edge] : targets.get(edge);
+    }
+
+    public double weight(int edge) {
+        return weightArray != null ? weightArray[edge] : weights.get(edge);
+    }
+
+    public double latitude(int node) {
+        return latitudeArray != null ? latitudeArray[node] : latitudes.get(node);
+    }
+
+    public double longitude(int node) {
+        return longitudeArray != null ? longitudeArray[node] : longitudes.get(node);
+    }
+
+    /**
+     * Returns the id of the edge from one node to another, or -1 if they are not adjacent
+     */
+    public int findEdge(int from, int to) {
+        for (int e = edgeStart(from), end = edgeEnd(from); e < end; e++) {
+            if (target(e) == to) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    public double distance(int from, int to) {
+        int edge = findEdge(from, to);
+        return edge < 0 ? Double.POSITIVE_INFINITY : weight(edge);
+    }
+
+    public String category(int node) {
+        return categoryNames[categoryIds.get(node)];
+    }
+
+    public String description(int node) {
+        return descriptions.get(node);
+    }
+
+    public List<String> landmarks(int node) {
+        List<String> result = new ArrayList<>(landmarkOffsets.get(node + 1) - landmarkOffsets.get(node));
+        for (int i = landmarkOffsets.get(node); i < landmarkOffsets.get(node + 1); i++) {
+            result.add(landmarkNames[landmarkIds.get(i)]);
+        }
+        return result;
+    }
+
+    /**
+     * Materialises a {@link Location} view of a node
+     */
+    public Location toLocation(int node) {
+        Location location = new Location(nameOf(node), latitude(node), longitude(node), category(node),
+                description(node));
+        for (String landmark : landmarks(node)) {
+            location.addLandmark(landmark);
+        }
+        for (int e = edgeStart(node); e < edgeEnd(node); e++) {
+            location.addConnection(nameOf(target(e)), weight(e));
+        }
+        return location;
+    }
+
+    /**
+     * Sums the edge weights along a path of node ids
+     */
+    public double pathDistance(int[] path) {
+        double total = 0.0;
+        for (int i = 0; i < path.length - 1; i++) {
+            total += distance(path[i], path[i + 1]);
+        }
+        return total;
+    }
+
+    public List<String> toNames(int[] path) {
+        List<String> result = new ArrayList<>(path.length);
+        for (int node : path) {
+            result.add(nameOf(node));
+        }
+        return result;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Accumulates nodes and directed edges in growable primitive arrays and
+     * sorts them into CSR form on {@link #build()}.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private double[] latitudes = new double[16];
+        private double[] longitudes = new double[16];
+        private int[] categoryIds = new int[16];
+        private final List<String> descriptions = new ArrayList<>();
+        private final Map<String, Integer> categoryDictionary = new LinkedHashMap<>();
+        private final Map<String, Integer> landmarkDictionary = new LinkedHashMap<>();
+        private int[] landmarkOwners = new int[16];
+        private int[] landmarkRefs = new int[16];
+        private int landmarkCount;
+        private int[] edgeSources = new int[16];
+        private int[] edgeTargets = new int[16];
+        private double[] edgeWeights = new double[16];
+        private int edgeCount;
+        private long version;
+
+        private Builder() {
+            categoryDictionary.put("general", 0);
+        }
+
+        /**
+         * Adds a node, or updates its attributes if the name is already known, and returns its id
+         */
+        public int addNode(String name, double latitude, double longitude, String category, String description) {
+            Integer existing = ids.get(name);
+            int id;
+            if (existing == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+                descriptions.add("");
+                if (id == latitudes.length) {
+                    int capacity = id * 2;
+                    latitudes = Arrays.copyOf(latitudes, capacity);
+                    longitudes = Arrays.copyOf(longitudes, capacity);
+                    categoryIds = Arrays.copyOf(categoryIds, capacity);
+                }
+            } else {
+                id = existing;
+            }
+            latitudes[id] = latitude;
+            longitudes[id] = longitude;
+            categoryIds[id] = categoryId(category == null ? "general" : category);
+            descriptions.set(id, description == null ? "" : description);
+            return id;
+        }
+
+        /**
+         * Returns the id of a node already added, or -1
+         */
+        public int idOf(String name) {
+            Integer existing = ids.get(name);
+            return existing == null ? -1 : existing;
+        }
+
+        /**
+         * Returns the id of a node, creating a bare node at (0, 0) if needed
+         */
+        public int node(String name) {
+            Integer existing = ids.get(name);
+            return existing != null ? existing : addNode(name, 0.0, 0.0, "general", "");
+        }
+
+        public void addLandmark(int node, String landmark) {
+            if (landmarkCount == landmarkOwners.length) {
+                landmarkOwners = Arrays.copyOf(landmarkOwners, landmarkCount * 2);
+                landmarkRefs = Arrays.copyOf(landmarkRefs, landmarkCount * 2);
+            }
+            Integer ref = landmarkDictionary.get(landmark);
+            if (ref == null) {
+                ref = landmarkDictionary.size();
+                landmarkDictionary.put(landmark, ref);
+            }
+            landmarkOwners[landmarkCount] = node;
+            landmarkRefs[landmarkCount] = ref;
+            landmarkCount++;
+        }
+
+        public void addEdge(int from, int to, double weight) {
+            if (edgeCount == edgeSources.length) {
+                edgeSources = Arrays.copyOf(edgeSources, edgeCount * 2);
+                edgeTargets = Arrays.copyOf(edgeTargets, edgeCount * 2);
+                edgeWeights = Arrays.copyOf(edgeWeights, edgeCount * 2);
+            }
+            edgeSources[edgeCount] = from;
+            edgeTargets[edgeCount] = to;
+            edgeWeights[edgeCount] = weight;
+            edgeCount++;
+        }
+
+        public int getNodeCount() {
+            return names.size();
+        }
+
+        public Builder version(long version) {
+            this.version = version;
+            return this;
+        }
+
+        public CampusGraph build() {
+            int n = names.size();
+
+            // Counting sort of the edge list by source node
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i < edgeCount; i++) {
+                offsets[edgeSources[i] + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] cursor = Arrays.copyOf(offsets, n);
+            int[] targets = new int[edgeCount];
+            double[] weights = new double[edgeCount];
+            for (int i = 0; i < edgeCount; i++) {
+                int slot = cursor[edgeSources[i]]++;
+                targets[slot] = edgeTargets[i];
+                weights[slot] = edgeWeights[i];
+            }
+
+            // Loaded data may list a connection more than once; keep the shortest copy and close up each row
+            int kept = 0;
+            for (int u = 0; u < n; u++) {
+                int rowStart = kept;
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int duplicate = -1;
+                    for (int k = rowStart; k < kept && duplicate < 0; k++) {
+                        if (targets[k] == targets[e]) {
+                            duplicate = k;
+                        }
+                    }
+                    if (duplicate < 0) {
+                        targets[kept] = targets[e];
+                        weights[kept++] = weights[e];
+                    } else if (weights[e] < weights[duplicate]) {
+                        weights[duplicate] = weights[e];
+                    }
+                }
+                offsets[u] = rowStart;
+            }
+            offsets[n] = kept;
+            if (kept < edgeCount) {
+                targets = Arrays.copyOf(targets, kept);
+                weights = Arrays.copyOf(weights, kept);
+            }
+
+            int[] landmarkOffsets = new int[n + 1];
+            for (int i = 0; i < landmarkCount; i++) {
+                landmarkOffsets[landmarkOwners[i] + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                landmarkOffsets[i + 1] += landmarkOffsets[i];
+            }
+            int[] landmarkCursor = Arrays.copyOf(landmarkOffsets, n);
+            int[] landmarkIds = new int[landmarkCount];
+            for (int i = 0; i < landmarkCount; i++) {
+                landmarkIds[landmarkCursor[landmarkOwners[i]]++] = landmarkRefs[i];
+            }
+
+            return new CampusGraph(version, StringTable.of(names.toArray(new String[0]), new HashMap<>(ids)),
+                    IntBuffer.wrap(offsets), IntBuffer.wrap(targets), DoubleBuffer.wrap(weights),
+                    DoubleBuffer.wrap(Arrays.copyOf(latitudes, n)), DoubleBuffer.wrap(Arrays.copyOf(longitudes, n)),
+                    IntBuffer.wrap(Arrays.copyOf(categoryIds, n)), categoryDictionary.keySet().toArray(new String[0]),
+                    StringTable.of(descriptions.toArray(new String[0]), null), IntBuffer.wrap(landmarkOffsets),
+                    IntBuffer.wrap(landmarkIds), landmarkDictionary.keySet().toArray(new String[0]), null);
+        }
+
+        private int categoryId(String category) {
+            Integer id = categoryDictionary.get(category);
+            if (id == null) {
+                id = categoryDictionary.size();
+                categoryDictionary.put(category, id);
+            }
+            return id;
+        }
+    }
+}
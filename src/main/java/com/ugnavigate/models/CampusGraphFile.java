@@ -0,0 +1,360 @@
+package com.ugnavigate.models;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Versioned binary form of a {@link CampusGraph}, laid out so it can be memory-mapped and used in place.
+ * <p>
+ * The file is little-endian: a fixed header, a table of (offset, length) pairs for each section, then the
+ * sections themselves, each starting on an 8-byte boundary. Sections hold the CSR arrays, coordinates, category
+ * and landmark ids, names and descriptions as UTF-8 with offset tables, a hash table for looking names up,
+ * the category and landmark dictionaries, and optionally the graph's {@link AnchorTable}.
+ * Only the two small dictionaries are copied onto the heap when a file is opened.
+ */
+public final class CampusGraphFile {
+    public static final int MAGIC = 0x474E4755; // "UGNG" read little-endian
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_BYTES = 64;
+    private static final int OFFSETS = 0;
+    private static final int TARGETS = 1;
+    private static final int WEIGHTS = 2;
+    private static final int LATITUDES = 3;
+    private static final int LONGITUDES = 4;
+    private static final int CATEGORY_IDS = 5;
+    private static final int LANDMARK_OFFSETS = 6;
+    private static final int LANDMARK_IDS = 7;
+    private static final int NAME_OFFSETS = 8;
+    private static final int NAME_BYTES = 9;
+    private static final int NAME_HASH = 10;
+    private static final int DESCRIPTION_OFFSETS = 11;
+    private static final int DESCRIPTION_BYTES = 12;
+    private static final int CATEGORY_OFFSETS = 13;
+    private static final int CATEGORY_BYTES = 14;
+    private static final int LANDMARK_NAME_OFFSETS = 15;
+    private static final int LANDMARK_NAME_BYTES = 16;
+    private static final int ANCHORS = 17;
+    private static final int FROM_ANCHOR = 18;
+    private static final int TO_ANCHOR = 19;
+    private static final int SECTIONS = 20;
+
+    private CampusGraphFile() {
+    }
+
+    /**
+     * Writes the graph, replacing the file atomically so instances opening it never see a partial write.
+     * The stamp identifies the data the graph came from and can be read back with {@link #readStamp(Path)}.
+     */
+    public static void write(CampusGraph graph, Path file, long stamp) throws IOException {
+        // Written next to the target with the usual permissions, so the rename stays on one file system
+        Path temp = file.toAbsolutePath().resolveSibling(file.getFileName() + "." + System.nanoTime() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                new Writer(channel).write(graph, stamp);
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Returns the stamp a graph file was written with, or null if it is missing or not a readable graph file
+     */
+    public static Long readStamp(Path file) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) < HEADER_BYTES) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) {
+                return null;
+            }
+            return header.getLong(8);
+        }
+    }
+
+    /**
+     * Maps a graph file read-only and returns a graph whose arrays are views of the mapping
+     */
+    public static CampusGraph map(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(file + " is larger than one mapping can hold");
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES + SECTIONS * 16 || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException(file + " is not a campus graph file");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalArgumentException(file + " has graph format " + buffer.getInt(4) + ", expected "
+                    + FORMAT_VERSION);
+        }
+        long version = buffer.getLong(16);
+        int anchorCount = buffer.getInt(24);
+
+        Reader reader = new Reader(buffer);
+        AnchorTable anchorTable = null;
+        if (anchorCount > 0) {
+            int[] anchors = new int[anchorCount];
+            reader.ints(ANCHORS).get(anchors);
+            anchorTable = new AnchorTable(anchors, reader.doubles(FROM_ANCHOR), reader.doubles(TO_ANCHOR));
+        }
+        return new CampusGraph(version,
+                StringTable.mapped(reader.ints(NAME_OFFSETS), reader.bytes(NAME_BYTES), reader.ints(NAME_HASH)),
+                reader.ints(OFFSETS), reader.ints(TARGETS), reader.doubles(WEIGHTS), reader.doubles(LATITUDES),
+                reader.doubles(LONGITUDES), reader.ints(CATEGORY_IDS),
+                reader.strings(CATEGORY_OFFSETS, CATEGORY_BYTES),
+                StringTable.mapped(reader.ints(DESCRIPTION_OFFSETS), reader.bytes(DESCRIPTION_BYTES), null),
+                reader.ints(LANDMARK_OFFSETS), reader.ints(LANDMARK_IDS),
+                reader.strings(LANDMARK_NAME_OFFSETS, LANDMARK_NAME_BYTES), anchorTable);
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        ByteBuffer bytes(int section) {
+            long offset = buffer.getLong(HEADER_BYTES + section * 16);
+            long length = buffer.getLong(HEADER_BYTES + section * 16 + 8);
+            if (offset < 0 || length < 0 || offset + length > buffer.capacity()) {
+                throw new IllegalArgumentException("Graph file section " + section + " is out of bounds");
+            }
+            ByteBuffer slice = buffer.duplicate();
+            slice.position((int) offset);
+            slice.limit((int) (offset + length));
+            return slice.slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        IntBuffer ints(int section) {
+            return bytes(section).asIntBuffer();
+        }
+
+        DoubleBuffer doubles(int section) {
+            return bytes(section).asDoubleBuffer();
+        }
+
+        String[] strings(int offsetSection, int byteSection) {
+            StringTable table = StringTable.mapped(ints(offsetSection), bytes(byteSection), null);
+            String[] values = new String[table.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = table.get(i);
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Streams sections through a small buffer, then goes back to fill in the header and section table
+     */
+    private static final class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private final long[] sectionOffsets = new long[SECTIONS];
+        private final long[] sectionLengths = new long[SECTIONS];
+        private long position;
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void write(CampusGraph graph, long stamp) throws IOException {
+            int n = graph.getNodeCount();
+            position = HEADER_BYTES + SECTIONS * 16;
+            channel.position(position);
+
+            begin(OFFSETS);
+            for (int v = 0; v <= n; v++) {
+                putInt(v < n ? graph.edgeStart(v) : graph.getEdgeCount());
+            }
+            end(OFFSETS);
+            begin(TARGETS);
+            for (int e = 0; e < graph.getEdgeCount(); e++) {
+                putInt(graph.target(e));
+            }
+            end(TARGETS);
+            begin(WEIGHTS);
+            for (int e = 0; e < graph.getEdgeCount(); e++) {
+                putDouble(graph.weight(e));
+            }
+            end(WEIGHTS);
+            begin(LATITUDES);
+            for (int v = 0; v < n; v++) {
+                putDouble(graph.latitude(v));
+            }
+            end(LATITUDES);
+            begin(LONGITUDES);
+            for (int v = 0; v < n; v++) {
+                putDouble(graph.longitude(v));
+            }
+            end(LONGITUDES);
+
+            Map<String, Integer> categories = new LinkedHashMap<>();
+            begin(CATEGORY_IDS);
+            for (int v = 0; v < n; v++) {
+                putInt(categories.computeIfAbsent(graph.category(v), c -> categories.size()));
+            }
+            end(CATEGORY_IDS);
+
+            Map<String, Integer> landmarks = new LinkedHashMap<>();
+            begin(LANDMARK_OFFSETS);
+            int landmarkCount = 0;
+            for (int v = 0; v < n; v++) {
+                putInt(landmarkCount);
+                landmarkCount += graph.landmarks(v).size();
+            }
+            putInt(landmarkCount);
+            end(LANDMARK_OFFSETS);
+            begin(LANDMARK_IDS);
+            for (int v = 0; v < n; v++) {
+                for (String landmark : graph.landmarks(v)) {
+                    putInt(landmarks.computeIfAbsent(landmark, l -> landmarks.size()));
+                }
+            }
+            end(LANDMARK_IDS);
+
+            writeStrings(NAME_OFFSETS, NAME_BYTES, n, graph::nameOf);
+            int capacity = Integer.highestOneBit(Math.max(2, n * 2 - 1)) << 1;
+            int[] hash = new int[capacity];
+            for (int v = 0; v < n; v++) {
+                int bucket = StringTable.bucket(graph.nameOf(v), capacity);
+                while (hash[bucket] != 0) {
+                    bucket = (bucket + 1) & (capacity - 1);
+                }
+                hash[bucket] = v + 1;
+            }
+            begin(NAME_HASH);
+            for (int slot : hash) {
+                putInt(slot);
+            }
+            end(NAME_HASH);
+            writeStrings(DESCRIPTION_OFFSETS, DESCRIPTION_BYTES, n, graph::description);
+            String[] categoryNames = categories.keySet().toArray(new String[0]);
+            writeStrings(CATEGORY_OFFSETS, CATEGORY_BYTES, categoryNames.length, i -> categoryNames[i]);
+            String[] landmarkNames = landmarks.keySet().toArray(new String[0]);
+            writeStrings(LANDMARK_NAME_OFFSETS, LANDMARK_NAME_BYTES, landmarkNames.length, i -> landmarkNames[i]);
+
+            AnchorTable anchorTable = graph.getAnchorTable();
+            int anchorCount = anchorTable == null ? 0 : anchorTable.getAnchorCount();
+            begin(ANCHORS);
+            for (int anchor : anchorCount == 0 ? new int[0] : anchorTable.getAnchors()) {
+                putInt(anchor);
+            }
+            end(ANCHORS);
+            begin(FROM_ANCHOR);
+            DoubleBuffer from = anchorCount == 0 ? DoubleBuffer.allocate(0) : anchorTable.getFromAnchor();
+            while (from.hasRemaining()) {
+                putDouble(from.get());
+            }
+            end(FROM_ANCHOR);
+            begin(TO_ANCHOR);
+            DoubleBuffer to = anchorCount == 0 ? DoubleBuffer.allocate(0) : anchorTable.getToAnchor();
+            while (to.hasRemaining()) {
+                putDouble(to.get());
+            }
+            end(TO_ANCHOR);
+            flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + SECTIONS * 16).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(stamp).putLong(graph.getVersion());
+            header.putInt(anchorCount);
+            header.position(HEADER_BYTES);
+            for (int section = 0; section < SECTIONS; section++) {
+                header.putLong(sectionOffsets[section]).putLong(sectionLengths[section]);
+            }
+            header.flip();
+            channel.position(0);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        }
+
+        private void writeStrings(int offsetSection, int byteSection, int count,
+                IntFunction<String> value) throws IOException {
+            begin(offsetSection);
+            int offset = 0;
+            for (int i = 0; i < count; i++) {
+                putInt(offset);
+                offset += value.apply(i).getBytes(StandardCharsets.UTF_8).length;
+            }
+            putInt(offset);
+            end(offsetSection);
+            begin(byteSection);
+            for (int i = 0; i < count; i++) {
+                for (byte b : value.apply(i).getBytes(StandardCharsets.UTF_8)) {
+                    reserve(1);
+                    buffer.put(b);
+                    position++;
+                }
+            }
+            end(byteSection);
+        }
+
+        // Sections start 8-byte aligned so that mapped int and double views line up
+        private void begin(int section) throws IOException {
+            while (position % 8 != 0) {
+                reserve(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+            sectionOffsets[section] = position;
+        }
+
+        private void end(int section) {
+            sectionLengths[section] = position - sectionOffsets[section];
+        }
+
+        private void putInt(int value) throws IOException {
+            reserve(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        private void putDouble(double value) throws IOException {
+            reserve(8);
+            buffer.putDouble(value);
+            position += 8;
+        }
+
+        private void reserve(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -1,23 +1,43 @@
 package com.ugnavigate.models;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.IntFunction;
 
+/**
+ * Campus locations and the walking distances between them.
+ * Writers go through synchronized mutators; readers never lock, but see an immutable, versioned
+ * {@link Snapshot} that is rebuilt after changes and published with a single volatile write.
+ * A whole new map can be swapped in at once with {@link #replaceWith(CampusMap)}, or as a graph streamed straight
+ * from a map file with {@link #replaceWith(CampusGraph)}; the latter is served from the graph's arrays until the
+ * first edit.
+ * Connections can also be closed, reopened and re-weighted in place; those changes keep node and edge ids, and
+ * report what changed as an {@link EdgeUpdate} so routing data for the old graph can be repaired rather than rebuilt.
+ */
 public class CampusMap {
     private Map<String, Location> locations;
     private Map<String, Map<String, Double>> distances;
+    // Set instead of the two maps above while the contents are a loaded graph nobody has edited yet
+    private CampusGraph loaded;
+    // Distances of closed connections (both directions), restored when they are reopened
+    private Map<String, Map<String, Double>> closed = new HashMap<>();
+    private long version;
+    private volatile Snapshot snapshot;
 
     public CampusMap() {
-        locations = new HashMap<>();
-        distances = new HashMap<>();
+        locations = new LinkedHashMap<>();
+        distances = new LinkedHashMap<>();
     }
 
-    public void addLocation(Location location) {
+    public synchronized void addLocation(Location location) {
+        materialize();
         locations.put(location.getName(), location);
         distances.put(location.getName(), new HashMap<>());
+        closed.remove(location.getName());
+        changed();
     }
 
-    public void addLocation(String name, Map<String, Double> distances) {
+    public synchronized void addLocation(String name, Map<String, Double> distances) {
+        materialize();
         Location location = new Location(name, 0.0, 0.0);
         locations.put(name, location);
         this.distances.put(name, new HashMap<>(distances));
@@ -30,10 +50,13 @@ public class CampusMap {
                 this.distances.put(toLocation, new HashMap<>());
             }
             this.distances.get(toLocation).put(name, distance);
+            forgetClosure(name, toLocation);
         }
+        changed();
     }
 
-    public void addConnection(String from, String to, double distance) {
+    public synchronized void addConnection(String from, String to, double distance) {
+        materialize();
         if (!distances.containsKey(from)) {
             distances.put(from, new HashMap<>());
         }
@@ -42,65 +65,627 @@ public class CampusMap {
         }
         distances.get(from).put(to, distance);
         distances.get(to).put(from, distance); // Bidirectional
+        forgetClosure(from, to);
+        changed();
+    }
+
+    /**
+     * Closes a connection in both directions, e.g. for construction or flooding, until it is reopened.
+     * Closing a closed connection changes nothing.
+     */
+    public synchronized EdgeUpdate closeConnection(String from, String to) {
+        EdgeUpdate unchanged = unchanged(from, to);
+        if (isClosed(from, to)) {
+            return unchanged;
+        }
+        CampusGraph graph = unchanged.getGraph();
+        double distance = graph.weight(graph.findEdge(graph.idOf(from), graph.idOf(to)));
+        closed.computeIfAbsent(from, name -> new HashMap<>()).put(to, distance);
+        closed.computeIfAbsent(to, name -> new HashMap<>()).put(from, distance);
+        return updateWeight(from, to, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Reopens a closed connection at the distance it had, or was last given, while closed.
+     * Reopening an open connection changes nothing.
+     */
+    public synchronized EdgeUpdate reopenConnection(String from, String to) {
+        EdgeUpdate unchanged = unchanged(from, to);
+        if (!isClosed(from, to)) {
+            return unchanged;
+        }
+        double distance = closed.get(from).get(to);
+        forgetClosure(from, to);
+        return updateWeight(from, to, distance);
+    }
+
+    /**
+     * Changes the distance of an existing connection in both directions.
+     * A closed connection stays closed and takes the new distance when it is reopened.
+     */
+    public synchronized EdgeUpdate setConnectionDistance(String from, String to, double distance) {
+        if (!(distance > 0) || Double.isInfinite(distance)) {
+            throw new IllegalArgumentException("Distances must be positive and finite: " + distance);
+        }
+        EdgeUpdate unchanged = unchanged(from, to);
+        if (isClosed(from, to)) {
+            closed.get(from).put(to, distance);
+            closed.get(to).put(from, distance);
+            return unchanged;
+        }
+        return updateWeight(from, to, distance);
+    }
+
+    public synchronized boolean isClosed(String from, String to) {
+        Map<String, Double> row = closed.get(from);
+        return row != null && row.containsKey(to);
+    }
+
+    /**
+     * Replaces the whole map with the contents of another one as a single new version.
+     * The other map's snapshot is built in the calling thread, so readers of this map never wait for it.
+     */
+    public void replaceWith(CampusMap other) {
+        Snapshot source = other.getSnapshot();
+        Map<String, Location> newLocations = new LinkedHashMap<>(source.locations);
+        Map<String, Map<String, Double>> newDistances = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Double>> entry : source.distances.entrySet()) {
+            newDistances.put(entry.getKey(), new HashMap<>(entry.getValue()));
+        }
+
+        synchronized (this) {
+            locations = newLocations;
+            distances = newDistances;
+            loaded = null;
+            closed = new HashMap<>();
+            version++;
+            snapshot = new Snapshot(version, source.locations, source.distances, source.graph.withVersion(version));
+        }
+    }
+
+    /**
+     * Replaces the whole map with a loaded graph as a single new version, without copying it into maps
+     */
+    public synchronized void replaceWith(CampusGraph graph) {
+        locations = null;
+        distances = null;
+        loaded = graph;
+        closed = new HashMap<>();
+        version++;
+        snapshot = new Snapshot(version, new GraphLocations(graph), new GraphDistances(graph),
+                graph.withVersion(version));
+    }
+
+    /**
+     * Returns the version of the current map contents; it increases with every change
+     */
+    public synchronized long getVersion() {
+        return version;
     }
 
     public double getDistance(String from, String to) {
-        if (distances.containsKey(from) && distances.get(from).containsKey(to)) {
-            return distances.get(from).get(to);
+        Map<String, Double> neighbors = getSnapshot().distances.get(from);
+        if (neighbors != null && neighbors.containsKey(to)) {
+            return neighbors.get(to);
         }
         return Double.POSITIVE_INFINITY;
     }
 
     public Set<String> getLocations() {
-        return new HashSet<>(locations.keySet());
+        return getSnapshot().locations.keySet();
     }
 
     public Location getLocation(String name) {
-        return locations.get(name);
+        return getSnapshot().locations.get(name);
     }
 
+    /**
+     * Returns the locations that list the landmark, or whose names contain words starting with its words
+     */
     public List<Location> getLocationsByLandmark(String landmark) {
-        return locations.values().stream()
-                .filter(location -> location.isNearLandmark(landmark))
-                .collect(Collectors.toList());
+        return getSnapshot().getLocationsByLandmark(landmark);
     }
 
     public List<Location> getLocationsByCategory(String category) {
-        return locations.values().stream()
-                .filter(location -> location.getCategory().equalsIgnoreCase(category))
-                .collect(Collectors.toList());
+        return getSnapshot().getLocationsByCategory(category);
+    }
+
+    /**
+     * Returns the locations whose names contain, for every word of the query, a word starting with it
+     */
+    public List<Location> findLocations(String query) {
+        return getSnapshot().findLocations(query);
     }
 
     public Set<String> getNeighbors(String location) {
-        if (distances.containsKey(location)) {
-            return distances.get(location).keySet();
+        Map<String, Double> neighbors = getSnapshot().distances.get(location);
+        if (neighbors != null) {
+            return neighbors.keySet();
         }
         return new HashSet<>();
     }
 
     public boolean hasLocation(String name) {
-        return locations.containsKey(name);
+        return getSnapshot().locations.containsKey(name);
     }
 
     public int getLocationCount() {
-        return locations.size();
+        return getSnapshot().locations.size();
     }
 
     public List<String> getAllLandmarks() {
-        Set<String> allLandmarks = new HashSet<>();
-        for (Location location : locations.values()) {
-            allLandmarks.addAll(location.getLandmarks());
-        }
-        return new ArrayList<>(allLandmarks);
+        return new ArrayList<>(getSnapshot().getPlaceIndex().getLandmarks());
+    }
+
+    /**
+     * Returns the distinct location categories in map order
+     */
+    public List<String> getAllCategories() {
+        return new ArrayList<>(getSnapshot().getPlaceIndex().getCategories());
     }
 
     public Map<String, List<Location>> getLocationsByLandmark() {
+        Snapshot current = getSnapshot();
+        PlaceIndex index = current.getPlaceIndex();
         Map<String, List<Location>> landmarkMap = new HashMap<>();
+        for (String landmark : index.getLandmarks()) {
+            landmarkMap.put(landmark, current.toLocations(index.nodesWithLandmark(landmark)));
+        }
+        return landmarkMap;
+    }
+
+    /**
+     * Returns the compact routing snapshot of this map, rebuilding it only after the map has changed
+     */
+    public CampusGraph getGraph() {
+        return getSnapshot().graph;
+    }
+
+    /**
+     * Returns the current immutable snapshot, publishing a new one first if the map has changed
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = publish();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Called with the lock held before every mutation, turning a loaded graph back into editable maps
+    private void materialize() {
+        if (loaded == null) {
+            return;
+        }
+        locations = new LinkedHashMap<>();
+        distances = new LinkedHashMap<>();
+        for (int node = 0; node < loaded.getNodeCount(); node++) {
+            Location location = loaded.toLocation(node);
+            locations.put(location.getName(), location);
+            distances.put(location.getName(), location.getConnections());
+        }
+        loaded = null;
+    }
+
+    // Called with the lock held after every mutation
+    private void changed() {
+        version++;
+        snapshot = null;
+    }
+
+    private void forgetClosure(String from, String to) {
+        if (closed.containsKey(from)) {
+            closed.get(from).remove(to);
+        }
+        if (closed.containsKey(to)) {
+            closed.get(to).remove(from);
+        }
+    }
+
+    // Checks that the connection exists, describing a change that leaves the map as it is
+    private EdgeUpdate unchanged(String from, String to) {
+        CampusGraph graph = getSnapshot().graph;
+        int u = graph.idOf(from);
+        int v = graph.idOf(to);
+        if (u < 0 || v < 0 || graph.findEdge(u, v) < 0 || graph.findEdge(v, u) < 0) {
+            throw new IllegalArgumentException("Unknown connection: " + from + " -> " + to);
+        }
+        return new EdgeUpdate(graph, graph, new int[0]);
+    }
+
+    // Publishes the current graph with one connection re-weighted, keeping every node and edge id
+    private EdgeUpdate updateWeight(String from, String to, double distance) {
+        CampusGraph previous = getSnapshot().graph;
+        int u = previous.idOf(from);
+        int v = previous.idOf(to);
+        int[] edges = { previous.findEdge(u, v), previous.findEdge(v, u) };
+        version++;
+        CampusGraph graph = previous.withWeights(edges, new double[] { distance, distance }).withVersion(version);
+        PlaceIndex placeIndex = snapshot.placeIndex;
+        Suggester suggester = snapshot.suggester;
+        SpatialIndex spatialIndex = snapshot.spatialIndex;
+        if (loaded != null) {
+            loaded = graph;
+            snapshot = new Snapshot(version, new GraphLocations(graph), new GraphDistances(graph), graph);
+        } else {
+            distances.get(from).put(to, distance);
+            distances.get(to).put(from, distance);
+            snapshot = publish(graph);
+        }
+        // Names, categories and landmarks are unchanged, so the text index and suggestions carry over
+        snapshot.placeIndex = placeIndex;
+        snapshot.suggester = suggester;
+        // Positions are unchanged too; the grid only needs to see the new weights to skip closed connections
+        snapshot.spatialIndex = spatialIndex == null ? null : spatialIndex.withGraph(graph);
+        return new EdgeUpdate(previous, graph, edges);
+    }
+
+    private Snapshot publish() {
+        return publish(buildGraph());
+    }
+
+    private Snapshot publish(CampusGraph graph) {
+        Map<String, Map<String, Double>> distanceCopy = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Double>> entry : distances.entrySet()) {
+            distanceCopy.put(entry.getKey(), Collections.unmodifiableMap(new HashMap<>(entry.getValue())));
+        }
+        return new Snapshot(version, Collections.unmodifiableMap(new LinkedHashMap<>(locations)),
+                Collections.unmodifiableMap(distanceCopy), graph);
+    }
+
+    private CampusGraph buildGraph() {
+        CampusGraph.Builder builder = CampusGraph.builder().version(version);
         for (Location location : locations.values()) {
+            int id = builder.addNode(location.getName(), location.getLatitude(), location.getLongitude(),
+                    location.getCategory(), location.getDescription());
             for (String landmark : location.getLandmarks()) {
-                landmarkMap.computeIfAbsent(landmark, k -> new ArrayList<>()).add(location);
+                builder.addLandmark(id, landmark);
             }
         }
-        return landmarkMap;
+        for (Map.Entry<String, Map<String, Double>> entry : distances.entrySet()) {
+            int from = builder.node(entry.getKey());
+            for (Map.Entry<String, Double> edge : entry.getValue().entrySet()) {
+                builder.addEdge(from, builder.node(edge.getKey()), edge.getValue());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * One published version of the map: read-only views of its locations and distances, and its routing graph
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final Map<String, Location> locations;
+        private final Map<String, Map<String, Double>> distances;
+        private final CampusGraph graph;
+        // Built on first use
+        private volatile PlaceIndex placeIndex;
+        private volatile Suggester suggester;
+        private volatile SpatialIndex spatialIndex;
+
+        private Snapshot(long version, Map<String, Location> locations, Map<String, Map<String, Double>> distances,
+                CampusGraph graph) {
+            this.version = version;
+            this.locations = locations;
+            this.distances = distances;
+            this.graph = graph;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public Map<String, Location> getLocations() {
+            return locations;
+        }
+
+        public boolean hasLocation(String name) {
+            return locations.containsKey(name);
+        }
+
+        public Map<String, Map<String, Double>> getDistances() {
+            return distances;
+        }
+
+        public CampusGraph getGraph() {
+            return graph;
+        }
+
+        /**
+         * Returns the text index of this version's names, categories and landmarks, building it on first use
+         */
+        public PlaceIndex getPlaceIndex() {
+            PlaceIndex index = placeIndex;
+            if (index == null) {
+                synchronized (this) {
+                    index = placeIndex;
+                    if (index == null) {
+                        index = PlaceIndex.build(graph);
+                        placeIndex = index;
+                    }
+                }
+            }
+            return index;
+        }
+
+        /**
+         * Returns the autocomplete over this version's names, landmarks and descriptions, building it on first use
+         */
+        public Suggester getSuggester() {
+            Suggester result = suggester;
+            if (result == null) {
+                synchronized (this) {
+                    result = suggester;
+                    if (result == null) {
+                        result = Suggester.build(graph);
+                        suggester = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Returns the grid over this version's coordinates and connections, building it on first use
+         */
+        public SpatialIndex getSpatialIndex() {
+            SpatialIndex index = spatialIndex;
+            if (index == null) {
+                synchronized (this) {
+                    index = spatialIndex;
+                    if (index == null) {
+                        index = SpatialIndex.build(graph);
+                        spatialIndex = index;
+                    }
+                }
+            }
+            return index;
+        }
+
+        /**
+         * Counts a route request to or from a location towards its suggestions, once anyone has asked for them
+         */
+        public void recordUse(String name) {
+            Suggester current = suggester;
+            int node = current == null ? -1 : graph.idOf(name);
+            if (node >= 0) {
+                current.recordUse(node);
+            }
+        }
+
+        /**
+         * Returns this version's locations that list the landmark, or whose names contain words starting with its
+         * words
+         */
+        public List<Location> getLocationsByLandmark(String landmark) {
+            return toLocations(getPlaceIndex().nodesNearLandmark(landmark));
+        }
+
+        public List<Location> getLocationsByCategory(String category) {
+            return toLocations(getPlaceIndex().nodesInCategory(category));
+        }
+
+        /**
+         * Returns this version's locations whose names contain, for every word of the query, a word starting with it
+         */
+        public List<Location> findLocations(String query) {
+            return toLocations(getPlaceIndex().nodesMatching(query));
+        }
+
+        /**
+         * Looks up the locations for node ids of this version's graph. Places only ever named by a connection have
+         * no location of their own, so theirs is read off the graph.
+         */
+        public List<Location> toLocations(int[] nodes) {
+            List<Location> result = new ArrayList<>(nodes.length);
+            for (int node : nodes) {
+                Location location = locations.get(graph.nameOf(node));
+                result.add(location != null ? location : graph.toLocation(node));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The result of closing, reopening or re-weighting a connection: the graphs before and after, which share node
+     * and edge ids, and the edges whose weights changed. Edges that did not change are not listed.
+     */
+    public static final class EdgeUpdate {
+        private final CampusGraph previous;
+        private final CampusGraph graph;
+        private final int[] edges;
+
+        private EdgeUpdate(CampusGraph previous, CampusGraph graph, int[] edges) {
+            this.previous = previous;
+            this.graph = graph;
+            this.edges = edges;
+        }
+
+        public CampusGraph getPrevious() {
+            return previous;
+        }
+
+        public CampusGraph getGraph() {
+            return graph;
+        }
+
+        public int[] getEdges() {
+            return edges.clone();
+        }
+
+        /**
+         * Returns true if no edge got shorter, so a shortest route avoiding the changed edges is still shortest
+         */
+        public boolean isLengthening() {
+            for (int edge : edges) {
+                if (graph.weight(edge) < previous.weight(edge)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Read-only view of a graph's nodes as locations, built one at a time as they are asked for
+     */
+    private static final class GraphLocations extends AbstractMap<String, Location> {
+        private final CampusGraph graph;
+
+        GraphLocations(CampusGraph graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public Location get(Object name) {
+            int node = name instanceof String ? graph.idOf((String) name) : -1;
+            return node < 0 ? null : graph.toLocation(node);
+        }
+
+        @Override
+        public boolean containsKey(Object name) {
+            return name instanceof String && graph.idOf((String) name) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return graph.getNodeCount();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return new NodeNames(graph);
+        }
+
+        @Override
+        public Set<Entry<String, Location>> entrySet() {
+            return new NodeEntries<>(graph, graph::toLocation);
+        }
+    }
+
+    /**
+     * Read-only view of a graph's edges as neighbour-to-distance maps
+     */
+    private static final class GraphDistances extends AbstractMap<String, Map<String, Double>> {
+        private final CampusGraph graph;
+
+        GraphDistances(CampusGraph graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public Map<String, Double> get(Object name) {
+            int node = name instanceof String ? graph.idOf((String) name) : -1;
+            return node < 0 ? null : neighbors(node);
+        }
+
+        @Override
+        public boolean containsKey(Object name) {
+            return name instanceof String && graph.idOf((String) name) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return graph.getNodeCount();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return new NodeNames(graph);
+        }
+
+        @Override
+        public Set<Entry<String, Map<String, Double>>> entrySet() {
+            return new NodeEntries<>(graph, this::neighbors);
+        }
+
+        private Map<String, Double> neighbors(int node) {
+            Map<String, Double> neighbors = new HashMap<>();
+            for (int e = graph.edgeStart(node); e < graph.edgeEnd(node); e++) {
+                neighbors.put(graph.nameOf(graph.target(e)), graph.weight(e));
+            }
+            return Collections.unmodifiableMap(neighbors);
+        }
+    }
+
+    private static final class NodeNames extends AbstractSet<String> {
+        private final CampusGraph graph;
+
+        NodeNames(CampusGraph graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public boolean contains(Object name) {
+            return name instanceof String && graph.idOf((String) name) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return graph.getNodeCount();
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int node;
+
+                @Override
+                public boolean hasNext() {
+                    return node < graph.getNodeCount();
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return graph.nameOf(node++);
+                }
+            };
+        }
+    }
+
+    private static final class NodeEntries<V> extends AbstractSet<Map.Entry<String, V>> {
+        private final CampusGraph graph;
+        private final IntFunction<V> value;
+
+        NodeEntries(CampusGraph graph, IntFunction<V> value) {
+            this.graph = graph;
+            this.value = value;
+        }
+
+        @Override
+        public int size() {
+            return graph.getNodeCount();
+        }
+
+        @Override
+        public Iterator<Map.Entry<String, V>> iterator() {
+            return new Iterator<Map.Entry<String, V>>() {
+                private int node;
+
+                @Override
+                public boolean hasNext() {
+                    return node < graph.getNodeCount();
+                }
+
+                @Override
+                public Map.Entry<String, V> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int current = node++;
+                    return new AbstractMap.SimpleImmutableEntry<>(graph.nameOf(current), value.apply(current));
+                }
+            };
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,250 @@
+package com.ugnavigate.models;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Inverted index over the names, categories and landmarks of a {@link CampusGraph}, built once per map version.
+ * Names are split into normalized tokens (lower case, accents and punctuation removed). The distinct tokens are kept
+ * sorted, so every token starting with a prefix is one contiguous range of the dictionary, and each token points at
+ * the ascending ids of the nodes whose names contain it.
+ * Lookups cost time in proportion to the postings they touch rather than the number of locations.
+ */
+public final class PlaceIndex {
+    private static final int[] NONE = new int[0];
+
+    private final String[] tokens;
+    private final int[] postingOffsets;
+    private final int[] postings;
+    private final Map<String, int[]> categoryNodes;
+    private final Map<String, int[]> landmarkNodes;
+    private final List<String> categories;
+    private final List<String> landmarks;
+
+    private PlaceIndex(String[] tokens, int[] postingOffsets, int[] postings, Map<String, int[]> categoryNodes,
+            Map<String, int[]> landmarkNodes, List<String> categories, List<String> landmarks) {
+        this.tokens = tokens;
+        this.postingOffsets = postingOffsets;
+        this.postings = postings;
+        this.categoryNodes = categoryNodes;
+        this.landmarkNodes = landmarkNodes;
+        this.categories = categories;
+        this.landmarks = landmarks;
+    }
+
+    public static PlaceIndex build(CampusGraph graph) {
+        int n = graph.getNodeCount();
+        Map<String, IntList> nodesByToken = new HashMap<>();
+        Map<String, IntList> nodesByCategory = new HashMap<>();
+        Map<String, IntList> nodesByLandmark = new HashMap<>();
+        Set<String> categories = new LinkedHashSet<>();
+        Set<String> landmarks = new LinkedHashSet<>();
+
+        for (int node = 0; node < n; node++) {
+            for (String token : new LinkedHashSet<>(tokenize(graph.nameOf(node)))) {
+                nodesByToken.computeIfAbsent(token, t -> new IntList()).add(node);
+            }
+            String category = graph.category(node);
+            categories.add(category);
+            nodesByCategory.computeIfAbsent(normalize(category), c -> new IntList()).add(node);
+            for (String landmark : graph.landmarks(node)) {
+                landmarks.add(landmark);
+                IntList owners = nodesByLandmark.computeIfAbsent(normalize(landmark), l -> new IntList());
+                // A node may list the same landmark twice
+                if (owners.size == 0 || owners.values[owners.size - 1] != node) {
+                    owners.add(node);
+                }
+            }
+        }
+
+        String[] tokens = nodesByToken.keySet().toArray(new String[0]);
+        Arrays.sort(tokens);
+        int[] postingOffsets = new int[tokens.length + 1];
+        for (int i = 0; i < tokens.length; i++) {
+            postingOffsets[i + 1] = postingOffsets[i] + nodesByToken.get(tokens[i]).size;
+        }
+        int[] postings = new int[postingOffsets[tokens.length]];
+        for (int i = 0; i < tokens.length; i++) {
+            IntList nodes = nodesByToken.get(tokens[i]);
+            System.arraycopy(nodes.values, 0, postings, postingOffsets[i], nodes.size);
+        }
+
+        return new PlaceIndex(tokens, postingOffsets, postings, toArrays(nodesByCategory), toArrays(nodesByLandmark),
+                Collections.unmodifiableList(new ArrayList<>(categories)),
+                Collections.unmodifiableList(new ArrayList<>(landmarks)));
+    }
+
+    /**
+     * Lower-cases text and strips accents, so accented and plain spellings compare equal
+     */
+    public static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text == null ? "" : text, Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}+", "").toLowerCase(Locale.ROOT).trim();
+    }
+
+    /**
+     * Splits normalized text into its runs of letters and digits
+     */
+    public static List<String> tokenize(String text) {
+        List<String> result = new ArrayList<>();
+        for (String token : normalize(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ids of the nodes whose names contain, for every word of the query, a word starting with it.
+     * "comp sci" matches "Computer Science Department". Ids are in ascending order.
+     */
+    public int[] nodesMatching(String query) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return NONE;
+        }
+        int[] result = null;
+        for (String word : words) {
+            int[] nodes = nodesWithTokenPrefix(word);
+            result = result == null ? nodes : intersect(result, nodes);
+            if (result.length == 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ids of the nodes with a name token starting with the prefix, in ascending order
+     */
+    public int[] nodesWithTokenPrefix(String prefix) {
+        int from = lowerBound(prefix);
+        int to = from;
+        while (to < tokens.length && tokens[to].startsWith(prefix)) {
+            to++;
+        }
+        if (to - from == 1) {
+            return Arrays.copyOfRange(postings, postingOffsets[from], postingOffsets[to]);
+        }
+        // Postings of several tokens may share nodes, so merge them through a sorted set of ids
+        int[] merged = Arrays.copyOfRange(postings, postingOffsets[from], postingOffsets[to]);
+        Arrays.sort(merged);
+        int distinct = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (i == 0 || merged[i] != merged[i - 1]) {
+                merged[distinct++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, distinct);
+    }
+
+    /**
+     * Returns the ids of the nodes in a category, ignoring case
+     */
+    public int[] nodesInCategory(String category) {
+        return categoryNodes.getOrDefault(normalize(category), NONE).clone();
+    }
+
+    /**
+     * Returns the ids of the nodes that list the landmark, ignoring case
+     */
+    public int[] nodesWithLandmark(String landmark) {
+        return landmarkNodes.getOrDefault(normalize(landmark), NONE).clone();
+    }
+
+    /**
+     * Returns the ids of the nodes that list the landmark or whose names match it
+     */
+    public int[] nodesNearLandmark(String landmark) {
+        return union(nodesWithLandmark(landmark), nodesMatching(landmark));
+    }
+
+    /**
+     * Returns the distinct categories in the order they first appear
+     */
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Returns the distinct landmarks in the order they first appear
+     */
+    public List<String> getLandmarks() {
+        return landmarks;
+    }
+
+    public int getTokenCount() {
+        return tokens.length;
+    }
+
+    // The index of the first token not less than the key
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = tokens.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length;) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[count++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, IntList> lists) {
+        Map<String, int[]> arrays = new HashMap<>();
+        for (Map.Entry<String, IntList> entry : lists.entrySet()) {
+            arrays.put(entry.getKey(), Arrays.copyOf(entry.getValue().values, entry.getValue().size));
+        }
+        return arrays;
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
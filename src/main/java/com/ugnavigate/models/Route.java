@@ -10,6 +10,7 @@ public class Route {
     private List<String> landmarks;
     private String algorithm;
     private String description;
+    private long mapVersion;
 
     public Route(List<String> path, double totalDistance, long estimatedTime, String algorithm) {
         this.path = path;
@@ -54,6 +55,17 @@ public class Route {
         this.description = description;
     }
 
+    /**
+     * Returns the version of the campus map the route was computed on
+     */
+    public long getMapVersion() {
+        return mapVersion;
+    }
+
+    public void setMapVersion(long mapVersion) {
+        this.mapVersion = mapVersion;
+    }
+
     public void addLandmark(String landmark) {
         if (!landmarks.contains(landmark)) {
             landmarks.add(landmark);
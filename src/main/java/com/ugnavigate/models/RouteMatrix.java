@@ -0,0 +1,46 @@
+package com.ugnavigate.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Distances (km) and estimated times (minutes) from every source to every target.
+ * Rows follow the sources and columns the targets; unknown or unreachable pairs are null.
+ */
+public class RouteMatrix {
+    private List<String> sources;
+    private List<String> targets;
+    private Double[][] distances;
+    private Long[][] times;
+
+    public RouteMatrix(List<String> sources, List<String> targets, Double[][] distances, Long[][] times) {
+        this.sources = sources;
+        this.targets = targets;
+        this.distances = distances;
+        this.times = times;
+    }
+
+    public List<String> getSources() {
+        return new ArrayList<>(sources);
+    }
+
+    public List<String> getTargets() {
+        return new ArrayList<>(targets);
+    }
+
+    public Double[][] getDistances() {
+        return distances;
+    }
+
+    public Long[][] getTimes() {
+        return times;
+    }
+
+    public Double getDistance(int source, int target) {
+        return distances[source][target];
+    }
+
+    public Long getTime(int source, int target) {
+        return times[source][target];
+    }
+}
@@ -0,0 +1,394 @@
+package com.ugnavigate.models;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over the node coordinates and edge segments of a {@link CampusGraph}, for snapping GPS positions.
+ * Coordinates are projected onto a plane around the map's mean latitude, which is accurate to well under a metre
+ * across a campus or city. Cells are sized to hold about two nodes each; a node sits in the cell of its position and a
+ * segment in every cell it passes through. Queries search rings of cells outwards from the query point and
+ * stop once the next ring cannot hold anything closer, so they touch a handful of cells whatever the map size.
+ * Nodes at (0, 0) were never given a position, such as those created only by a connection, so they and their
+ * segments stay out of the grid rather than stretching it across the globe.
+ */
+public final class SpatialIndex {
+    private static final double KM_PER_DEGREE = 6371.0088 * Math.PI / 180.0;
+    private static final double MIN_CELL_KM = 0.001;
+
+    private final CampusGraph graph;
+    private final double xScale;
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    // Projected node positions in kilometres
+    private final double[] xs;
+    private final double[] ys;
+    // Node ids and segment edge ids per cell, in compressed sparse row form
+    private final int[] nodeOffsets;
+    private final int[] cellNodes;
+    private final int[] segmentOffsets;
+    private final int[] cellSegments;
+
+    private SpatialIndex(CampusGraph graph, double xScale, double minX, double minY, double cellSize, int columns,
+            int rows, double[] xs, double[] ys, int[] nodeOffsets, int[] cellNodes, int[] segmentOffsets,
+            int[] cellSegments) {
+        this.graph = graph;
+        this.xScale = xScale;
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        this.columns = columns;
+        this.rows = rows;
+        this.xs = xs;
+        this.ys = ys;
+        this.nodeOffsets = nodeOffsets;
+        this.cellNodes = cellNodes;
+        this.segmentOffsets = segmentOffsets;
+        this.cellSegments = cellSegments;
+    }
+
+    public static SpatialIndex build(CampusGraph graph) {
+        int n = graph.getNodeCount();
+        int placed = 0;
+        double meanLatitude = 0.0;
+        for (int v = 0; v < n; v++) {
+            if (isPlaced(graph, v)) {
+                placed++;
+                meanLatitude += graph.latitude(v);
+            }
+        }
+        meanLatitude = placed == 0 ? 0.0 : meanLatitude / placed;
+        double xScale = KM_PER_DEGREE * Math.cos(Math.toRadians(meanLatitude));
+
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < n; v++) {
+            xs[v] = graph.longitude(v) * xScale;
+            ys[v] = graph.latitude(v) * KM_PER_DEGREE;
+            if (!isPlaced(graph, v)) {
+                continue;
+            }
+            minX = Math.min(minX, xs[v]);
+            minY = Math.min(minY, ys[v]);
+            maxX = Math.max(maxX, xs[v]);
+            maxY = Math.max(maxY, ys[v]);
+        }
+        if (placed == 0) {
+            minX = minY = maxX = maxY = 0.0;
+        }
+        // About two nodes per cell, and never more cells than nodes along either side
+        double width = maxX - minX;
+        double height = maxY - minY;
+        int slots = Math.max(1, placed);
+        double cellSize = Math.max(MIN_CELL_KM,
+                Math.max(Math.sqrt(2.0 * width * height / slots), 2.0 * Math.max(width, height) / slots));
+        int columns = (int) (width / cellSize) + 1;
+        int rows = (int) (height / cellSize) + 1;
+        SpatialIndex layout = new SpatialIndex(graph, xScale, minX, minY, cellSize, columns, rows, xs, ys, null, null,
+                null, null);
+
+        int[] nodeOffsets = new int[columns * rows + 1];
+        for (int v = 0; v < n; v++) {
+            if (isPlaced(graph, v)) {
+                nodeOffsets[layout.cellOf(v) + 1]++;
+            }
+        }
+        prefixSum(nodeOffsets);
+        int[] cellNodes = new int[placed];
+        int[] cursor = Arrays.copyOf(nodeOffsets, nodeOffsets.length - 1);
+        for (int v = 0; v < n; v++) {
+            if (isPlaced(graph, v)) {
+                cellNodes[cursor[layout.cellOf(v)]++] = v;
+            }
+        }
+
+        // One segment per connection: skip an edge that is the reverse of an edge from a lower id
+        int[] segments = new int[graph.getEdgeCount()];
+        int segmentCount = 0;
+        for (int u = 0; u < n; u++) {
+            if (!isPlaced(graph, u)) {
+                continue;
+            }
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.target(e);
+                if (u != v && isPlaced(graph, v) && (u < v || graph.findEdge(v, u) < 0)) {
+                    segments[segmentCount++] = e;
+                }
+            }
+        }
+        int[] segmentOffsets = new int[columns * rows + 1];
+        for (int i = 0; i < segmentCount; i++) {
+            for (int cell : layout.segmentCells(segments[i])) {
+                segmentOffsets[cell + 1]++;
+            }
+        }
+        prefixSum(segmentOffsets);
+        int[] cellSegments = new int[segmentOffsets[segmentOffsets.length - 1]];
+        cursor = Arrays.copyOf(segmentOffsets, segmentOffsets.length - 1);
+        for (int i = 0; i < segmentCount; i++) {
+            for (int cell : layout.segmentCells(segments[i])) {
+                cellSegments[cursor[cell]++] = segments[i];
+            }
+        }
+        return new SpatialIndex(graph, xScale, minX, minY, cellSize, columns, rows, xs, ys, nodeOffsets, cellNodes,
+                segmentOffsets, cellSegments);
+    }
+
+    /**
+     * Returns the same grid over a graph that differs only in edge weights, sharing all of its arrays
+     */
+    public SpatialIndex withGraph(CampusGraph graph) {
+        return new SpatialIndex(graph, xScale, minX, minY, cellSize, columns, rows, xs, ys, nodeOffsets, cellNodes,
+                segmentOffsets, cellSegments);
+    }
+
+    /**
+     * Returns the ids of the k nodes closest to a position, nearest first
+     */
+    public int[] nearestNodes(double latitude, double longitude, int k) {
+        int count = Math.min(k, cellNodes.length);
+        if (count <= 0) {
+            return new int[0];
+        }
+        double x = longitude * xScale;
+        double y = latitude * KM_PER_DEGREE;
+        int column = column(x);
+        int row = row(y);
+        // The k best so far, sorted by squared distance
+        int[] best = new int[count];
+        double[] bestDistances = new double[count];
+        int found = 0;
+        for (int ring = 0; ring <= Math.max(columns, rows); ring++) {
+            // Every cell of this ring is at least ring - 1 cells away from the query point
+            if (ring > 0 && found == count && square((ring - 1) * cellSize) > bestDistances[count - 1]) {
+                break;
+            }
+            // The cells on the square ring at Chebyshev distance ring, clipped to the grid; rows strictly inside the
+            // ring only meet it at its left and right sides
+            for (int r = Math.max(0, row - ring), lastRow = Math.min(rows - 1, row + ring); r <= lastRow; r++) {
+                int step = r == row - ring || r == row + ring ? 1 : 2 * ring;
+                for (int c = column - ring; c <= column + ring; c += step) {
+                    if (c < 0 || c >= columns) {
+                        continue;
+                    }
+                    int cell = r * columns + c;
+                    for (int i = nodeOffsets[cell]; i < nodeOffsets[cell + 1]; i++) {
+                        int node = cellNodes[i];
+                        double distance = square(xs[node] - x) + square(ys[node] - y);
+                        if (found < count || distance < bestDistances[count - 1]) {
+                            int at = found < count ? found++ : count - 1;
+                            while (at > 0 && bestDistances[at - 1] > distance) {
+                                best[at] = best[at - 1];
+                                bestDistances[at] = bestDistances[at - 1];
+                                at--;
+                            }
+                            best[at] = node;
+                            bestDistances[at] = distance;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the closest point on any open connection to a position, or null if there is none
+     */
+    public Snap nearestEdge(double latitude, double longitude) {
+        double x = longitude * xScale;
+        double y = latitude * KM_PER_DEGREE;
+        int column = column(x);
+        int row = row(y);
+        int bestEdge = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        double bestFraction = 0.0;
+        for (int ring = 0; ring <= Math.max(columns, rows); ring++) {
+            if (ring > 0 && bestEdge >= 0 && square((ring - 1) * cellSize) > bestDistance) {
+                break;
+            }
+            for (int r = Math.max(0, row - ring), lastRow = Math.min(rows - 1, row + ring); r <= lastRow; r++) {
+                int step = r == row - ring || r == row + ring ? 1 : 2 * ring;
+                for (int c = column - ring; c <= column + ring; c += step) {
+                    if (c < 0 || c >= columns) {
+                        continue;
+                    }
+                    int cell = r * columns + c;
+                    for (int i = segmentOffsets[cell]; i < segmentOffsets[cell + 1]; i++) {
+                        int edge = cellSegments[i];
+                        // Closed connections carry an infinite weight
+                        if (!(graph.weight(edge) < Double.POSITIVE_INFINITY)) {
+                            continue;
+                        }
+                        int u = graph.source(edge);
+                        int v = graph.target(edge);
+                        double dx = xs[v] - xs[u];
+                        double dy = ys[v] - ys[u];
+                        double length = dx * dx + dy * dy;
+                        double fraction = length == 0.0 ? 0.0
+                                : Math.max(0.0, Math.min(1.0, ((x - xs[u]) * dx + (y - ys[u]) * dy) / length));
+                        double distance = square(xs[u] + fraction * dx - x) + square(ys[u] + fraction * dy - y);
+                        if (distance < bestDistance) {
+                            bestEdge = edge;
+                            bestDistance = distance;
+                            bestFraction = fraction;
+                        }
+                    }
+                }
+            }
+        }
+        if (bestEdge < 0) {
+            return null;
+        }
+        int from = graph.source(bestEdge);
+        int to = graph.target(bestEdge);
+        return new Snap(graph, bestEdge, from, to, bestFraction, Math.sqrt(bestDistance),
+                graph.latitude(from) + bestFraction * (graph.latitude(to) - graph.latitude(from)),
+                graph.longitude(from) + bestFraction * (graph.longitude(to) - graph.longitude(from)));
+    }
+
+    /**
+     * Returns the straight-line distance in kilometres from a position to a node
+     */
+    public double distanceKm(double latitude, double longitude, int node) {
+        return Math.sqrt(square(xs[node] - longitude * xScale) + square(ys[node] - latitude * KM_PER_DEGREE));
+    }
+
+    public int getCellCount() {
+        return columns * rows;
+    }
+
+    private int cellOf(int node) {
+        return row(ys[node]) * columns + column(xs[node]);
+    }
+
+    // The cells an edge's segment passes through, found column by column, so long segments cost their length
+    private int[] segmentCells(int edge) {
+        int u = graph.source(edge);
+        int v = graph.target(edge);
+        if (xs[v] < xs[u]) {
+            int swap = u;
+            u = v;
+            v = swap;
+        }
+        double dx = xs[v] - xs[u];
+        double slope = dx == 0.0 ? 0.0 : (ys[v] - ys[u]) / dx;
+        int fromColumn = column(xs[u]);
+        int toColumn = column(xs[v]);
+        int[] cells = new int[8];
+        int count = 0;
+        for (int c = fromColumn; c <= toColumn; c++) {
+            // The part of the segment within this column
+            double left = Math.max(xs[u], minX + c * cellSize);
+            double right = Math.min(xs[v], minX + (c + 1) * cellSize);
+            double yLeft = dx == 0.0 ? ys[u] : ys[u] + (left - xs[u]) * slope;
+            double yRight = dx == 0.0 ? ys[v] : ys[u] + (right - xs[u]) * slope;
+            int toRow = row(Math.max(yLeft, yRight));
+            for (int r = row(Math.min(yLeft, yRight)); r <= toRow; r++) {
+                if (count == cells.length) {
+                    cells = Arrays.copyOf(cells, count * 2);
+                }
+                cells[count++] = r * columns + c;
+            }
+        }
+        return Arrays.copyOf(cells, count);
+    }
+
+    // Positions outside the grid fall into its border cells
+    private int column(double x) {
+        return (int) Math.max(0, Math.min(columns - 1, Math.floor((x - minX) / cellSize)));
+    }
+
+    private int row(double y) {
+        return (int) Math.max(0, Math.min(rows - 1, Math.floor((y - minY) / cellSize)));
+    }
+
+    private static boolean isPlaced(CampusGraph graph, int node) {
+        return graph.latitude(node) != 0.0 || graph.longitude(node) != 0.0;
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    private static void prefixSum(int[] offsets) {
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+    }
+
+    /**
+     * A position snapped onto a connection: the edge, how far along it from its source node, and how far the
+     * position was from it in kilometres
+     */
+    public static final class Snap {
+        private final CampusGraph graph;
+        private final int edge;
+        private final int from;
+        private final int to;
+        private final double fraction;
+        private final double distance;
+        private final double latitude;
+        private final double longitude;
+
+        private Snap(CampusGraph graph, int edge, int from, int to, double fraction, double distance,
+                double latitude, double longitude) {
+            this.graph = graph;
+            this.edge = edge;
+            this.from = from;
+            this.to = to;
+            this.fraction = fraction;
+            this.distance = distance;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        public int getEdge() {
+            return edge;
+        }
+
+        public int getFrom() {
+            return from;
+        }
+
+        public int getTo() {
+            return to;
+        }
+
+        public double getFraction() {
+            return fraction;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        /**
+         * Returns the end of the connection closer along it to the snapped point
+         */
+        public int getNearestNode() {
+            return fraction <= 0.5 ? from : to;
+        }
+
+        /**
+         * Returns the distance in kilometres along the connection from the snapped point to its nearer end
+         */
+        public double getDistanceToNearestNode() {
+            return graph.weight(edge) * Math.min(fraction, 1.0 - fraction);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.ugnavigate.models;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Strings numbered 0..n-1, optionally with a reverse lookup by value.
+ * Held either as ordinary heap objects or as UTF-8 bytes read in place from a mapped graph file.
+ */
+abstract class StringTable {
+
+    abstract int size();
+
+    abstract String get(int index);
+
+    /**
+     * Returns the index of a value, or -1 if it is absent or the table has no reverse lookup
+     */
+    abstract int indexOf(String value);
+
+    static StringTable of(String[] values, Map<String, Integer> index) {
+        return new Heap(values, index);
+    }
+
+    static StringTable mapped(IntBuffer offsets, ByteBuffer bytes, IntBuffer hashSlots) {
+        return new Mapped(offsets, bytes, hashSlots);
+    }
+
+    /**
+     * The probe start for a value in a hash table of the given power-of-two capacity.
+     * String.hashCode is fixed by the language, so tables written by one JVM can be probed by another.
+     */
+    static int bucket(String value, int capacity) {
+        int h = value.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (capacity - 1);
+    }
+
+    private static final class Heap extends StringTable {
+        private final String[] values;
+        private final Map<String, Integer> index;
+
+        Heap(String[] values, Map<String, Integer> index) {
+            this.values = values;
+            this.index = index;
+        }
+
+        @Override
+        int size() {
+            return values.length;
+        }
+
+        @Override
+        String get(int i) {
+            return values[i];
+        }
+
+        @Override
+        int indexOf(String value) {
+            Integer i = index == null || value == null ? null : index.get(value);
+            return i == null ? -1 : i;
+        }
+    }
+
+    private static final class Mapped extends StringTable {
+        private final IntBuffer offsets;
+        private final ByteBuffer bytes;
+        // Open addressing on String.hashCode, holding index + 1 so that zero marks an empty bucket
+        private final IntBuffer hashSlots;
+
+        Mapped(IntBuffer offsets, ByteBuffer bytes, IntBuffer hashSlots) {
+            this.offsets = offsets;
+            this.bytes = bytes;
+            this.hashSlots = hashSlots;
+        }
+
+        @Override
+        int size() {
+            return offsets.capacity() - 1;
+        }
+
+        @Override
+        String get(int i) {
+            int start = offsets.get(i);
+            byte[] utf8 = new byte[offsets.get(i + 1) - start];
+            for (int b = 0; b < utf8.length; b++) {
+                utf8[b] = bytes.get(start + b);
+            }
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        int indexOf(String value) {
+            if (hashSlots == null || value == null) {
+                return -1;
+            }
+            byte[] key = value.getBytes(StandardCharsets.UTF_8);
+            int mask = hashSlots.capacity() - 1;
+            for (int bucket = bucket(value, hashSlots.capacity()); ; bucket = (bucket + 1) & mask) {
+                int slot = hashSlots.get(bucket);
+                if (slot == 0) {
+                    return -1;
+                }
+                if (matches(slot - 1, key)) {
+                    return slot - 1;
+                }
+            }
+        }
+
+        private boolean matches(int i, byte[] key) {
+            int start = offsets.get(i);
+            if (offsets.get(i + 1) - start != key.length) {
+                return false;
+            }
+            for (int b = 0; b < key.length; b++) {
+                if (bytes.get(start + b) != key[b]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
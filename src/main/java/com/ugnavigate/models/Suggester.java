@@ -0,0 +1,235 @@
+package com.ugnavigate.models;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Prefix autocomplete over the names, landmarks and descriptions of a {@link CampusGraph}.
+ * Every suffix of an entry's normalized text that starts at a word is a key ("balme library" and "library"), and the
+ * keys are kept sorted, so the keys starting with a query form one contiguous range. A max segment tree over the key
+ * weights then yields the k heaviest entries of that range in O(k log n) without visiting the others.
+ * <p>
+ * An entry weighs more for a name than for a landmark or description, and more for a well-connected or often-routed
+ * location. Route requests are counted per location; the weights move on a log scale, so the tree is only touched
+ * when a count doubles. Queries never lock, and one racing such an update may still rank by the old weight.
+ */
+public final class Suggester {
+    public static final String LOCATION = "location";
+    public static final String LANDMARK = "landmark";
+    public static final String DESCRIPTION = "description";
+
+    private static final String[] TYPES = { LOCATION, LANDMARK, DESCRIPTION };
+    private static final float[] TYPE_WEIGHTS = { 4.0f, 2.0f, 1.0f };
+
+    private final CampusGraph graph;
+    private final String[] texts;
+    private final int[] entryNodes;
+    private final byte[] entryTypes;
+    private final String[] keys;
+    private final int[] keyEntries;
+    // Entries of each node, and the key positions of each entry, in compressed sparse row form
+    private final int[] nodeEntryOffsets;
+    private final int[] nodeEntries;
+    private final int[] entryKeyOffsets;
+    private final int[] entryKeys;
+    private final AtomicIntegerArray uses;
+    private final int leaves;
+    // Max segment tree: leaf i is at leaves + i, and node j covers its children 2j and 2j + 1
+    private final float[] tree;
+
+    private Suggester(CampusGraph graph, String[] texts, int[] entryNodes, byte[] entryTypes, String[] keys,
+            int[] keyEntries) {
+        this.graph = graph;
+        this.texts = texts;
+        this.entryNodes = entryNodes;
+        this.entryTypes = entryTypes;
+        this.keys = keys;
+        this.keyEntries = keyEntries;
+
+        int n = graph.getNodeCount();
+        nodeEntryOffsets = new int[n + 1];
+        for (int node : entryNodes) {
+            nodeEntryOffsets[node + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            nodeEntryOffsets[v + 1] += nodeEntryOffsets[v];
+        }
+        nodeEntries = new int[entryNodes.length];
+        int[] cursor = Arrays.copyOf(nodeEntryOffsets, n);
+        for (int entry = 0; entry < entryNodes.length; entry++) {
+            nodeEntries[cursor[entryNodes[entry]]++] = entry;
+        }
+
+        entryKeyOffsets = new int[texts.length + 1];
+        for (int entry : keyEntries) {
+            entryKeyOffsets[entry + 1]++;
+        }
+        for (int e = 0; e < texts.length; e++) {
+            entryKeyOffsets[e + 1] += entryKeyOffsets[e];
+        }
+        entryKeys = new int[keyEntries.length];
+        cursor = Arrays.copyOf(entryKeyOffsets, texts.length);
+        for (int position = 0; position < keyEntries.length; position++) {
+            entryKeys[cursor[keyEntries[position]]++] = position;
+        }
+
+        uses = new AtomicIntegerArray(n);
+        leaves = Integer.highestOneBit(Math.max(1, keys.length * 2 - 1));
+        // Padding leaves weigh 0, below every real entry
+        tree = new float[leaves * 2];
+        for (int position = 0; position < keys.length; position++) {
+            tree[leaves + position] = weight(keyEntries[position]);
+        }
+        for (int i = leaves - 1; i >= 1; i--) {
+            tree[i] = Math.max(tree[2 * i], tree[2 * i + 1]);
+        }
+    }
+
+    public static Suggester build(CampusGraph graph) {
+        List<String> texts = new ArrayList<>();
+        List<Integer> nodes = new ArrayList<>();
+        List<Integer> types = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<Integer> keyEntries = new ArrayList<>();
+
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            // The same text can be a location's name, landmark and description; suggest it once
+            Set<String> seen = new HashSet<>();
+            List<String> candidates = new ArrayList<>();
+            candidates.add(graph.nameOf(node));
+            candidates.addAll(graph.landmarks(node));
+            candidates.add(graph.description(node));
+            for (int i = 0; i < candidates.size(); i++) {
+                List<String> tokens = PlaceIndex.tokenize(candidates.get(i));
+                if (tokens.isEmpty() || !seen.add(String.join(" ", tokens))) {
+                    continue;
+                }
+                int entry = texts.size();
+                texts.add(candidates.get(i));
+                nodes.add(node);
+                types.add(i == 0 ? 0 : i == candidates.size() - 1 ? 2 : 1);
+                for (int start = 0; start < tokens.size(); start++) {
+                    keys.add(String.join(" ", tokens.subList(start, tokens.size())));
+                    keyEntries.add(entry);
+                }
+            }
+        }
+
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(keys::get));
+        String[] sortedKeys = new String[order.length];
+        int[] sortedEntries = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys.get(order[i]);
+            sortedEntries[i] = keyEntries.get(order[i]);
+        }
+        byte[] entryTypes = new byte[types.size()];
+        for (int i = 0; i < entryTypes.length; i++) {
+            entryTypes[i] = (byte) (int) types.get(i);
+        }
+        return new Suggester(graph, texts.toArray(new String[0]), nodes.stream().mapToInt(Integer::intValue).toArray(),
+                entryTypes, sortedKeys, sortedEntries);
+    }
+
+    /**
+     * Returns up to limit of the heaviest entries with a word starting with the query, one per text and location.
+     * A query of several words matches consecutive words, so "balme li" finds "Balme Library".
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        List<Suggestion> result = new ArrayList<>();
+        String prefix = String.join(" ", PlaceIndex.tokenize(query));
+        if (prefix.isEmpty() || limit <= 0) {
+            return result;
+        }
+        int from = lowerBound(prefix);
+        // Keys hold only letters, digits and spaces, all below this character
+        int to = lowerBound(prefix + Character.MAX_VALUE);
+
+        // Max-heap of tree nodes keyed by weight; positive float bits sort like the floats themselves
+        PriorityQueue<Long> heap = new PriorityQueue<>(Comparator.reverseOrder());
+        for (int l = from + leaves, r = to + leaves; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                push(heap, l++);
+            }
+            if ((r & 1) == 1) {
+                push(heap, --r);
+            }
+        }
+        Set<Integer> emitted = new HashSet<>();
+        while (result.size() < limit && !heap.isEmpty()) {
+            int node = (int) (heap.poll() & 0xFFFFFFFFL);
+            if (node < leaves) {
+                push(heap, 2 * node);
+                push(heap, 2 * node + 1);
+                continue;
+            }
+            int entry = keyEntries[node - leaves];
+            if (emitted.add(entry)) {
+                result.add(new Suggestion(texts[entry], graph.nameOf(entryNodes[entry]), TYPES[entryTypes[entry]]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts a route request to or from a location, which may lift its entries in later suggestions
+     */
+    public void recordUse(int node) {
+        int count = uses.incrementAndGet(node);
+        if ((count & (count - 1)) == 0) {
+            refresh(node);
+        }
+    }
+
+    public int getKeyCount() {
+        return keys.length;
+    }
+
+    private synchronized void refresh(int node) {
+        for (int i = nodeEntryOffsets[node]; i < nodeEntryOffsets[node + 1]; i++) {
+            int entry = nodeEntries[i];
+            float weight = weight(entry);
+            for (int k = entryKeyOffsets[entry]; k < entryKeyOffsets[entry + 1]; k++) {
+                int position = leaves + entryKeys[k];
+                tree[position] = weight;
+                for (position >>= 1; position >= 1; position >>= 1) {
+                    tree[position] = Math.max(tree[2 * position], tree[2 * position + 1]);
+                }
+            }
+        }
+    }
+
+    // Type weight times log2(2 + popularity), popularity being the connections plus the uses rounded down to a
+    // power of two
+    private float weight(int entry) {
+        int node = entryNodes[entry];
+        int count = uses.get(node);
+        int popularity = graph.edgeEnd(node) - graph.edgeStart(node) + (count == 0 ? 0 : Integer.highestOneBit(count));
+        return TYPE_WEIGHTS[entryTypes[entry]] * (float) (Math.log(2.0 + popularity) / Math.log(2.0));
+    }
+
+    private void push(PriorityQueue<Long> heap, int node) {
+        float weight = tree[node];
+        if (weight > 0.0f) {
+            heap.add(((long) Float.floatToIntBits(weight) << 32) | node);
+        }
+    }
+
+    // The index of the first key not less than the given one
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
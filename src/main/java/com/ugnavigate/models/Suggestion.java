@@ -0,0 +1,34 @@
+package com.ugnavigate.models;
+
+/**
+ * One autocomplete match: the text that matched, the location it leads to, and whether the text is the
+ * location's name, one of its landmarks or its description
+ */
+public class Suggestion {
+    private String text;
+    private String location;
+    private String type;
+
+    public Suggestion(String text, String location, String type) {
+        this.text = text;
+        this.location = location;
+        this.type = type;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + text + " -> " + location;
+    }
+}
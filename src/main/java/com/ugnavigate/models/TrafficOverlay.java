@@ -0,0 +1,92 @@
+package com.ugnavigate.models;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of live congestion: one travel-time multiplier per edge of a {@link CampusGraph},
+ * stamped with the traffic epoch it was published in.
+ * Updates copy the array and publish a new snapshot, so a search that reads one snapshot at the start
+ * sees consistent data throughout without taking any lock.
+ */
+public final class TrafficOverlay {
+    private final CampusGraph graph;
+    private final long epoch;
+    // Null until the first live update, meaning every multiplier is 1
+    private final float[] multipliers;
+
+    private TrafficOverlay(CampusGraph graph, long epoch, float[] multipliers) {
+        this.graph = graph;
+        this.epoch = epoch;
+        this.multipliers = multipliers;
+    }
+
+    /**
+     * Returns an overlay without live data for the graph, which may be null before any graph is known
+     */
+    public static TrafficOverlay empty(CampusGraph graph, long epoch) {
+        return new TrafficOverlay(graph, epoch, null);
+    }
+
+    public CampusGraph getGraph() {
+        return graph;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public float multiplier(int edge) {
+        return multipliers == null ? 1.0f : multipliers[edge];
+    }
+
+    /**
+     * Returns a copy with the given edges set to new multipliers; edges given as -1 are skipped
+     */
+    public TrafficOverlay with(int[] edges, float[] values, long epoch) {
+        float[] copy = multipliers != null ? multipliers.clone() : newMultipliers(graph.getEdgeCount());
+        for (int i = 0; i < edges.length; i++) {
+            if (edges[i] >= 0) {
+                copy[edges[i]] = values[i];
+            }
+        }
+        return new TrafficOverlay(graph, epoch, copy);
+    }
+
+    /**
+     * Returns the same data under a new epoch
+     */
+    public TrafficOverlay withEpoch(long epoch) {
+        return new TrafficOverlay(graph, epoch, multipliers);
+    }
+
+    /**
+     * Carries the live data over to a rebuilt graph, matching edges by the names of their endpoints.
+     * Edges that no longer exist are dropped.
+     */
+    public TrafficOverlay rebase(CampusGraph target) {
+        if (multipliers == null || graph == null || graph.hasSameEdges(target)) {
+            // Edge ids still match, e.g. after a connection was only closed or re-weighted
+            return new TrafficOverlay(target, epoch, graph == null ? null : multipliers);
+        }
+        float[] copy = newMultipliers(target.getEdgeCount());
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            int from = target.idOf(graph.nameOf(node));
+            if (from < 0) {
+                continue;
+            }
+            for (int e = graph.edgeStart(node); e < graph.edgeEnd(node); e++) {
+                int edge = target.findEdge(from, target.idOf(graph.nameOf(graph.target(e))));
+                if (multipliers[e] != 1.0f && edge >= 0) {
+                    copy[edge] = multipliers[e];
+                }
+            }
+        }
+        return new TrafficOverlay(target, epoch, copy);
+    }
+
+    private static float[] newMultipliers(int edgeCount) {
+        float[] values = new float[edgeCount];
+        Arrays.fill(values, 1.0f);
+        return values;
+    }
+}
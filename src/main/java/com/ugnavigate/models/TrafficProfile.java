@@ -0,0 +1,204 @@
+package com.ugnavigate.models;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Travel-time multipliers for every edge of a {@link CampusGraph} in each quarter-hour of the day.
+ * Most edges share one of a handful of daily patterns, so each distinct pattern is stored once as a row of
+ * SLOTS floats and every edge points at its row; a search stepping through the day stays within that row.
+ */
+public final class TrafficProfile {
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS = 24 * 60 / SLOT_MINUTES;
+
+    // Assume average speed of 5 km/h for walking
+    public static final double WALKING_SPEED_KMH = 5.0;
+
+    private final CampusGraph graph;
+    private final int[] rowOffsets;
+    private final float[] rows;
+
+    private TrafficProfile(CampusGraph graph, int[] rowOffsets, float[] rows) {
+        this.graph = graph;
+        this.rowOffsets = rowOffsets;
+        this.rows = rows;
+    }
+
+    /**
+     * Starts a profile for the graph with every multiplier set to 1
+     */
+    public static Builder builder(CampusGraph graph) {
+        return new Builder(graph);
+    }
+
+    /**
+     * Returns the slot containing a time given in minutes since midnight, wrapping past midnight
+     */
+    public static int slotOf(double minuteOfDay) {
+        int slot = (int) Math.floor(minuteOfDay / SLOT_MINUTES) % SLOTS;
+        return slot < 0 ? slot + SLOTS : slot;
+    }
+
+    public static int slotOf(LocalTime time) {
+        return slotOf(time.toSecondOfDay() / 60.0);
+    }
+
+    public CampusGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns this profile for a graph with the same edges, such as one where a connection was closed or re-weighted
+     */
+    public TrafficProfile rebase(CampusGraph target) {
+        if (!graph.hasSameEdges(target)) {
+            throw new IllegalArgumentException("The graph has different edges");
+        }
+        return new TrafficProfile(target, rowOffsets, rows);
+    }
+
+    public float multiplier(int edge, int slot) {
+        return rows[rowOffsets[edge] + slot];
+    }
+
+    /**
+     * Returns the minutes needed to walk an edge when entering it at the given minute of the day
+     */
+    public double travelMinutes(int edge, double departureMinute) {
+        return travelMinutes(edge, departureMinute, 1.0f);
+    }
+
+    /**
+     * Returns the minutes needed to walk an edge when entering it at the given minute of the day, with a live
+     * multiplier on top of the scheduled ones.
+     * The walking pace changes at each slot boundary crossed along the way rather than being fixed on entry,
+     * so leaving later never means arriving earlier and earliest-arrival searches stay exact.
+     */
+    public double travelMinutes(int edge, double departureMinute, float liveMultiplier) {
+        // Free-flow minutes still to walk
+        double remaining = graph.weight(edge) / WALKING_SPEED_KMH * 60;
+        if (!(remaining < Double.POSITIVE_INFINITY) || !(departureMinute < Double.POSITIVE_INFINITY)) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        int offset = rowOffsets[edge];
+        double time = departureMinute;
+        while (true) {
+            double multiplier = (double) rows[offset + slotOf(time)] * liveMultiplier;
+            double slotEnd = (Math.floor(time / SLOT_MINUTES) + 1) * SLOT_MINUTES;
+            if (time + remaining * multiplier <= slotEnd) {
+                return time + remaining * multiplier - departureMinute;
+            }
+            remaining -= (slotEnd - time) / multiplier;
+            time = slotEnd;
+        }
+    }
+
+    /**
+     * Walks a path of node ids edge by edge from the departure minute, with live congestion on top,
+     * returning the arrival minute
+     */
+    public double arrivalMinute(int[] path, double departureMinute, TrafficOverlay overlay) {
+        double time = departureMinute;
+        for (int i = 0; i + 1 < path.length; i++) {
+            int edge = graph.findEdge(path[i], path[i + 1]);
+            if (edge < 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+            time += travelMinutes(edge, time, overlay.multiplier(edge));
+        }
+        return time;
+    }
+
+    public static final class Builder {
+        private final CampusGraph graph;
+        private final int[] rowIds;
+        private final List<float[]> rows = new ArrayList<>();
+        private final Map<Row, Integer> rowIndex = new HashMap<>();
+
+        private Builder(CampusGraph graph) {
+            this.graph = graph;
+            this.rowIds = new int[graph.getEdgeCount()];
+            float[] unchanged = new float[SLOTS];
+            Arrays.fill(unchanged, 1.0f);
+            intern(unchanged);
+        }
+
+        public CampusGraph getGraph() {
+            return graph;
+        }
+
+        public Builder set(int edge, int slot, float multiplier) {
+            return set(edge, slot, slot + 1, multiplier);
+        }
+
+        /**
+         * Sets the multiplier for slots fromSlot (inclusive) to toSlot (exclusive)
+         */
+        public Builder set(int edge, int fromSlot, int toSlot, float multiplier) {
+            float[] row = rows.get(rowIds[edge]).clone();
+            Arrays.fill(row, fromSlot, toSlot, multiplier);
+            rowIds[edge] = intern(row);
+            return this;
+        }
+
+        /**
+         * Sets all SLOTS multipliers of an edge at once
+         */
+        public Builder set(int edge, float[] day) {
+            if (day.length != SLOTS) {
+                throw new IllegalArgumentException("A day has " + SLOTS + " slots, not " + day.length);
+            }
+            rowIds[edge] = intern(day.clone());
+            return this;
+        }
+
+        public TrafficProfile build() {
+            int[] rowOffsets = new int[rowIds.length];
+            for (int e = 0; e < rowIds.length; e++) {
+                rowOffsets[e] = rowIds[e] * SLOTS;
+            }
+            float[] packed = new float[rows.size() * SLOTS];
+            for (int r = 0; r < rows.size(); r++) {
+                System.arraycopy(rows.get(r), 0, packed, r * SLOTS, SLOTS);
+            }
+            return new TrafficProfile(graph, rowOffsets, packed);
+        }
+
+        private int intern(float[] row) {
+            Row key = new Row(row);
+            Integer id = rowIndex.get(key);
+            if (id == null) {
+                id = rows.size();
+                rows.add(row);
+                rowIndex.put(key, id);
+            }
+            return id;
+        }
+    }
+
+    private static final class Row {
+        private final float[] values;
+        private final int hash;
+
+        Row(float[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Row && Arrays.equals(values, ((Row) other).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.ugnavigate.services;
+
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The threads that solve batch route requests.
+ * Deliberately not an Executor: an Executor bean would stand in for Spring Boot's applicationTaskExecutor,
+ * which runs the streaming batch responses themselves.
+ */
+public class BatchExecutor {
+    private final ExecutorService executor;
+    private final int threads;
+
+    /**
+     * @param threads pool size, or 0 or less for one thread per available processor
+     */
+    public BatchExecutor(int threads) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(this.threads);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public <T> CompletionService<T> newCompletionService() {
+        return new ExecutorCompletionService<>(executor);
+    }
+
+    public void shutdownNow() {
+        executor.shutdownNow();
+    }
+}
@@ -1,14 +1,38 @@
 package com.ugnavigate.services;
 
+import com.ugnavigate.algorithms.AltHeuristic;
+import com.ugnavigate.loaders.MapLoader;
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.CampusGraphFile;
 import com.ugnavigate.models.CampusMap;
-import com.ugnavigate.models.Location;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 @Service
 public class CampusDataService {
+    private static final Logger log = LoggerFactory.getLogger(CampusDataService.class);
+    private static final String CLASSPATH_PREFIX = "classpath:";
+    private static final String GRAPH_SUFFIX = ".graph";
+
+    public static final String DEFAULT_MAP_LOCATION = "classpath:campus-map.json";
+
     private CampusMap campusMap;
+    private String mapLocation = DEFAULT_MAP_LOCATION;
+    private String compiledLocation = "";
+    private int altAnchorCount;
 
     public CampusDataService() {
         this.campusMap = new CampusMap();
@@ -16,164 +40,116 @@ public class CampusDataService {
 
     @PostConstruct
     public void initializeCampusData() {
-        populateLocations();
-        populateConnections();
+        reload();
+    }
+
+    /**
+     * Set the map file to load: a path, or classpath:name for a bundled one.
+     * .json, .csv and .osm (OpenStreetMap XML) files are understood, optionally gzipped.
+     */
+    @Value("${ugnavigate.map.location:" + DEFAULT_MAP_LOCATION + "}")
+    public void setMapLocation(String mapLocation) {
+        this.mapLocation = mapLocation;
+    }
+
+    public String getMapLocation() {
+        return mapLocation;
+    }
+
+    /**
+     * Set where to keep a compiled binary copy of the map (empty to always parse the map file).
+     * Restarts map the compiled copy in place instead of parsing, and rewrite it when the map file changes.
+     */
+    @Value("${ugnavigate.map.compiled:}")
+    public void setCompiledLocation(String compiledLocation) {
+        this.compiledLocation = compiledLocation;
+    }
+
+    /**
+     * Set how many ALT anchors to precompute into the compiled copy (0 stores none)
+     */
+    @Value("${ugnavigate.alt.anchors:8}")
+    public void setAltAnchorCount(int altAnchorCount) {
+        this.altAnchorCount = altAnchorCount;
+    }
+
+    /**
+     * Loads the map into a new graph off to the side and swaps it in as one new map version.
+     * Queries already running finish on the snapshot they started with. Returns the new version.
+     * A .graph file, or the compiled copy when one is configured and up to date, is memory-mapped rather than read.
+     */
+    public long reload() {
+        long start = System.currentTimeMillis();
+        CampusGraph graph;
+        try {
+            if (mapLocation.endsWith(GRAPH_SUFFIX)) {
+                graph = CampusGraphFile.map(Paths.get(mapLocation));
+            } else if (!compiledLocation.isEmpty()) {
+                graph = mapCompiled(Paths.get(compiledLocation));
+            } else {
+                graph = parse();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read campus map " + mapLocation, e);
+        }
+        campusMap.replaceWith(graph);
+        log.info("Loaded {} locations and {} connections from {} in {} ms", graph.getNodeCount(),
+                graph.getEdgeCount() / 2, mapLocation, System.currentTimeMillis() - start);
+        return campusMap.getVersion();
+    }
+
+    private CampusGraph parse() throws IOException {
+        try (InputStream in = open(mapLocation)) {
+            return MapLoader.read(mapLocation, in);
+        }
+    }
+
+    // Recompiles only when the map file or the anchor count has changed since the copy was written
+    private CampusGraph mapCompiled(Path compiled) throws IOException {
+        long stamp = sourceStamp();
+        Long existing = CampusGraphFile.readStamp(compiled);
+        if (existing == null || existing != stamp) {
+            CampusGraph graph = parse();
+            if (altAnchorCount > 0) {
+                graph = graph.withAnchorTable(AltHeuristic.build(graph, altAnchorCount).toAnchorTable());
+            }
+            CampusGraphFile.write(graph, compiled, stamp);
+            log.info("Compiled {} into {}", mapLocation, compiled);
+        }
+        return CampusGraphFile.map(compiled);
+    }
+
+    private long sourceStamp() throws IOException {
+        long length;
+        long modified;
+        if (mapLocation.startsWith(CLASSPATH_PREFIX)) {
+            URL url = resource(mapLocation);
+            URLConnection connection = url.openConnection();
+            length = connection.getContentLengthLong();
+            modified = connection.getLastModified();
+            connection.getInputStream().close();
+        } else {
+            Path path = Paths.get(mapLocation);
+            length = Files.size(path);
+            modified = Files.getLastModifiedTime(path).toMillis();
+        }
+        return ((mapLocation.hashCode() * 31L + length) * 31L + modified) * 31L + altAnchorCount;
     }
 
-    private void populateLocations() {
-        // Academic Buildings
-        Location computerScience = new Location("Computer Science Department", 5.6500, -0.1867, "academic",
-                "Department of Computer Science");
-        computerScience.addLandmark("Computer Science");
-        computerScience.addLandmark("DCIT");
-        computerScience.addLandmark("Computer Lab");
-
-        Location mathematics = new Location("Mathematics Department", 5.6510, -0.1870, "academic",
-                "Department of Mathematics");
-        mathematics.addLandmark("Mathematics");
-        mathematics.addLandmark("Math Lab");
-
-        Location physics = new Location("Physics Department", 5.6520, -0.1875, "academic", "Department of Physics");
-        physics.addLandmark("Physics");
-        physics.addLandmark("Physics Lab");
-
-        Location chemistry = new Location("Chemistry Department", 5.6530, -0.1880, "academic",
-                "Department of Chemistry");
-        chemistry.addLandmark("Chemistry");
-        chemistry.addLandmark("Chemistry Lab");
-
-        Location biology = new Location("Biology Department", 5.6540, -0.1885, "academic", "Department of Biology");
-        biology.addLandmark("Biology");
-        biology.addLandmark("Biology Lab");
-
-        // Administrative Buildings
-        Location registry = new Location("Registry", 5.6550, -0.1890, "administrative", "Main Registry Office");
-        registry.addLandmark("Registry");
-        registry.addLandmark("Administration");
-
-        Location senate = new Location("Senate Building", 5.6560, -0.1895, "administrative", "Senate Building");
-        senate.addLandmark("Senate");
-        senate.addLandmark("Administration");
-
-        Location finance = new Location("Finance Office", 5.6570, -0.1900, "administrative",
-                "Finance and Accounts Office");
-        finance.addLandmark("Finance");
-        finance.addLandmark("Accounts");
-
-        // Facilities
-        Location library = new Location("Balme Library", 5.6580, -0.1905, "facility", "Main University Library");
-        library.addLandmark("Library");
-        library.addLandmark("Balme");
-        library.addLandmark("Study Area");
-
-        Location cafeteria = new Location("Cafeteria", 5.6590, -0.1910, "facility", "Main Cafeteria");
-        cafeteria.addLandmark("Cafeteria");
-        cafeteria.addLandmark("Food");
-        cafeteria.addLandmark("Restaurant");
-
-        Location bank = new Location("University Bank", 5.6600, -0.1915, "facility", "University Bank Branch");
-        bank.addLandmark("Bank");
-        bank.addLandmark("ATM");
-        bank.addLandmark("Financial Services");
-
-        Location healthCenter = new Location("Health Center", 5.6610, -0.1920, "facility", "University Health Center");
-        healthCenter.addLandmark("Health Center");
-        healthCenter.addLandmark("Medical");
-        healthCenter.addLandmark("Clinic");
-
-        Location sportsCenter = new Location("Sports Center", 5.6620, -0.1925, "facility", "University Sports Center");
-        sportsCenter.addLandmark("Sports Center");
-        sportsCenter.addLandmark("Gym");
-        sportsCenter.addLandmark("Fitness");
-
-        // Landmarks
-        Location independenceSquare = new Location("Independence Square", 5.6630, -0.1930, "landmark",
-                "Independence Square");
-        independenceSquare.addLandmark("Independence Square");
-        independenceSquare.addLandmark("Square");
-        independenceSquare.addLandmark("Monument");
-
-        Location greatHall = new Location("Great Hall", 5.6640, -0.1935, "landmark", "Great Hall");
-        greatHall.addLandmark("Great Hall");
-        greatHall.addLandmark("Auditorium");
-        greatHall.addLandmark("Events");
-
-        Location botanicalGarden = new Location("Botanical Garden", 5.6650, -0.1940, "landmark",
-                "University Botanical Garden");
-        botanicalGarden.addLandmark("Botanical Garden");
-        botanicalGarden.addLandmark("Garden");
-        botanicalGarden.addLandmark("Nature");
-
-        // Add all locations to campus map
-        campusMap.addLocation(computerScience);
-        campusMap.addLocation(mathematics);
-        campusMap.addLocation(physics);
-        campusMap.addLocation(chemistry);
-        campusMap.addLocation(biology);
-        campusMap.addLocation(registry);
-        campusMap.addLocation(senate);
-        campusMap.addLocation(finance);
-        campusMap.addLocation(library);
-        campusMap.addLocation(cafeteria);
-        campusMap.addLocation(bank);
-        campusMap.addLocation(healthCenter);
-        campusMap.addLocation(sportsCenter);
-        campusMap.addLocation(independenceSquare);
-        campusMap.addLocation(greatHall);
-        campusMap.addLocation(botanicalGarden);
+    private InputStream open(String location) throws IOException {
+        if (location.startsWith(CLASSPATH_PREFIX)) {
+            return resource(location).openStream();
+        }
+        return Files.newInputStream(Paths.get(location));
     }
 
-    private void populateConnections() {
-        // Academic buildings connections
-        campusMap.addConnection("Computer Science Department", "Mathematics Department", 0.2);
-        campusMap.addConnection("Computer Science Department", "Physics Department", 0.3);
-        campusMap.addConnection("Mathematics Department", "Physics Department", 0.2);
-        campusMap.addConnection("Physics Department", "Chemistry Department", 0.25);
-        campusMap.addConnection("Chemistry Department", "Biology Department", 0.3);
-
-        // Administrative buildings connections
-        campusMap.addConnection("Registry", "Senate Building", 0.15);
-        campusMap.addConnection("Senate Building", "Finance Office", 0.2);
-        campusMap.addConnection("Registry", "Finance Office", 0.25);
-
-        // Academic to Administrative connections
-        campusMap.addConnection("Computer Science Department", "Registry", 0.4);
-        campusMap.addConnection("Mathematics Department", "Registry", 0.35);
-        campusMap.addConnection("Physics Department", "Senate Building", 0.3);
-        campusMap.addConnection("Chemistry Department", "Finance Office", 0.4);
-
-        // Facility connections
-        campusMap.addConnection("Balme Library", "Computer Science Department", 0.3);
-        campusMap.addConnection("Balme Library", "Mathematics Department", 0.25);
-        campusMap.addConnection("Cafeteria", "Computer Science Department", 0.35);
-        campusMap.addConnection("Cafeteria", "Balme Library", 0.2);
-        campusMap.addConnection("University Bank", "Finance Office", 0.15);
-        campusMap.addConnection("University Bank", "Registry", 0.3);
-        campusMap.addConnection("Health Center", "Biology Department", 0.25);
-        campusMap.addConnection("Health Center", "Sports Center", 0.4);
-        campusMap.addConnection("Sports Center", "Botanical Garden", 0.3);
-
-        // Landmark connections
-        campusMap.addConnection("Independence Square", "Great Hall", 0.2);
-        campusMap.addConnection("Great Hall", "Senate Building", 0.25);
-        campusMap.addConnection("Botanical Garden", "Biology Department", 0.2);
-        campusMap.addConnection("Botanical Garden", "Health Center", 0.3);
-
-        // Cross-campus connections
-        campusMap.addConnection("Computer Science Department", "Balme Library", 0.3);
-        campusMap.addConnection("Computer Science Department", "Cafeteria", 0.35);
-        campusMap.addConnection("Mathematics Department", "Balme Library", 0.25);
-        campusMap.addConnection("Physics Department", "Great Hall", 0.4);
-        campusMap.addConnection("Chemistry Department", "Health Center", 0.35);
-        campusMap.addConnection("Biology Department", "Botanical Garden", 0.2);
-        campusMap.addConnection("Registry", "Great Hall", 0.3);
-        campusMap.addConnection("Senate Building", "Independence Square", 0.25);
-        campusMap.addConnection("Finance Office", "University Bank", 0.15);
-        campusMap.addConnection("Cafeteria", "University Bank", 0.4);
-        campusMap.addConnection("Balme Library", "Great Hall", 0.35);
-        campusMap.addConnection("Sports Center", "Cafeteria", 0.5);
-        campusMap.addConnection("Health Center", "Cafeteria", 0.3);
-        campusMap.addConnection("Independence Square", "Botanical Garden", 0.6);
+    private static URL resource(String location) throws FileNotFoundException {
+        String name = location.substring(CLASSPATH_PREFIX.length());
+        URL url = CampusDataService.class.getClassLoader().getResource(name.startsWith("/") ? name.substring(1) : name);
+        if (url == null) {
+            throw new FileNotFoundException(location);
+        }
+        return url;
     }
 
     public CampusMap getCampusMap() {
@@ -183,4 +159,4 @@ public class CampusDataService {
     public void setCampusMap(CampusMap campusMap) {
         this.campusMap = campusMap;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,297 @@
+package com.ugnavigate.services;
+
+import com.ugnavigate.models.Route;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of finished routes.
+ * Keys are spread over independently locked LRU segments so concurrent requests rarely contend.
+ * Each segment also indexes its routes by the edges they use, so closing or re-weighting a connection only drops
+ * the routes that can have changed.
+ */
+public class RouteCache implements MeterBinder {
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public RouteCache(int maximumSize) {
+        segments = new Segment[SEGMENTS];
+        int perSegment = Math.max(1, (maximumSize + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Returns the cached routes for a key, or null on a miss
+     */
+    public List<Route> get(Key key) {
+        List<Route> routes = segmentFor(key).get(key);
+        if (routes != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return routes;
+    }
+
+    /**
+     * Caches routes without recording their edges; they are dropped by any edge change
+     */
+    public void put(Key key, List<Route> routes) {
+        put(key, routes, null, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Caches routes together with the ids of the edges they use, and the length a new path would have to beat
+     * to change the answer (infinite if any new path would)
+     */
+    public void put(Key key, List<Route> routes, int[] edges, double bound) {
+        segmentFor(key).put(key, new CachedRoutes(Collections.unmodifiableList(new ArrayList<>(routes)), edges, bound));
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Drops the routes that use any of the edges, and those cached without their edges.
+     * Returns how many were dropped.
+     */
+    public int invalidateEdges(int[] edges) {
+        int dropped = 0;
+        for (Segment segment : segments) {
+            dropped += segment.invalidateEdges(edges);
+        }
+        invalidations.add(dropped);
+        return dropped;
+    }
+
+    /**
+     * Drops the routes for which the predicate holds, given their key and bound. Returns how many were dropped.
+     */
+    public int invalidateIf(BiPredicate<Key, Double> stale) {
+        int dropped = 0;
+        for (Segment segment : segments) {
+            dropped += segment.invalidateIf(stale);
+        }
+        invalidations.add(dropped);
+        return dropped;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ugnavigate.route.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description("Route cache lookups that found a cached route")
+                .register(registry);
+        FunctionCounter.builder("ugnavigate.route.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .description("Route cache lookups that had to compute the route")
+                .register(registry);
+        FunctionCounter.builder("ugnavigate.route.cache.evictions", evictions, LongAdder::sum)
+                .description("Routes evicted to keep the cache within its size bound")
+                .register(registry);
+        FunctionCounter.builder("ugnavigate.route.cache.invalidations", invalidations, LongAdder::sum)
+                .description("Routes dropped because a connection they depend on or its traffic changed")
+                .register(registry);
+        Gauge.builder("ugnavigate.route.cache.size", this, RouteCache::size)
+                .description("Number of cached route results")
+                .register(registry);
+    }
+
+    private Segment segmentFor(Key key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Identifies a request by endpoints, algorithm and request profile
+     */
+    public static final class Key {
+        private final String start;
+        private final String end;
+        private final String algorithm;
+        private final String profile;
+        private final int hash;
+
+        public Key(String start, String end, String algorithm, String profile) {
+            this.start = start;
+            this.end = end;
+            this.algorithm = algorithm;
+            this.profile = profile;
+            this.hash = Objects.hash(start, end, algorithm, profile);
+        }
+
+        public String getStart() {
+            return start;
+        }
+
+        public String getEnd() {
+            return end;
+        }
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null || getClass() != obj.getClass())
+                return false;
+            Key key = (Key) obj;
+            return Objects.equals(start, key.start) &&
+                    Objects.equals(end, key.end) &&
+                    Objects.equals(algorithm, key.algorithm) &&
+                    Objects.equals(profile, key.profile);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class CachedRoutes {
+        private final List<Route> routes;
+        // Null when the edges are unknown
+        private final int[] edges;
+        private final double bound;
+
+        CachedRoutes(List<Route> routes, int[] edges, double bound) {
+            this.routes = routes;
+            this.edges = edges;
+            this.bound = bound;
+        }
+    }
+
+    private final class Segment {
+        private final LinkedHashMap<Key, CachedRoutes> entries;
+        private final Map<Integer, Set<Key>> keysByEdge = new HashMap<>();
+        private final Set<Key> unindexed = new HashSet<>();
+
+        Segment(int capacity) {
+            entries = new LinkedHashMap<Key, CachedRoutes>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, CachedRoutes> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        unindex(eldest.getKey(), eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized List<Route> get(Key key) {
+            CachedRoutes entry = entries.get(key);
+            return entry == null ? null : entry.routes;
+        }
+
+        synchronized void put(Key key, CachedRoutes entry) {
+            CachedRoutes replaced = entries.remove(key);
+            if (replaced != null) {
+                unindex(key, replaced);
+            }
+            if (entry.edges == null) {
+                unindexed.add(key);
+            } else {
+                for (int edge : entry.edges) {
+                    keysByEdge.computeIfAbsent(edge, e -> new HashSet<>()).add(key);
+                }
+            }
+            entries.put(key, entry);
+        }
+
+        synchronized int invalidateEdges(int[] edges) {
+            Set<Key> stale = new HashSet<>(unindexed);
+            for (int edge : edges) {
+                Set<Key> keys = keysByEdge.get(edge);
+                if (keys != null) {
+                    stale.addAll(keys);
+                }
+            }
+            for (Key key : stale) {
+                unindex(key, entries.remove(key));
+            }
+            return stale.size();
+        }
+
+        synchronized int invalidateIf(BiPredicate<Key, Double> stale) {
+            int dropped = 0;
+            Iterator<Map.Entry<Key, CachedRoutes>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, CachedRoutes> entry = iterator.next();
+                if (stale.test(entry.getKey(), entry.getValue().bound)) {
+                    iterator.remove();
+                    unindex(entry.getKey(), entry.getValue());
+                    dropped++;
+                }
+            }
+            return dropped;
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            keysByEdge.clear();
+            unindexed.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private void unindex(Key key, CachedRoutes entry) {
+            if (entry.edges == null) {
+                unindexed.remove(key);
+                return;
+            }
+            for (int edge : entry.edges) {
+                Set<Key> keys = keysByEdge.get(edge);
+                if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                    keysByEdge.remove(edge);
+                }
+            }
+        }
+    }
+}
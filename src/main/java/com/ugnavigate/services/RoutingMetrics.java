@@ -0,0 +1,126 @@
+package com.ugnavigate.services;
+
+import com.ugnavigate.algorithms.RoutingAlgorithm;
+import com.ugnavigate.algorithms.SearchWorkspace;
+import com.ugnavigate.models.CampusMap;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Routing metrics: a timer per algorithm with percentile histograms, totals of search work and routes returned,
+ * and gauges for the map size and the age of the precomputed tables.
+ * Until it is bound to a registry, timing only runs the work, so services built outside Spring pay nothing.
+ */
+public class RoutingMetrics implements MeterBinder {
+    /**
+     * Operations with a timer: the route algorithms, then the other location and search queries
+     */
+    public static final List<String> OPERATIONS = Collections.unmodifiableList(Arrays.asList(
+            "shortest", "optimal", "contraction", "departure", "top", "landmarks", "category", "search",
+            "matrix", "reachable", "nearest", "snap", "suggest"));
+
+    private final CampusMap campusMap;
+    private final RoutingAlgorithm routingAlgorithm;
+    private final LongAdder routesReturned = new LongAdder();
+    private volatile Map<String, Timer> timers = Collections.emptyMap();
+
+    public RoutingMetrics(CampusMap campusMap, RoutingAlgorithm routingAlgorithm) {
+        this.campusMap = campusMap;
+        this.routingAlgorithm = routingAlgorithm;
+    }
+
+    /**
+     * Runs the work, recording its duration under the operation's timer, then publishes the thread's search counts
+     */
+    public <T> T time(String operation, Supplier<T> work) {
+        Timer timer = timers.get(operation);
+        long started = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            if (timer != null) {
+                timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+            SearchWorkspace.publishCounts();
+        }
+    }
+
+    /**
+     * Counts routes handed back to a caller, whether computed or cached
+     */
+    public <T extends Collection<?>> T returned(T routes) {
+        routesReturned.add(routes.size());
+        return routes;
+    }
+
+    public long getRoutesReturned() {
+        return routesReturned.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map<String, Timer> bound = new HashMap<>();
+        for (String operation : OPERATIONS) {
+            // Cached answers take microseconds and cold searches on large maps take seconds
+            bound.put(operation, Timer.builder("ugnavigate.routing.compute")
+                    .tag("algorithm", operation)
+                    .description("Time spent computing results; cached routes are only timed when they miss")
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(1000))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(registry));
+        }
+        timers = bound;
+
+        FunctionCounter.builder("ugnavigate.search.settled", this, m -> SearchWorkspace.getSettledCount())
+                .description("Nodes settled by graph searches, including precomputation")
+                .register(registry);
+        FunctionCounter.builder("ugnavigate.search.relaxations", this, m -> SearchWorkspace.getRelaxedCount())
+                .description("Edges relaxed by graph searches, including precomputation")
+                .register(registry);
+        FunctionCounter.builder("ugnavigate.search.heap.pushes", this, m -> SearchWorkspace.getPushedCount())
+                .description("Nodes pushed onto, or moved up, a search heap")
+                .register(registry);
+        FunctionCounter.builder("ugnavigate.routes.returned", routesReturned, LongAdder::sum)
+                .description("Routes returned to callers, computed or cached")
+                .register(registry);
+
+        Gauge.builder("ugnavigate.graph.locations", campusMap, m -> m.getGraph().getNodeCount())
+                .description("Locations in the current map")
+                .register(registry);
+        // Connections are two-way and stored once per direction
+        Gauge.builder("ugnavigate.graph.connections", campusMap, m -> m.getGraph().getEdgeCount() / 2)
+                .description("Connections in the current map")
+                .register(registry);
+        Gauge.builder("ugnavigate.graph.version", campusMap, m -> m.getGraph().getVersion())
+                .description("Version of the current map")
+                .register(registry);
+
+        precomputeAge(registry, "all-pairs", RoutingAlgorithm::getAllPairsBuiltAt);
+        precomputeAge(registry, "contraction", RoutingAlgorithm::getContractionBuiltAt);
+        precomputeAge(registry, "alt", RoutingAlgorithm::getAltBuiltAt);
+    }
+
+    // NaN until the table is first built, so dashboards show no data rather than an age since 1970
+    private void precomputeAge(MeterRegistry registry, String table, ToLongFunction<RoutingAlgorithm> builtAt) {
+        TimeGauge.builder("ugnavigate.precompute.age", routingAlgorithm, TimeUnit.MILLISECONDS, algorithm -> {
+            long at = builtAt.applyAsLong(algorithm);
+            return at == 0 ? Double.NaN : System.currentTimeMillis() - at;
+        })
+                .tag("table", table)
+                .description("Time since the precomputed table was last built or repaired")
+                .register(registry);
+    }
+}
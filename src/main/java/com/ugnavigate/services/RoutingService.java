@@ -1,37 +1,117 @@
 package com.ugnavigate.services;
 
+import com.ugnavigate.algorithms.AllPairsTable;
+import com.ugnavigate.algorithms.DijkstraSearch;
 import com.ugnavigate.algorithms.RoutingAlgorithm;
+import com.ugnavigate.algorithms.SearchWorkspace;
+import com.ugnavigate.models.CampusGraph;
 import com.ugnavigate.models.CampusMap;
 import com.ugnavigate.models.Location;
 import com.ugnavigate.models.Route;
+import com.ugnavigate.models.RouteMatrix;
+import com.ugnavigate.models.SpatialIndex;
+import com.ugnavigate.models.Suggestion;
 
+import java.time.LocalTime;
 import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.Objects;
 
 public class RoutingService {
     private RoutingAlgorithm routingAlgorithm;
     private CampusMap campusMap;
     private TrafficService trafficService;
+    private final RouteCache routeCache;
+    private final RoutingMetrics metrics;
+    // Guarded by routeCache
+    private CampusGraph cachedGraph;
+    private long cachedEpoch;
+    private int pendingUpdates;
+
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+    // How close in kilometres a GPS position must be to a location to count as standing at it
+    private static final double AT_LOCATION_KM = 0.01;
 
     public RoutingService(CampusMap campusMap, TrafficService trafficService) {
+        this(campusMap, trafficService, DEFAULT_CACHE_SIZE);
+    }
+
+    public RoutingService(CampusMap campusMap, TrafficService trafficService, int cacheSize) {
         this.campusMap = campusMap;
         this.trafficService = trafficService;
         this.routingAlgorithm = new RoutingAlgorithm(campusMap, trafficService);
+        this.routeCache = new RouteCache(cacheSize);
+        this.metrics = new RoutingMetrics(campusMap, routingAlgorithm);
+    }
+
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    public RoutingMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Cap the number of threads used to precompute routing tables and distance matrices (0 uses every processor)
+     */
+    public void setPrecomputeParallelism(int precomputeParallelism) {
+        routingAlgorithm.setPrecomputeParallelism(precomputeParallelism);
+    }
+
+    /**
+     * Start building the precomputed tables for the current map in the background; queries search until they are ready
+     */
+    public void precompute() {
+        routingAlgorithm.precompute();
+    }
+
+    /**
+     * Set the number of ALT anchor nodes used by A* (0 uses the coordinate heuristic)
+     */
+    public void setAltAnchorCount(int altAnchorCount) {
+        routingAlgorithm.setAltAnchorCount(altAnchorCount);
+    }
+
+    /**
+     * Find a route with the named algorithm: "optimal", "ch" or "contraction", and "shortest" otherwise
+     */
+    public Route findRoute(String startLocation, String endLocation, String algorithm) {
+        switch (algorithm == null ? "shortest" : algorithm.toLowerCase()) {
+            case "optimal":
+                return findOptimalRoute(startLocation, endLocation);
+            case "ch":
+            case "contraction":
+                return findContractedRoute(startLocation, endLocation);
+            case "shortest":
+            default:
+                return findShortestRoute(startLocation, endLocation);
+        }
     }
 
     /**
      * Find the shortest route using Dijkstra's algorithm
      */
     public Route findShortestRoute(String startLocation, String endLocation) {
-        List<String> path = routingAlgorithm.findShortestPath(startLocation, endLocation);
+        return first(cached(startLocation, endLocation, "shortest", "", 1,
+                snapshot -> asList(computeShortestRoute(snapshot, startLocation, endLocation))));
+    }
+
+    private Route computeShortestRoute(CampusMap.Snapshot snapshot, String startLocation, String endLocation) {
+        CampusGraph graph = snapshot.getGraph();
+        List<String> path = findPrecomputedPath(snapshot, startLocation, endLocation);
+        if (path == null) {
+            path = routingAlgorithm.findShortestPath(snapshot, startLocation, endLocation);
+        }
         if (path.isEmpty()) {
             return null;
         }
 
-        double totalDistance = calculateTotalDistance(path);
-        long estimatedTime = routingAlgorithm.calculateArrivalTimeForRoute(path);
-        List<String> landmarks = extractLandmarks(path);
+        double totalDistance = calculateTotalDistance(graph, path);
+        long estimatedTime = routingAlgorithm.calculateArrivalTimeForRoute(graph, path, LocalTime.now());
+        List<String> landmarks = extractLandmarks(snapshot, path);
 
         Route route = new Route(path, totalDistance, estimatedTime, "Dijkstra's Algorithm", landmarks);
         route.setDescription("Shortest distance route using Dijkstra's algorithm");
@@ -42,32 +122,95 @@ public class RoutingService {
      * Find the optimal route using A* algorithm
      */
     public Route findOptimalRoute(String startLocation, String endLocation) {
-        List<String> path = routingAlgorithm.findOptimalPath(startLocation, endLocation);
+        return first(cached(startLocation, endLocation, "optimal", "", 1,
+                snapshot -> asList(computeOptimalRoute(snapshot, startLocation, endLocation))));
+    }
+
+    private Route computeOptimalRoute(CampusMap.Snapshot snapshot, String startLocation, String endLocation) {
+        CampusGraph graph = snapshot.getGraph();
+        List<String> path = routingAlgorithm.findOptimalPath(snapshot, startLocation, endLocation);
         if (path.isEmpty()) {
             return null;
         }
 
-        double totalDistance = calculateTotalDistance(path);
-        long estimatedTime = routingAlgorithm.calculateArrivalTimeForRoute(path);
-        List<String> landmarks = extractLandmarks(path);
+        double totalDistance = calculateTotalDistance(graph, path);
+        long estimatedTime = routingAlgorithm.calculateArrivalTimeForRoute(graph, path, LocalTime.now());
+        List<String> landmarks = extractLandmarks(snapshot, path);
 
         Route route = new Route(path, totalDistance, estimatedTime, "A* Algorithm", landmarks);
         route.setDescription("Optimal route using A* search algorithm");
         return route;
     }
 
+    /**
+     * Find the shortest route using a Contraction Hierarchies query
+     */
+    public Route findContractedRoute(String startLocation, String endLocation) {
+        return first(cached(startLocation, endLocation, "contraction", "", 1,
+                snapshot -> asList(computeContractedRoute(snapshot, startLocation, endLocation))));
+    }
+
+    private Route computeContractedRoute(CampusMap.Snapshot snapshot, String startLocation, String endLocation) {
+        CampusGraph graph = snapshot.getGraph();
+        List<String> path = routingAlgorithm.findContractedPath(snapshot, startLocation, endLocation);
+        if (path.isEmpty()) {
+            return null;
+        }
+
+        double totalDistance = calculateTotalDistance(graph, path);
+        long estimatedTime = routingAlgorithm.calculateArrivalTimeForRoute(graph, path, LocalTime.now());
+        List<String> landmarks = extractLandmarks(snapshot, path);
+
+        Route route = new Route(path, totalDistance, estimatedTime, "Contraction Hierarchies", landmarks);
+        route.setDescription("Shortest distance route using a Contraction Hierarchies query");
+        return route;
+    }
+
+    /**
+     * Find the earliest-arrival route when leaving at the given time, using the time-dependent traffic profile
+     */
+    public Route findDepartureRoute(String startLocation, String endLocation, LocalTime departure) {
+        return first(cached(startLocation, endLocation, "departure", "time=" + departure, 0,
+                snapshot -> asList(computeDepartureRoute(snapshot, startLocation, endLocation, departure))));
+    }
+
+    private Route computeDepartureRoute(CampusMap.Snapshot snapshot, String startLocation, String endLocation,
+            LocalTime departure) {
+        CampusGraph graph = snapshot.getGraph();
+        List<String> path = routingAlgorithm.findEarliestArrivalPath(snapshot, startLocation, endLocation, departure);
+        if (path.isEmpty()) {
+            return null;
+        }
+
+        double totalDistance = calculateTotalDistance(graph, path);
+        long estimatedTime = routingAlgorithm.calculateArrivalTimeForRoute(graph, path, departure);
+        List<String> landmarks = extractLandmarks(snapshot, path);
+
+        Route route = new Route(path, totalDistance, estimatedTime, "Time-dependent Dijkstra", landmarks);
+        route.setDescription("Earliest arrival route leaving at " + departure);
+        return route;
+    }
+
     /**
      * Find routes that pass through specific landmarks
      */
     public List<Route> findRoutesWithLandmarks(String startLocation, String endLocation, String landmark) {
-        List<List<String>> paths = routingAlgorithm.findRoutesWithLandmarks(startLocation, endLocation, landmark);
+        return metrics.returned(metrics.time("landmarks",
+                () -> computeRoutesWithLandmarks(campusMap.getSnapshot(), startLocation, endLocation, landmark)));
+    }
+
+    private List<Route> computeRoutesWithLandmarks(CampusMap.Snapshot snapshot, String startLocation,
+            String endLocation, String landmark) {
+        CampusGraph graph = snapshot.getGraph();
+        List<List<String>> paths = routingAlgorithm.findRoutesWithLandmarks(snapshot, startLocation, endLocation,
+                landmark);
         List<Route> routes = new ArrayList<>();
 
         for (List<String> path : paths) {
             if (!path.isEmpty()) {
-                double totalDistance = calculateTotalDistance(path);
-                long estimatedTime = routingAlgorithm.calculateArrivalTimeForRoute(path);
-                List<String> landmarks = extractLandmarks(path);
+                double totalDistance = calculateTotalDistance(graph, path);
+                long estimatedTime = routingAlgorithm.calculateArrivalTimeForRoute(graph, path, LocalTime.now());
+                List<String> landmarks = extractLandmarks(snapshot, path);
 
                 Route route = new Route(path, totalDistance, estimatedTime, "Landmark-based", landmarks);
                 route.setDescription("Route passing through " + landmark);
@@ -75,23 +218,31 @@ public class RoutingService {
             }
         }
 
-        return routes;
+        return stamp(routes, graph);
     }
 
     /**
      * Find top N routes sorted by distance
      */
     public List<Route> findTopRoutes(String startLocation, String endLocation, int count) {
-        List<List<String>> paths = routingAlgorithm.findTopRoutes(startLocation, endLocation, count);
+        return cached(startLocation, endLocation, "top", "count=" + count, count,
+                snapshot -> computeTopRoutes(snapshot, startLocation, endLocation, count));
+    }
+
+    private List<Route> computeTopRoutes(CampusMap.Snapshot snapshot, String startLocation, String endLocation,
+            int count) {
+        CampusGraph graph = snapshot.getGraph();
+        List<List<String>> paths = routingAlgorithm.findTopRoutes(snapshot, startLocation, endLocation, count);
         List<Route> routes = new ArrayList<>();
 
         for (List<String> path : paths) {
             if (!path.isEmpty()) {
-                double totalDistance = calculateTotalDistance(path);
-                long estimatedTime = routingAlgorithm.calculateArrivalTimeForRoute(path);
-                List<String> landmarks = extractLandmarks(path);
+                double totalDistance = calculateTotalDistance(graph, path);
+                long estimatedTime = routingAlgorithm.calculateArrivalTimeForRoute(graph, path, LocalTime.now());
+                List<String> landmarks = extractLandmarks(snapshot, path);
 
-                String algorithm = determineAlgorithm(path, startLocation, endLocation);
+                // Paths arrive in cost order, so only the first one is the shortest path
+                String algorithm = routes.isEmpty() ? "Dijkstra's Algorithm" : "Alternative Route";
                 Route route = new Route(path, totalDistance, estimatedTime, algorithm, landmarks);
                 route.setDescription("Alternative route option");
                 routes.add(route);
@@ -101,89 +252,228 @@ public class RoutingService {
         return routes;
     }
 
+    /**
+     * Compute distances and travel times between every source and every target
+     */
+    public RouteMatrix computeRouteMatrix(List<String> sources, List<String> targets) {
+        return metrics.time("matrix", () -> routingAlgorithm.findRouteMatrix(sources, targets, LocalTime.now()));
+    }
+
+    /**
+     * Find every location reachable within the given walking time, with its arrival time in minutes
+     */
+    public Map<String, Long> findReachableLocations(String startLocation, long minutes) {
+        return metrics.time("reachable", () -> routingAlgorithm.findReachableLocations(startLocation, minutes));
+    }
+
+    /**
+     * Find the k locations closest to a position, nearest first, with their straight-line distances in kilometres
+     */
+    public Map<String, Double> findNearestLocations(double latitude, double longitude, int k) {
+        return metrics.time("nearest", () -> computeNearestLocations(latitude, longitude, k));
+    }
+
+    private Map<String, Double> computeNearestLocations(double latitude, double longitude, int k) {
+        CampusMap.Snapshot snapshot = campusMap.getSnapshot();
+        SpatialIndex index = snapshot.getSpatialIndex();
+        Map<String, Double> nearest = new LinkedHashMap<>();
+        for (int node : index.nearestNodes(latitude, longitude, k)) {
+            nearest.put(snapshot.getGraph().nameOf(node), index.distanceKm(latitude, longitude, node));
+        }
+        return nearest;
+    }
+
+    /**
+     * Snap a position onto the closest open connection and return the nearer end of it, so routes can start and
+     * end at GPS positions. A position within a few metres of a location resolves to that location, since drawn
+     * connections may pass right by other buildings. Returns null on an empty map.
+     */
+    public String snapToLocation(double latitude, double longitude) {
+        return metrics.time("snap", () -> computeSnapToLocation(latitude, longitude));
+    }
+
+    private String computeSnapToLocation(double latitude, double longitude) {
+        CampusMap.Snapshot snapshot = campusMap.getSnapshot();
+        SpatialIndex index = snapshot.getSpatialIndex();
+        int[] nearest = index.nearestNodes(latitude, longitude, 1);
+        if (nearest.length == 0) {
+            return null;
+        }
+        SpatialIndex.Snap snap = index.nearestEdge(latitude, longitude);
+        if (snap == null || index.distanceKm(latitude, longitude, nearest[0]) <= AT_LOCATION_KM) {
+            return snapshot.getGraph().nameOf(nearest[0]);
+        }
+        return snapshot.getGraph().nameOf(snap.getNearestNode());
+    }
+
     /**
      * Find routes by category (academic, administrative, facility, etc.)
      */
     public List<Route> findRoutesByCategory(String startLocation, String endLocation, String category) {
-        List<Location> categoryLocations = campusMap.getLocationsByCategory(category);
-        List<Route> routes = new ArrayList<>();
+        return metrics.returned(metrics.time("category",
+                () -> computeRoutesByCategory(campusMap.getSnapshot(), startLocation, endLocation, category)));
+    }
 
-        for (Location location : categoryLocations) {
-            List<String> pathToLocation = routingAlgorithm.findShortestPath(startLocation, location.getName());
-            List<String> pathFromLocation = routingAlgorithm.findShortestPath(location.getName(), endLocation);
-
-            if (!pathToLocation.isEmpty() && !pathFromLocation.isEmpty()) {
-                // Combine paths
-                List<String> combinedPath = new ArrayList<>(pathToLocation);
-                if (!pathFromLocation.isEmpty() && !pathFromLocation.get(0).equals(location.getName())) {
-                    combinedPath.addAll(pathFromLocation);
-                } else if (pathFromLocation.size() > 1) {
-                    combinedPath.addAll(pathFromLocation.subList(1, pathFromLocation.size()));
-                }
+    private List<Route> computeRoutesByCategory(CampusMap.Snapshot snapshot, String startLocation, String endLocation,
+            String category) {
+        CampusGraph graph = snapshot.getGraph();
+        List<Location> categoryLocations = snapshot.getLocationsByCategory(category);
+        List<Route> routes = new ArrayList<>();
 
-                double totalDistance = calculateTotalDistance(combinedPath);
-                long estimatedTime = routingAlgorithm.calculateArrivalTimeForRoute(combinedPath);
-                List<String> landmarks = extractLandmarks(combinedPath);
+        List<String> viaLocations = categoryLocations.stream()
+                .map(Location::getName)
+                .collect(Collectors.toList());
 
-                Route route = new Route(combinedPath, totalDistance, estimatedTime, "Category-based", landmarks);
-                route.setDescription("Route passing through " + category + " location: " + location.getName());
-                routes.add(route);
-            }
+        // Routes come back sorted by distance, already cut to the top 3
+        Map<String, List<String>> paths = routingAlgorithm.findViaRoutes(snapshot, startLocation, endLocation,
+                viaLocations, 3);
+        for (Map.Entry<String, List<String>> entry : paths.entrySet()) {
+            List<String> combinedPath = entry.getValue();
+            double totalDistance = calculateTotalDistance(graph, combinedPath);
+            long estimatedTime = routingAlgorithm.calculateArrivalTimeForRoute(graph, combinedPath, LocalTime.now());
+            List<String> landmarks = extractLandmarks(snapshot, combinedPath);
+
+            Route route = new Route(combinedPath, totalDistance, estimatedTime, "Category-based", landmarks);
+            route.setDescription("Route passing through " + category + " location: " + entry.getKey());
+            routes.add(route);
         }
 
-        // Sort by distance and return top 3
-        routes.sort(Comparator.comparingDouble(Route::getTotalDistance));
-        return routes.subList(0, Math.min(3, routes.size()));
+        return stamp(routes, graph);
     }
 
     /**
      * Search for routes based on user input (landmarks, categories, etc.)
      */
     public List<Route> searchRoutes(String startLocation, String endLocation, String searchTerm) {
+        return metrics.returned(metrics.time("search",
+                () -> computeSearchRoutes(campusMap.getSnapshot(), startLocation, endLocation, searchTerm)));
+    }
+
+    private List<Route> computeSearchRoutes(CampusMap.Snapshot snapshot, String startLocation, String endLocation,
+            String searchTerm) {
+        CampusGraph graph = snapshot.getGraph();
         List<Route> routes = new ArrayList<>();
 
         // Check if search term is a landmark
-        List<Route> landmarkRoutes = findRoutesWithLandmarks(startLocation, endLocation, searchTerm);
+        List<Route> landmarkRoutes = computeRoutesWithLandmarks(snapshot, startLocation, endLocation, searchTerm);
         routes.addAll(landmarkRoutes);
 
         // Check if search term is a category
-        List<Route> categoryRoutes = findRoutesByCategory(startLocation, endLocation, searchTerm);
+        List<Route> categoryRoutes = computeRoutesByCategory(snapshot, startLocation, endLocation, searchTerm);
         routes.addAll(categoryRoutes);
 
         // Check if search term matches any location name
-        List<Location> matchingLocations = campusMap.getLocations().stream()
-                .map(campusMap::getLocation)
-                .filter(Objects::nonNull)
-                .filter(location -> location.getName().toLowerCase().contains(searchTerm.toLowerCase()))
+        List<Location> matchingLocations = snapshot.findLocations(searchTerm);
+
+        List<String> viaLocations = matchingLocations.stream()
+                .map(Location::getName)
                 .collect(Collectors.toList());
 
-        for (Location location : matchingLocations) {
-            List<String> pathToLocation = routingAlgorithm.findShortestPath(startLocation, location.getName());
-            List<String> pathFromLocation = routingAlgorithm.findShortestPath(location.getName(), endLocation);
+        Map<String, List<String>> paths = routingAlgorithm.findViaRoutes(snapshot, startLocation, endLocation,
+                viaLocations, Integer.MAX_VALUE);
+        for (Map.Entry<String, List<String>> entry : paths.entrySet()) {
+            List<String> combinedPath = entry.getValue();
+            double totalDistance = calculateTotalDistance(graph, combinedPath);
+            long estimatedTime = routingAlgorithm.calculateArrivalTimeForRoute(graph, combinedPath, LocalTime.now());
+            List<String> landmarks = extractLandmarks(snapshot, combinedPath);
+
+            Route route = new Route(combinedPath, totalDistance, estimatedTime, "Search-based", landmarks);
+            route.setDescription("Route passing through " + entry.getKey());
+            routes.add(route);
+        }
 
-            if (!pathToLocation.isEmpty() && !pathFromLocation.isEmpty()) {
-                List<String> combinedPath = new ArrayList<>(pathToLocation);
-                if (!pathFromLocation.isEmpty() && !pathFromLocation.get(0).equals(location.getName())) {
-                    combinedPath.addAll(pathFromLocation);
-                } else if (pathFromLocation.size() > 1) {
-                    combinedPath.addAll(pathFromLocation.subList(1, pathFromLocation.size()));
+        // Remove duplicates and sort by distance
+        routes = removeDuplicateRoutes(routes);
+        routes.sort(Comparator.comparingDouble(Route::getTotalDistance));
+
+        return stamp(routes.subList(0, Math.min(5, routes.size())), graph);
+    }
+
+    /**
+     * Publish live congestion as travel-time multipliers per connection (from -> to -> multiplier).
+     * Connections are two-way, so each multiplier applies in both directions. Returns the new traffic epoch.
+     */
+    public long updateLiveTraffic(Map<String, Map<String, Float>> multipliers) {
+        CampusGraph graph = campusMap.getGraph();
+        List<Integer> edges = new ArrayList<>();
+        List<Float> values = new ArrayList<>();
+        List<String> unknown = new ArrayList<>();
+
+        for (Map.Entry<String, Map<String, Float>> from : multipliers.entrySet()) {
+            for (Map.Entry<String, Float> to : from.getValue().entrySet()) {
+                int u = graph.idOf(from.getKey());
+                int v = graph.idOf(to.getKey());
+                int forward = u < 0 || v < 0 ? -1 : graph.findEdge(u, v);
+                if (forward < 0 || to.getValue() == null) {
+                    unknown.add(from.getKey() + " -> " + to.getKey());
+                    continue;
                 }
+                edges.add(forward);
+                values.add(to.getValue());
+                edges.add(graph.findEdge(v, u));
+                values.add(to.getValue());
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown connections: " + unknown);
+        }
 
-                double totalDistance = calculateTotalDistance(combinedPath);
-                long estimatedTime = routingAlgorithm.calculateArrivalTimeForRoute(combinedPath);
-                List<String> landmarks = extractLandmarks(combinedPath);
+        int[] edgeIds = new int[edges.size()];
+        float[] edgeValues = new float[values.size()];
+        for (int i = 0; i < edgeIds.length; i++) {
+            edgeIds[i] = edges.get(i);
+            edgeValues[i] = values.get(i);
+        }
 
-                Route route = new Route(combinedPath, totalDistance, estimatedTime, "Search-based", landmarks);
-                route.setDescription("Route passing through " + location.getName());
-                routes.add(route);
+        synchronized (routeCache) {
+            pendingUpdates++;
+        }
+        long epoch;
+        try {
+            epoch = trafficService.updateLiveTraffic(graph, edgeIds, edgeValues).getEpoch();
+        } catch (RuntimeException e) {
+            synchronized (routeCache) {
+                pendingUpdates--;
             }
+            throw e;
         }
 
-        // Remove duplicates and sort by distance
-        routes = removeDuplicateRoutes(routes);
-        routes.sort(Comparator.comparingDouble(Route::getTotalDistance));
+        synchronized (routeCache) {
+            pendingUpdates--;
+            if (cachedEpoch == epoch - 1 && graph.hasSameEdges(cachedGraph)) {
+                // Estimated times only change on routes over these edges, but earliest-arrival searches weigh
+                // every edge by its traffic, so any of their answers can change
+                routeCache.invalidateEdges(edgeIds);
+                routeCache.invalidateIf((key, bound) -> "departure".equals(key.getAlgorithm()));
+                cachedEpoch = epoch;
+            } else if (cachedEpoch < epoch) {
+                // Another traffic change was applied out of order, or the profile itself was replaced
+                routeCache.invalidateAll();
+                cachedEpoch = epoch;
+            }
+        }
+        return epoch;
+    }
 
-        return routes.subList(0, Math.min(5, routes.size()));
+    /**
+     * Close a connection in both directions until it is reopened. Returns the new map version.
+     */
+    public long closeConnection(String from, String to) {
+        return updateConnection(() -> campusMap.closeConnection(from, to));
+    }
+
+    /**
+     * Reopen a closed connection at its previous distance. Returns the new map version.
+     */
+    public long reopenConnection(String from, String to) {
+        return updateConnection(() -> campusMap.reopenConnection(from, to));
+    }
+
+    /**
+     * Change the distance of a connection in both directions. Returns the new map version.
+     */
+    public long setConnectionDistance(String from, String to, double distance) {
+        return updateConnection(() -> campusMap.setConnectionDistance(from, to, distance));
     }
 
     /**
@@ -197,12 +487,15 @@ public class RoutingService {
      * Get all available categories
      */
     public List<String> getAllCategories() {
-        return campusMap.getLocations().stream()
-                .map(campusMap::getLocation)
-                .filter(Objects::nonNull)
-                .map(Location::getCategory)
-                .distinct()
-                .collect(Collectors.toList());
+        return campusMap.getAllCategories();
+    }
+
+    /**
+     * Suggest locations whose names, landmarks or descriptions have a word starting with the query, most popular
+     * first
+     */
+    public List<Suggestion> suggestLocations(String query, int limit) {
+        return metrics.time("suggest", () -> campusMap.getSnapshot().getSuggester().suggest(query, limit));
     }
 
     /**
@@ -213,21 +506,212 @@ public class RoutingService {
     }
 
     // Helper methods
-    private double calculateTotalDistance(List<String> path) {
+    // Count is how many routes the request asks for, or 0 if its routes are not ranked by distance
+    private List<Route> cached(String startLocation, String endLocation, String algorithm, String profile, int count,
+            Function<CampusMap.Snapshot, List<Route>> compute) {
+        CampusMap.Snapshot used = campusMap.getSnapshot();
+        used.recordUse(startLocation);
+        used.recordUse(endLocation);
+        while (true) {
+            CampusMap.Snapshot snapshot = campusMap.getSnapshot();
+            CampusGraph graph = snapshot.getGraph();
+            long epoch = trafficService.getEpoch();
+            boolean current;
+            synchronized (routeCache) {
+                if (cachedGraph != null && graph.getVersion() < cachedGraph.getVersion() || epoch < cachedEpoch) {
+                    // Read just before an update the cache has already caught up with, so read them again
+                    continue;
+                }
+                // Drop everything computed against an older map or older traffic data, unless an edge or traffic
+                // update is about to drop just the routes it changed
+                if ((graph != cachedGraph || epoch != cachedEpoch) && pendingUpdates == 0) {
+                    routeCache.invalidateAll();
+                    cachedGraph = graph;
+                    cachedEpoch = epoch;
+                }
+                current = graph == cachedGraph && epoch == cachedEpoch;
+            }
+            if (!current) {
+                // Cached routes may predate the pending update, so go without the cache until it is applied
+                List<Route> routes = metrics.time(algorithm, () -> compute.apply(snapshot));
+                if (campusMap.getGraph() == graph && trafficService.getEpoch() == epoch) {
+                    stamp(routes, graph);
+                    return metrics.returned(routes);
+                }
+                continue;
+            }
+
+            // Estimated times follow the traffic profile, so results are only reused within the current time slot
+            String slotProfile = profile + "|slot=" + trafficService.currentSlot();
+            RouteCache.Key key = new RouteCache.Key(startLocation, endLocation, algorithm, slotProfile);
+            List<Route> routes = routeCache.get(key);
+            if (routes != null) {
+                return metrics.returned(routes);
+            }
+            routes = metrics.time(algorithm, () -> compute.apply(snapshot));
+            synchronized (routeCache) {
+                // Only cache against the graph and traffic data that later updates will be checked against
+                if (campusMap.getGraph() == graph && cachedGraph == graph
+                        && trafficService.getEpoch() == epoch && cachedEpoch == epoch) {
+                    stamp(routes, graph);
+                    routeCache.put(key, routes, edgesOf(routes, graph), bound(routes, count));
+                    return metrics.returned(routes);
+                }
+            }
+            // The map changed mid-computation; run again so the result comes from a single version
+        }
+    }
+
+    /**
+     * Applies an edge update, dropping only the cached routes it can have changed.
+     * Updating the routing tables and searching the old graph for the shortcut filter are the slow parts, so they
+     * run outside the cache lock, which is only held to drop routes and move the cache on to the new graph.
+     */
+    private long updateConnection(Supplier<CampusMap.EdgeUpdate> change) {
+        synchronized (routeCache) {
+            pendingUpdates++;
+        }
+        CampusMap.EdgeUpdate update;
+        BiPredicate<RouteCache.Key, Double> shortcuts;
+        try {
+            update = routingAlgorithm.updateEdges(change);
+            shortcuts = update.isLengthening() ? null : shortcutFilter(update);
+        } catch (RuntimeException e) {
+            synchronized (routeCache) {
+                pendingUpdates--;
+            }
+            throw e;
+        }
+
+        synchronized (routeCache) {
+            pendingUpdates--;
+            if (cachedGraph == update.getPrevious()) {
+                routeCache.invalidateEdges(update.getEdges());
+                if (shortcuts != null) {
+                    routeCache.invalidateIf(shortcuts);
+                }
+                cachedGraph = update.getGraph();
+            } else if (cachedGraph == null || cachedGraph.getVersion() < update.getGraph().getVersion()) {
+                // Another update or a reload was applied out of order, so the cached routes no longer line up
+                // with this update's edges
+                routeCache.invalidateAll();
+                cachedGraph = update.getGraph();
+            }
+        }
+        return update.getGraph().getVersion();
+    }
+
+    /**
+     * A route that avoids a changed edge stays shortest if the edge only got longer. If it got shorter, from u to v,
+     * the best path through it from s to t costs exactly d(s, u) + w + d(v, t) in the old distances, so only
+     * routes longer than that can have been beaten. Connections are two-way, so d(s, u) is the distance from u to s.
+     */
+    private static BiPredicate<RouteCache.Key, Double> shortcutFilter(CampusMap.EdgeUpdate update) {
+        CampusGraph previous = update.getPrevious();
+        CampusGraph graph = update.getGraph();
+        List<int[]> shortened = new ArrayList<>();
+        Map<Integer, double[]> distancesFrom = new HashMap<>();
+        for (int edge : update.getEdges()) {
+            if (graph.weight(edge) < previous.weight(edge)) {
+                int[] ends = { edge, previous.source(edge), previous.target(edge) };
+                shortened.add(ends);
+                for (int i = 1; i < ends.length; i++) {
+                    distancesFrom.computeIfAbsent(ends[i], node -> {
+                        // Workspaces are reused by the next search, so the distances are copied out
+                        SearchWorkspace workspace = SearchWorkspace.forward(previous.getNodeCount());
+                        DijkstraSearch.run(previous, workspace, node, -1);
+                        double[] distances = new double[previous.getNodeCount()];
+                        for (int v = 0; v < distances.length; v++) {
+                            distances[v] = workspace.distance(v);
+                        }
+                        return distances;
+                    });
+                }
+            }
+        }
+        return (key, bound) -> {
+            int s = previous.idOf(key.getStart());
+            int t = previous.idOf(key.getEnd());
+            if (s < 0 || t < 0) {
+                return false;
+            }
+            for (int[] ends : shortened) {
+                double through = distancesFrom.get(ends[1])[s] + graph.weight(ends[0]) + distancesFrom.get(ends[2])[t];
+                if (through < bound) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private static int[] edgesOf(List<Route> routes, CampusGraph graph) {
+        List<Integer> edges = new ArrayList<>();
+        for (Route route : routes) {
+            List<String> path = route.getPath();
+            for (int i = 0; i + 1 < path.size(); i++) {
+                int edge = graph.findEdge(graph.idOf(path.get(i)), graph.idOf(path.get(i + 1)));
+                if (edge >= 0) {
+                    edges.add(edge);
+                }
+            }
+        }
+        return edges.stream().mapToInt(Integer::intValue).distinct().toArray();
+    }
+
+    // The length a new path must beat to change the answer: the last of a full set of routes ranked by distance
+    private static double bound(List<Route> routes, int count) {
+        if (count <= 0 || routes.size() < count) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return routes.get(routes.size() - 1).getTotalDistance();
+    }
+
+    private static List<Route> stamp(List<Route> routes, CampusGraph graph) {
+        for (Route route : routes) {
+            route.setMapVersion(graph.getVersion());
+        }
+        return routes;
+    }
+
+    private static List<Route> asList(Route route) {
+        return route == null ? Collections.emptyList() : Collections.singletonList(route);
+    }
+
+    private static Route first(List<Route> routes) {
+        return routes.isEmpty() ? null : routes.get(0);
+    }
+
+    private List<String> findPrecomputedPath(CampusMap.Snapshot snapshot, String startLocation, String endLocation) {
+        AllPairsTable table = routingAlgorithm.getAllPairsTable();
+        // A table still being rebuilt for a newer map, or left over from an older one, does not match this snapshot
+        if (table == null || table.getGraph() != snapshot.getGraph()) {
+            return null;
+        }
+        CampusGraph graph = table.getGraph();
+        if (graph.idOf(startLocation) < 0 || graph.idOf(endLocation) < 0) {
+            return new ArrayList<>();
+        }
+        return graph.toNames(table.path(graph.idOf(startLocation), graph.idOf(endLocation)));
+    }
+
+    private static double calculateTotalDistance(CampusGraph graph, List<String> path) {
         if (path.size() < 2)
             return 0.0;
 
         double totalDistance = 0.0;
         for (int i = 0; i < path.size() - 1; i++) {
-            totalDistance += campusMap.getDistance(path.get(i), path.get(i + 1));
+            int from = graph.idOf(path.get(i));
+            int to = graph.idOf(path.get(i + 1));
+            totalDistance += from < 0 || to < 0 ? Double.POSITIVE_INFINITY : graph.distance(from, to);
         }
         return totalDistance;
     }
 
-    private List<String> extractLandmarks(List<String> path) {
+    private static List<String> extractLandmarks(CampusMap.Snapshot snapshot, List<String> path) {
         List<String> landmarks = new ArrayList<>();
         for (String locationName : path) {
-            Location location = campusMap.getLocation(locationName);
+            Location location = snapshot.getLocations().get(locationName);
             if (location != null && !location.getLandmarks().isEmpty()) {
                 landmarks.addAll(location.getLandmarks());
             }
@@ -235,19 +719,6 @@ public class RoutingService {
         return landmarks.stream().distinct().collect(Collectors.toList());
     }
 
-    private String determineAlgorithm(List<String> path, String start, String end) {
-        List<String> shortestPath = routingAlgorithm.findShortestPath(start, end);
-        List<String> optimalPath = routingAlgorithm.findOptimalPath(start, end);
-
-        if (path.equals(shortestPath)) {
-            return "Dijkstra's Algorithm";
-        } else if (path.equals(optimalPath)) {
-            return "A* Algorithm";
-        } else {
-            return "Alternative Route";
-        }
-    }
-
     private List<Route> removeDuplicateRoutes(List<Route> routes) {
         Set<String> seen = new HashSet<>();
         List<Route> uniqueRoutes = new ArrayList<>();
@@ -1,16 +1,162 @@
 package com.ugnavigate.services;
 
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.TrafficOverlay;
+import com.ugnavigate.models.TrafficProfile;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
 public class TrafficService {
+    private static final float HEAVY = 1.5f;
+    private static final float MODERATE = 1.2f;
+
+    // Lectures run on the hour from 07:00 to 18:00; the crowds peak in the quarter-hours either side of each change
+    private static final int FIRST_CHANGEOVER_HOUR = 7;
+    private static final int LAST_CHANGEOVER_HOUR = 18;
+
+    // Live congestion, swapped atomically; its epoch is the traffic epoch
+    private final AtomicReference<TrafficOverlay> overlay = new AtomicReference<>(TrafficOverlay.empty(null, 0));
+    private volatile TrafficProfile profile;
+
+    /**
+     * Returns a counter that changes whenever traffic data changes, so cached results can be tagged with it
+     */
+    public long getEpoch() {
+        return overlay.get().getEpoch();
+    }
+
+    /**
+     * Signal that traffic data has changed
+     */
+    public long advanceEpoch() {
+        return overlay.updateAndGet(current -> current.withEpoch(current.getEpoch() + 1)).getEpoch();
+    }
+
+    /**
+     * Returns the live traffic snapshot for a graph. Searches should read it once and use it throughout.
+     * The shared snapshot only ever moves forward to a newer map: a search still on an older one gets a private
+     * copy carried back to its graph, so it cannot drop live data for connections the older map lacks.
+     */
+    public TrafficOverlay getOverlay(CampusGraph graph) {
+        TrafficOverlay current = overlay.get();
+        while (current.getGraph() != graph) {
+            TrafficOverlay rebased = current.rebase(graph);
+            if (!isNewer(graph, current.getGraph())) {
+                return rebased;
+            }
+            if (overlay.compareAndSet(current, rebased)) {
+                return rebased;
+            }
+            current = overlay.get();
+        }
+        return current;
+    }
+
+    /**
+     * Publishes live multipliers for edges of the given graph and advances the traffic epoch.
+     * Never blocks searches: the update copies the current snapshot and swaps it in, retrying if another
+     * update got there first. Edges of a graph older than the published one are carried forward to it.
+     */
+    public TrafficOverlay updateLiveTraffic(CampusGraph graph, int[] edges, float[] multipliers) {
+        for (float multiplier : multipliers) {
+            if (!(multiplier > 0) || Float.isInfinite(multiplier)) {
+                throw new IllegalArgumentException("Traffic multipliers must be positive and finite: " + multiplier);
+            }
+        }
+        return overlay.updateAndGet(current -> {
+            if (current.getGraph() == graph) {
+                return current.with(edges, multipliers, current.getEpoch() + 1);
+            }
+            if (isNewer(graph, current.getGraph())) {
+                return current.rebase(graph).with(edges, multipliers, current.getEpoch() + 1);
+            }
+            return current.with(translate(graph, edges, current.getGraph()), multipliers, current.getEpoch() + 1);
+        });
+    }
+
+    // Finds each edge of one graph in another by the names of its endpoints, or -1 where the other graph lacks it
+    private static int[] translate(CampusGraph from, int[] edges, CampusGraph to) {
+        int[] translated = new int[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            int source = to.idOf(from.nameOf(from.source(edges[i])));
+            int target = to.idOf(from.nameOf(from.target(edges[i])));
+            translated[i] = source < 0 || target < 0 ? -1 : to.findEdge(source, target);
+        }
+        return translated;
+    }
+
+    // Graphs of the same map carry increasing versions; any graph replaces the empty overlay's missing one
+    private static boolean isNewer(CampusGraph graph, CampusGraph published) {
+        return published == null || graph.getVersion() > published.getVersion();
+    }
+
+    /**
+     * Returns the traffic profile for a graph snapshot, deriving the default one if the graph's edges have changed
+     */
+    public TrafficProfile getProfile(CampusGraph graph) {
+        TrafficProfile current = profile;
+        if (current == null || current.getGraph() != graph) {
+            synchronized (this) {
+                current = profile;
+                if (current == null || current.getGraph() != graph) {
+                    // When only edge weights changed, a fitted profile stays valid
+                    current = current != null && current.getGraph().hasSameEdges(graph)
+                            ? current.rebase(graph)
+                            : defaultProfile(graph);
+                    profile = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Replace the traffic profile, e.g. with one fitted to observed walking times
+     */
+    public void setProfile(TrafficProfile profile) {
+        this.profile = profile;
+        advanceEpoch();
+    }
+
+    /**
+     * Returns the quarter-hour slot of the day we are in now
+     */
+    public int currentSlot() {
+        return TrafficProfile.slotOf(LocalTime.now());
+    }
 
     public String assessTrafficConditions(String location) {
-        // Logic to assess current traffic conditions based on the location
-        // This could involve calling an external API or using a traffic data source
-        return "Traffic conditions for " + location + ": Moderate";
+        // Average the current scheduled and live multipliers on the paths leaving the location
+        TrafficProfile current = profile;
+        String level = "Light";
+        if (current != null && current.getGraph().idOf(location) >= 0) {
+            CampusGraph graph = current.getGraph();
+            int node = graph.idOf(location);
+            int slot = currentSlot();
+            TrafficOverlay live = getOverlay(graph);
+            double sum = 0.0;
+            for (int e = graph.edgeStart(node); e < graph.edgeEnd(node); e++) {
+                sum += current.multiplier(e, slot) * live.multiplier(e);
+            }
+            int edges = graph.edgeEnd(node) - graph.edgeStart(node);
+            double average = edges == 0 ? 1.0 : sum / edges;
+            if (average >= HEAVY) {
+                level = "Heavy";
+            } else if (average > 1.0) {
+                level = "Moderate";
+            }
+        }
+        return "Traffic conditions for " + location + ": " + level;
     }
 
     public int adjustRouteForTraffic(int baseTravelTime, String trafficCondition) {
+        // Accept either a bare level or a full assessment ending in one
+        String level = trafficCondition.substring(trafficCondition.lastIndexOf(':') + 1).trim();
+
         // Logic to adjust travel time based on traffic conditions
-        switch (trafficCondition.toLowerCase()) {
+        switch (level.toLowerCase()) {
             case "heavy":
                 return (int) (baseTravelTime * 1.5); // Increase time by 50%
             case "moderate":
@@ -20,4 +166,32 @@ public class TrafficService {
                 return baseTravelTime; // No adjustment
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Slows every path during class changeovers, heavily where it touches an academic building
+     */
+    private static TrafficProfile defaultProfile(CampusGraph graph) {
+        float[] heavy = changeoverDay(HEAVY);
+        float[] moderate = changeoverDay(MODERATE);
+        TrafficProfile.Builder builder = TrafficProfile.builder(graph);
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            for (int e = graph.edgeStart(node); e < graph.edgeEnd(node); e++) {
+                boolean academic = "academic".equalsIgnoreCase(graph.category(node))
+                        || "academic".equalsIgnoreCase(graph.category(graph.target(e)));
+                builder.set(e, academic ? heavy : moderate);
+            }
+        }
+        return builder.build();
+    }
+
+    private static float[] changeoverDay(float multiplier) {
+        float[] day = new float[TrafficProfile.SLOTS];
+        Arrays.fill(day, 1.0f);
+        int slotsPerHour = 60 / TrafficProfile.SLOT_MINUTES;
+        for (int hour = FIRST_CHANGEOVER_HOUR; hour <= LAST_CHANGEOVER_HOUR; hour++) {
+            int slot = hour * slotsPerHour;
+            Arrays.fill(day, slot - 1, slot + 1, multiplier);
+        }
+        return day;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ugnavigate;
+
+import com.ugnavigate.models.CampusMap;
+import com.ugnavigate.models.Location;
+
+import java.util.Random;
+
+/**
+ * Small campus maps shared by the tests
+ */
+public final class TestMaps {
+
+    private TestMaps() {
+    }
+
+    /**
+     * A side x side grid of locations named "row:col", 0.001 degrees apart, with random connection lengths.
+     * With diagonals, about a third of the squares also get a diagonal connection.
+     */
+    public static CampusMap randomGrid(int side, long seed, boolean diagonals) {
+        Random random = new Random(seed);
+        CampusMap campusMap = new CampusMap();
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                campusMap.addLocation(new Location(row + ":" + col, 5.65 + row * 0.001, -0.19 + col * 0.001));
+            }
+        }
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                String name = row + ":" + col;
+                if (col + 1 < side) {
+                    campusMap.addConnection(name, row + ":" + (col + 1), 0.05 + random.nextDouble());
+                }
+                if (row + 1 < side) {
+                    campusMap.addConnection(name, (row + 1) + ":" + col, 0.05 + random.nextDouble());
+                }
+                if (diagonals && row + 1 < side && col + 1 < side && random.nextInt(3) == 0) {
+                    campusMap.addConnection(name, (row + 1) + ":" + (col + 1), 0.05 + random.nextDouble());
+                }
+            }
+        }
+        return campusMap;
+    }
+
+    /**
+     * West Gate and East Gate on an east-west road about 1.1 km long, and a Library north of East Gate reached
+     * from it by a 1.2 km path
+     */
+    public static CampusMap gates() {
+        CampusMap campusMap = new CampusMap();
+        campusMap.addLocation(new Location("West Gate", 5.6500, -0.1900));
+        campusMap.addLocation(new Location("East Gate", 5.6500, -0.1800));
+        campusMap.addLocation(new Location("Library", 5.6600, -0.1830));
+        campusMap.addConnection("West Gate", "East Gate", 1.1);
+        campusMap.addConnection("East Gate", "Library", 1.2);
+        return campusMap;
+    }
+}
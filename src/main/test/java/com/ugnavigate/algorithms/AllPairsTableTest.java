@@ -0,0 +1,118 @@
+package com.ugnavigate.algorithms;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.CampusMap;
+
+class AllPairsTableTest {
+
+    private CampusGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        CampusMap campusMap = new CampusMap();
+        campusMap.addConnection("A", "B", 10.0);
+        campusMap.addConnection("A", "C", 15.0);
+        campusMap.addConnection("B", "C", 5.0);
+        campusMap.addConnection("B", "D", 12.0);
+        campusMap.addConnection("C", "D", 8.0);
+        campusMap.addConnection("E", "F", 1.0);
+        graph = campusMap.getGraph();
+    }
+
+    @Test
+    void testFloydWarshallDistances() {
+        AllPairsTable table = AllPairsTable.floydWarshall(graph);
+        assertEquals(22.0, table.distance(graph.idOf("A"), graph.idOf("D")));
+        assertEquals(12.0, table.distance(graph.idOf("D"), graph.idOf("B")));
+        assertEquals(0.0, table.distance(graph.idOf("C"), graph.idOf("C")));
+        assertEquals(Double.POSITIVE_INFINITY, table.distance(graph.idOf("A"), graph.idOf("E")));
+    }
+
+    @Test
+    void testPathFollowsNextHops() {
+        AllPairsTable table = AllPairsTable.floydWarshall(graph);
+        int[] path = table.path(graph.idOf("A"), graph.idOf("D"));
+        assertArrayEquals(new int[] { graph.idOf("A"), graph.idOf("B"), graph.idOf("D") }, path);
+        assertEquals(1, table.path(graph.idOf("B"), graph.idOf("B")).length);
+        assertEquals(0, table.path(graph.idOf("F"), graph.idOf("C")).length);
+    }
+
+    @Test
+    void testPathsMatchDijkstra() {
+        AllPairsTable table = AllPairsTable.floydWarshall(graph);
+        for (int s = 0; s < graph.getNodeCount(); s++) {
+            SearchWorkspace workspace = SearchWorkspace.forward(graph.getNodeCount());
+            DijkstraSearch.run(graph, workspace, s, -1);
+            for (int t = 0; t < graph.getNodeCount(); t++) {
+                assertEquals(workspace.distance(t), table.distance(s, t));
+                int[] path = table.path(s, t);
+                if (path.length > 0) {
+                    assertEquals(table.distance(s, t), graph.pathDistance(path), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testParallelDijkstraMatchesFloydWarshall() {
+        AllPairsTable expected = AllPairsTable.floydWarshall(graph);
+        AllPairsTable actual = AllPairsTable.parallelDijkstra(graph, 2);
+        assertEquals("Parallel Dijkstra", actual.getMethod());
+        for (int s = 0; s < graph.getNodeCount(); s++) {
+            for (int t = 0; t < graph.getNodeCount(); t++) {
+                assertEquals(expected.distance(s, t), actual.distance(s, t));
+                int[] path = actual.path(s, t);
+                assertEquals(expected.path(s, t).length > 0, path.length > 0);
+                if (path.length > 0) {
+                    assertEquals(s, path[0]);
+                    assertEquals(t, path[path.length - 1]);
+                    assertEquals(actual.distance(s, t), graph.pathDistance(path), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testRepairMatchesRecompute() {
+        CampusMap campusMap = new CampusMap();
+        campusMap.addConnection("A", "B", 10.0);
+        campusMap.addConnection("A", "C", 15.0);
+        campusMap.addConnection("B", "C", 5.0);
+        campusMap.addConnection("B", "D", 12.0);
+        campusMap.addConnection("C", "D", 8.0);
+        campusMap.addConnection("D", "E", 3.0);
+        campusMap.addConnection("X", "Y", 1.0);
+        AllPairsTable table = AllPairsTable.parallelDijkstra(campusMap.getGraph(), 1);
+
+        CampusMap.EdgeUpdate[] updates = {
+                campusMap.closeConnection("B", "C"),
+                campusMap.setConnectionDistance("A", "C", 4.0),
+                campusMap.reopenConnection("B", "C"),
+                campusMap.setConnectionDistance("D", "E", 30.0),
+                campusMap.setConnectionDistance("X", "Y", 2.0),
+        };
+        for (CampusMap.EdgeUpdate update : updates) {
+            table = table.repair(update.getGraph(), update.getEdges(), 1);
+            assertSameTable(AllPairsTable.floydWarshall(update.getGraph()), table);
+        }
+        // Only the rows of the two locations that can reach X-Y were searched again
+        assertEquals(2, table.getComputedRows());
+    }
+
+    private static void assertSameTable(AllPairsTable expected, AllPairsTable actual) {
+        CampusGraph graph = actual.getGraph();
+        for (int s = 0; s < graph.getNodeCount(); s++) {
+            for (int t = 0; t < graph.getNodeCount(); t++) {
+                assertEquals(expected.distance(s, t), actual.distance(s, t), 1e-9);
+                int[] path = actual.path(s, t);
+                if (path.length > 0) {
+                    assertEquals(actual.distance(s, t), graph.pathDistance(path), 1e-9);
+                }
+            }
+        }
+    }
+}
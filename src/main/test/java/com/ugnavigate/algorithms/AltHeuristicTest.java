@@ -0,0 +1,91 @@
+package com.ugnavigate.algorithms;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ugnavigate.TestMaps;
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.CampusMap;
+import com.ugnavigate.services.TrafficService;
+
+import java.util.List;
+
+class AltHeuristicTest {
+
+    @Test
+    void testBoundsNeverOverestimate() {
+        CampusGraph graph = TestMaps.randomGrid(10, 3L, false).getGraph();
+        AltHeuristic heuristic = AltHeuristic.build(graph, 4);
+        assertEquals(4, heuristic.getAnchors().length);
+
+        int n = graph.getNodeCount();
+        for (int source = 0; source < n; source += 7) {
+            SearchWorkspace workspace = SearchWorkspace.forward(n);
+            DijkstraSearch.run(graph, workspace, source, -1);
+            for (int target = 0; target < n; target++) {
+                assertTrue(heuristic.lowerBound(source, target) <= workspace.distance(target) + 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void testOptimalPathMatchesShortestPathLength() {
+        CampusMap campusMap = TestMaps.randomGrid(10, 5L, false);
+        RoutingAlgorithm routingAlgorithm = new RoutingAlgorithm(campusMap, new TrafficService());
+        CampusGraph graph = campusMap.getGraph();
+
+        for (String target : new String[] { "9:9", "0:9", "5:4", "9:0" }) {
+            int[] expected = toIds(graph, routingAlgorithm.findShortestPath("0:0", target));
+            int[] actual = toIds(graph, routingAlgorithm.findOptimalPath("0:0", target));
+            assertTrue(expected.length > 1);
+            assertEquals(graph.pathDistance(expected), graph.pathDistance(actual), 1e-9);
+        }
+    }
+
+    @Test
+    void testGreatCircleBoundStaysAdmissibleWithApproximateCoordinates() {
+        CampusMap campusMap = TestMaps.randomGrid(10, 9L, false);
+        CampusGraph graph = campusMap.getGraph();
+        HaversineHeuristic heuristic = new HaversineHeuristic(graph);
+        assertTrue(heuristic.getScale() > 0.0 && heuristic.getScale() <= 1.0);
+
+        RoutingAlgorithm routingAlgorithm = new RoutingAlgorithm(campusMap, new TrafficService());
+        routingAlgorithm.setAltAnchorCount(0);
+        for (String target : new String[] { "9:9", "3:8", "7:1" }) {
+            int[] expected = toIds(graph, routingAlgorithm.findShortestPath("2:2", target));
+            int[] actual = toIds(graph, routingAlgorithm.findOptimalPath("2:2", target));
+            assertEquals(graph.pathDistance(expected), graph.pathDistance(actual), 1e-9);
+            assertEquals("2:2", graph.nameOf(actual[0]));
+            assertEquals(target, graph.nameOf(actual[actual.length - 1]));
+        }
+    }
+
+    @Test
+    void testSearchesUseTheGreatCircleBoundUntilAnchorsAreSelected() throws InterruptedException {
+        CampusMap campusMap = TestMaps.randomGrid(10, 11L, false);
+        RoutingAlgorithm routingAlgorithm = new RoutingAlgorithm(campusMap, new TrafficService());
+        CampusGraph graph = campusMap.getGraph();
+        int[] expected = toIds(graph, routingAlgorithm.findShortestPath("0:0", "9:9"));
+
+        // The first search starts the anchor selection and goes ahead without waiting for it
+        int[] actual = toIds(graph, routingAlgorithm.findOptimalPath("0:0", "9:9"));
+        assertEquals(graph.pathDistance(expected), graph.pathDistance(actual), 1e-9);
+        for (int i = 0; routingAlgorithm.getAltBuiltAt() == 0 && i < 500; i++) {
+            Thread.sleep(10);
+        }
+        assertNotEquals(0, routingAlgorithm.getAltBuiltAt());
+
+        AStarHeuristic heuristic = routingAlgorithm.getHeuristic(graph);
+        HaversineHeuristic greatCircle = new HaversineHeuristic(graph);
+        int source = graph.idOf("0:0");
+        int target = graph.idOf("9:9");
+        assertTrue(heuristic.lowerBound(source, target) >= greatCircle.lowerBound(source, target));
+        assertTrue(heuristic.lowerBound(source, target) <= graph.pathDistance(expected) + 1e-9);
+        actual = toIds(graph, routingAlgorithm.findOptimalPath("0:0", "9:9"));
+        assertEquals(graph.pathDistance(expected), graph.pathDistance(actual), 1e-9);
+    }
+
+    private static int[] toIds(CampusGraph graph, List<String> path) {
+        return path.stream().mapToInt(graph::idOf).toArray();
+    }
+}
@@ -0,0 +1,45 @@
+package com.ugnavigate.algorithms;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ugnavigate.TestMaps;
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.CampusMap;
+
+import java.util.Random;
+
+class ContractionHierarchyTest {
+
+    @Test
+    void testQueriesMatchDijkstra() {
+        CampusGraph graph = TestMaps.randomGrid(12, 42L, true).getGraph();
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        int n = graph.getNodeCount();
+        Random random = new Random(7L);
+
+        for (int i = 0; i < 200; i++) {
+            int source = random.nextInt(n);
+            int target = random.nextInt(n);
+            SearchWorkspace workspace = SearchWorkspace.forward(n);
+            DijkstraSearch.run(graph, workspace, source, target);
+            double expected = workspace.distance(target);
+
+            int[] path = hierarchy.findPath(source, target);
+            assertEquals(source, path[0]);
+            assertEquals(target, path[path.length - 1]);
+            assertEquals(expected, graph.pathDistance(path), 1e-9);
+        }
+    }
+
+    @Test
+    void testUnreachableTargetReturnsEmptyPath() {
+        CampusMap campusMap = new CampusMap();
+        campusMap.addConnection("A", "B", 1.0);
+        campusMap.addConnection("C", "D", 1.0);
+        CampusGraph graph = campusMap.getGraph();
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        assertEquals(0, hierarchy.findPath(graph.idOf("A"), graph.idOf("D")).length);
+        assertEquals(2, hierarchy.findPath(graph.idOf("B"), graph.idOf("A")).length);
+    }
+}
@@ -0,0 +1,86 @@
+package com.ugnavigate.algorithms;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+class IndexedHeapTest {
+
+    @Test
+    void testRandomOperationsMatchPriorityQueue() {
+        for (long seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            int capacity = 1 + random.nextInt(200);
+            IndexedHeap heap = new IndexedHeap(capacity / 2);
+            heap.ensureCapacity(capacity);
+
+            // The queue keeps every key a node was given; entries that no longer match the node's key are stale
+            Map<Integer, Double> current = new HashMap<>();
+            PriorityQueue<double[]> queue = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[0]));
+            for (int step = 0; step < 5000; step++) {
+                int operation = random.nextInt(10);
+                int node = random.nextInt(capacity);
+                double key = random.nextDouble() * 100.0;
+                if (operation < 4) {
+                    Double old = current.get(node);
+                    boolean changes = old == null || key < old;
+                    assertEquals(changes, heap.insertOrDecrease(node, key), "seed " + seed + " step " + step);
+                    if (changes) {
+                        current.put(node, key);
+                        queue.add(new double[] { key, node });
+                    }
+                } else if (operation < 6) {
+                    heap.update(node, key);
+                    current.put(node, key);
+                    queue.add(new double[] { key, node });
+                } else if (operation < 9) {
+                    if (current.isEmpty()) {
+                        assertTrue(heap.isEmpty());
+                        continue;
+                    }
+                    double[] top = pollLive(queue, current);
+                    assertEquals(top[0], heap.peekKey(), "seed " + seed + " step " + step);
+                    int polled = heap.poll();
+                    assertEquals((int) top[1], polled, "seed " + seed + " step " + step);
+                    current.remove(polled);
+                    assertFalse(heap.contains(polled));
+                } else if (random.nextInt(50) == 0) {
+                    heap.clear();
+                    current.clear();
+                    queue.clear();
+                }
+
+                assertEquals(current.size(), heap.size());
+                assertEquals(current.containsKey(node), heap.contains(node));
+                if (current.containsKey(node)) {
+                    assertEquals(current.get(node), heap.keyOf(node));
+                }
+            }
+
+            // Draining gives the remaining nodes in key order
+            double previous = Double.NEGATIVE_INFINITY;
+            while (!heap.isEmpty()) {
+                double key = heap.peekKey();
+                assertTrue(key >= previous);
+                assertEquals(current.remove(heap.poll()), key);
+                previous = key;
+            }
+            assertTrue(current.isEmpty());
+        }
+    }
+
+    private static double[] pollLive(PriorityQueue<double[]> queue, Map<Integer, Double> current) {
+        while (true) {
+            double[] entry = queue.poll();
+            Double key = current.get((int) entry[1]);
+            if (key != null && key == entry[0]) {
+                return entry;
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ugnavigate.algorithms;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.CampusMap;
+
+import java.util.*;
+
+class KShortestPathsTest {
+
+    private CampusGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        CampusMap campusMap = new CampusMap();
+        Random random = new Random(7);
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 4; col++) {
+                if (col < 3) {
+                    campusMap.addConnection("N" + row + col, "N" + row + (col + 1), 1 + random.nextInt(9));
+                }
+                if (row < 2) {
+                    campusMap.addConnection("N" + row + col, "N" + (row + 1) + col, 1 + random.nextInt(9));
+                }
+            }
+        }
+        campusMap.addConnection("N00", "N23", 30.0);
+        campusMap.addConnection("X", "Y", 1.0);
+        graph = campusMap.getGraph();
+    }
+
+    @Test
+    void testMatchesEnumeratedSimplePaths() {
+        int source = graph.idOf("N00");
+        int target = graph.idOf("N23");
+        List<Double> expected = new ArrayList<>();
+        enumerate(source, target, new boolean[graph.getNodeCount()], 0.0, expected);
+        Collections.sort(expected);
+
+        List<int[]> paths = KShortestPaths.find(graph, source, target, 25);
+        assertEquals(25, paths.size());
+        Set<String> distinct = new HashSet<>();
+        for (int i = 0; i < paths.size(); i++) {
+            int[] path = paths.get(i);
+            assertEquals(source, path[0]);
+            assertEquals(target, path[path.length - 1]);
+            assertEquals(path.length, Arrays.stream(path).distinct().count());
+            assertEquals(expected.get(i), graph.pathDistance(path), 1e-9);
+            assertTrue(distinct.add(Arrays.toString(path)));
+        }
+    }
+
+    @Test
+    void testFewerPathsThanRequested() {
+        List<int[]> paths = KShortestPaths.find(graph, graph.idOf("X"), graph.idOf("Y"), 3);
+        assertEquals(1, paths.size());
+        assertTrue(KShortestPaths.find(graph, graph.idOf("X"), graph.idOf("N00"), 3).isEmpty());
+    }
+
+    private void enumerate(int node, int target, boolean[] visited, double cost, List<Double> costs) {
+        if (node == target) {
+            costs.add(cost);
+            return;
+        }
+        visited[node] = true;
+        for (int e = graph.edgeStart(node); e < graph.edgeEnd(node); e++) {
+            if (!visited[graph.target(e)]) {
+                enumerate(graph.target(e), target, visited, cost + graph.weight(e), costs);
+            }
+        }
+        visited[node] = false;
+    }
+}
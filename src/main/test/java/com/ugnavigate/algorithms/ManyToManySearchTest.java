@@ -0,0 +1,106 @@
+package com.ugnavigate.algorithms;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.CampusMap;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+class ManyToManySearchTest {
+
+    private CampusGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        CampusMap campusMap = new CampusMap();
+        Random random = new Random(5);
+        for (int row = 0; row < 6; row++) {
+            for (int col = 0; col < 6; col++) {
+                if (col < 5) {
+                    campusMap.addConnection("N" + row + col, "N" + row + (col + 1), 1 + random.nextInt(9));
+                }
+                if (row < 5) {
+                    campusMap.addConnection("N" + row + col, "N" + (row + 1) + col, 1 + random.nextInt(9));
+                }
+            }
+        }
+        campusMap.addConnection("X", "Y", 1.0);
+        graph = campusMap.getGraph();
+    }
+
+    @Test
+    void testMatchesAllPairsTable() {
+        AllPairsTable table = AllPairsTable.floydWarshall(graph);
+        int[] few = { graph.idOf("N00"), graph.idOf("X"), -1 };
+        int[] many = new int[graph.getNodeCount()];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = i;
+        }
+
+        // Both orientations, so the transposed search is covered too
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertMatches(table, few, many, ManyToManySearch.compute(graph, few, many, pool));
+            assertMatches(table, many, few, ManyToManySearch.compute(graph, many, few, pool));
+        } finally {
+            pool.shutdown();
+        }
+        assertMatches(table, few, many, ManyToManySearch.compute(table, few, many));
+    }
+
+    @Test
+    void testPricesThePathBehindEveryCellFromItsSource() {
+        AllPairsTable table = AllPairsTable.floydWarshall(graph);
+        int[] few = { graph.idOf("N00"), graph.idOf("N55"), graph.idOf("X"), -1 };
+        int[] many = new int[graph.getNodeCount()];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = i;
+        }
+        // Prices the path's length and where it starts, so a reversed path would show
+        ManyToManySearch.PathCost cost = path -> graph.pathDistance(path) + 1000.0 * path[0];
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            double[][] costs = new double[few.length][many.length];
+            ManyToManySearch.compute(graph, few, many, pool, cost, costs);
+            assertPriced(table, few, many, costs);
+            costs = new double[many.length][few.length];
+            ManyToManySearch.compute(graph, many, few, pool, cost, costs);
+            assertPriced(table, many, few, costs);
+        } finally {
+            pool.shutdown();
+        }
+        double[][] costs = new double[few.length][many.length];
+        ManyToManySearch.compute(table, few, many, cost, costs);
+        assertPriced(table, few, many, costs);
+    }
+
+    private void assertPriced(AllPairsTable table, int[] sources, int[] targets, double[][] costs) {
+        for (int i = 0; i < sources.length; i++) {
+            for (int j = 0; j < targets.length; j++) {
+                double distance = sources[i] < 0 || targets[j] < 0
+                        ? Double.POSITIVE_INFINITY
+                        : table.distance(sources[i], targets[j]);
+                double expected = distance < Double.POSITIVE_INFINITY
+                        ? distance + 1000.0 * sources[i]
+                        : Double.POSITIVE_INFINITY;
+                assertEquals(expected, costs[i][j], 1e-9);
+            }
+        }
+    }
+
+    private void assertMatches(AllPairsTable table, int[] sources, int[] targets, double[][] actual) {
+        for (int i = 0; i < sources.length; i++) {
+            for (int j = 0; j < targets.length; j++) {
+                double expected = sources[i] < 0 || targets[j] < 0
+                        ? Double.POSITIVE_INFINITY
+                        : table.distance(sources[i], targets[j]);
+                assertEquals(expected, actual[i][j], 1e-9);
+            }
+        }
+    }
+}
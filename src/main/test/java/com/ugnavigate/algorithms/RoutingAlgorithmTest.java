@@ -5,8 +5,10 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.ugnavigate.models.CampusMap;
+import com.ugnavigate.models.RouteMatrix;
 import com.ugnavigate.services.TrafficService;
 
+import java.time.LocalTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -106,4 +108,63 @@ class RoutingAlgorithmTest {
         long actualArrivalTime = routingAlgorithm.calculateArrivalTime("A", "B");
         assertTrue(actualArrivalTime > 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testAllPairsTableIsBuiltInTheBackground() throws InterruptedException {
+        routingAlgorithm.precompute();
+        AllPairsTable table = routingAlgorithm.getAllPairsTable();
+        for (int i = 0; table == null && i < 500; i++) {
+            Thread.sleep(10);
+            table = routingAlgorithm.getAllPairsTable();
+        }
+        assertNotNull(table);
+        assertSame(campusMap.getGraph(), table.getGraph());
+        assertEquals(22.0, table.distance(table.getGraph().idOf("A"), table.getGraph().idOf("D")));
+
+        // A changed map is searched until its own table is ready
+        campusMap.addConnection("A", "D", 1.0);
+        assertEquals(Arrays.asList("A", "D"), routingAlgorithm.findShortestPath("A", "D"));
+    }
+
+    @Test
+    void testContractedPathIsSearchedUntilItsHierarchyIsReady() throws InterruptedException {
+        assertEquals(routingAlgorithm.findShortestPath("A", "D"), routingAlgorithm.findContractedPath("A", "D"));
+        for (int i = 0; routingAlgorithm.getContractionBuiltAt() == 0 && i < 500; i++) {
+            Thread.sleep(10);
+        }
+        assertNotEquals(0, routingAlgorithm.getContractionBuiltAt());
+        assertEquals(Arrays.asList("A", "B", "D"), routingAlgorithm.findContractedPath("A", "D"));
+
+        // A changed map is answered straight away, without waiting for its hierarchy
+        campusMap.addConnection("A", "D", 1.0);
+        assertEquals(Arrays.asList("A", "D"), routingAlgorithm.findContractedPath("A", "D"));
+        assertSame(campusMap.getGraph(), routingAlgorithm.getContractionHierarchy().getGraph());
+        assertEquals(Arrays.asList("A", "D"), routingAlgorithm.findContractedPath("A", "D"));
+    }
+
+    @Test
+    void testRouteMatrixTimesMatchTheRouteTimes() {
+        List<String> names = Arrays.asList("A", "B", "C", "D");
+        for (LocalTime departure : new LocalTime[] { LocalTime.of(1, 0), LocalTime.of(7, 55), LocalTime.of(12, 0) }) {
+            RouteMatrix matrix = routingAlgorithm.findRouteMatrix(names, names, departure);
+            for (int i = 0; i < names.size(); i++) {
+                for (int j = 0; j < names.size(); j++) {
+                    List<String> path = routingAlgorithm.findShortestPath(names.get(i), names.get(j));
+                    assertEquals(routingAlgorithm.calculateArrivalTimeForRoute(path, departure),
+                            matrix.getTimes()[i][j].longValue(), names.get(i) + " -> " + names.get(j));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testFindReachableLocationsStopsAtBudget() {
+        // 10 km takes 120 minutes at 5 km/h; D is 22 km away. Leave at night, clear of class changeovers.
+        Map<String, Long> reachable = routingAlgorithm.findReachableLocations("A", 200, LocalTime.of(1, 0));
+        assertEquals(Arrays.asList("A", "B", "C"), Arrays.asList(reachable.keySet().toArray()));
+        assertEquals(0L, reachable.get("A"));
+        assertEquals(120L, reachable.get("B"));
+        assertEquals(180L, reachable.get("C"));
+        assertTrue(routingAlgorithm.findReachableLocations("Unknown", 200).isEmpty());
+    }
+}
@@ -0,0 +1,115 @@
+package com.ugnavigate.algorithms;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ugnavigate.TestMaps;
+import com.ugnavigate.models.CampusGraph;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+class SearchWorkspaceTest {
+
+    @Test
+    void testReusedWorkspaceForgetsTheLastSearch() {
+        SearchWorkspace workspace = SearchWorkspace.forward(10);
+        for (int node = 0; node < 10; node++) {
+            workspace.relax(node, node, 0, node);
+            workspace.settle(node);
+        }
+
+        workspace = SearchWorkspace.forward(10);
+        assertTrue(workspace.heap().isEmpty());
+        for (int node = 0; node < 10; node++) {
+            assertFalse(workspace.isReached(node));
+            assertFalse(workspace.isSettled(node));
+            assertEquals(Double.POSITIVE_INFINITY, workspace.distance(node));
+            assertEquals(-1, workspace.parent(node));
+        }
+        // A longer distance is still taken, as the last search's shorter one is gone
+        assertTrue(workspace.relax(3, 50.0, 2, 50.0));
+        assertEquals(50.0, workspace.distance(3));
+    }
+
+    @Test
+    void testSearchesMatchFreshOnesAcrossGrowthAndWraparound() {
+        CampusGraph small = TestMaps.randomGrid(4, 1L, false).getGraph();
+        CampusGraph large = TestMaps.randomGrid(8, 2L, false).getGraph();
+        double[] expectedSmall = freshDistances(small, 0);
+        double[] expectedLarge = freshDistances(large, 5);
+
+        // Searches from a new thread start at the first generation, so the counter comes round to it again
+        onNewThread(() -> assertWorkspaceSurvivesWraparound(small, large, expectedSmall, expectedLarge));
+    }
+
+    private static void assertWorkspaceSurvivesWraparound(CampusGraph small, CampusGraph large,
+            double[] expectedSmall, double[] expectedLarge) {
+        // Nodes reached by the first search keep its generation until the counter wraps round to it
+        SearchWorkspace workspace = SearchWorkspace.forward(large.getNodeCount());
+        int early = (int) ReflectionTestUtils.getField(workspace, "generation");
+        DijkstraSearch.run(large, workspace, 5, -1);
+        ReflectionTestUtils.setField(workspace, "generation", Integer.MAX_VALUE - 3);
+
+        boolean wrapped = false;
+        for (int i = 0; i < 6; i++) {
+            // Partial searches leave distances behind that the next full search must not read
+            workspace = SearchWorkspace.forward(small.getNodeCount());
+            DijkstraSearch.run(small, workspace, 0, 1);
+            workspace = SearchWorkspace.forward(small.getNodeCount());
+            DijkstraSearch.run(small, workspace, 0, -1);
+            assertDistances(expectedSmall, workspace);
+
+            workspace = SearchWorkspace.forward(large.getNodeCount());
+            if ((int) ReflectionTestUtils.getField(workspace, "generation") == early) {
+                // Back at the first search's generation: nothing it reached may show through
+                wrapped = true;
+                for (int node = 0; node < large.getNodeCount(); node++) {
+                    assertFalse(workspace.isReached(node));
+                }
+            }
+            DijkstraSearch.run(large, workspace, 5, -1);
+            assertDistances(expectedLarge, workspace);
+        }
+        assertTrue(wrapped);
+    }
+
+    private static double[] freshDistances(CampusGraph graph, int source) {
+        // A new thread starts with workspaces that have never been used
+        double[] distances = new double[graph.getNodeCount()];
+        onNewThread(() -> {
+            SearchWorkspace workspace = SearchWorkspace.forward(graph.getNodeCount());
+            DijkstraSearch.run(graph, workspace, source, -1);
+            for (int node = 0; node < distances.length; node++) {
+                distances[node] = workspace.distance(node);
+            }
+        });
+        return distances;
+    }
+
+    private static void onNewThread(Runnable test) {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                test.run();
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    private static void assertDistances(double[] expected, SearchWorkspace workspace) {
+        for (int node = 0; node < expected.length; node++) {
+            assertEquals(expected[node], workspace.distance(node), 1e-9, "node " + node);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.ugnavigate.algorithms;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.CampusMap;
+import com.ugnavigate.models.TrafficOverlay;
+import com.ugnavigate.models.TrafficProfile;
+
+class TimeDependentDijkstraTest {
+
+    private CampusGraph graph;
+    private TrafficOverlay noLiveTraffic;
+
+    @BeforeEach
+    void setUp() {
+        // A-B-D is 1 km, A-C-D is 1.5 km; at 5 km/h each 0.5 km leg takes 6 minutes
+        CampusMap campusMap = new CampusMap();
+        campusMap.addConnection("A", "B", 0.5);
+        campusMap.addConnection("B", "D", 0.5);
+        campusMap.addConnection("A", "C", 0.75);
+        campusMap.addConnection("C", "D", 0.75);
+        graph = campusMap.getGraph();
+        noLiveTraffic = TrafficOverlay.empty(graph, 0);
+    }
+
+    @Test
+    void testFreeFlowMatchesWalkingSpeed() {
+        TrafficProfile profile = TrafficProfile.builder(graph).build();
+        SearchWorkspace workspace = SearchWorkspace.forward(graph.getNodeCount());
+        TimeDependentDijkstra.run(profile, noLiveTraffic, workspace, graph.idOf("A"), graph.idOf("D"), 600.0);
+        assertEquals(612.0, workspace.distance(graph.idOf("D")), 1e-9);
+        assertArrayEquals(new int[] { graph.idOf("A"), graph.idOf("B"), graph.idOf("D") },
+                DijkstraSearch.path(workspace, graph.idOf("A"), graph.idOf("D")));
+    }
+
+    @Test
+    void testEdgeIsCostedWhenReached() {
+        // B-D is jammed from 10:00 to 10:15 only
+        int jammed = graph.findEdge(graph.idOf("B"), graph.idOf("D"));
+        int slot = TrafficProfile.slotOf(600.0);
+        TrafficProfile profile = TrafficProfile.builder(graph).set(jammed, slot, 4.0f).build();
+        SearchWorkspace workspace = SearchWorkspace.forward(graph.getNodeCount());
+
+        // Leaving at 09:54 reaches B at 10:00, so the longer way round wins
+        TimeDependentDijkstra.run(profile, noLiveTraffic, workspace, graph.idOf("A"), graph.idOf("D"), 594.0);
+        assertArrayEquals(new int[] { graph.idOf("A"), graph.idOf("C"), graph.idOf("D") },
+                DijkstraSearch.path(workspace, graph.idOf("A"), graph.idOf("D")));
+        assertEquals(612.0, workspace.distance(graph.idOf("D")), 1e-9);
+
+        // Leaving at 09:40 passes B before the jam starts
+        workspace = SearchWorkspace.forward(graph.getNodeCount());
+        TimeDependentDijkstra.run(profile, noLiveTraffic, workspace, graph.idOf("A"), graph.idOf("D"), 580.0);
+        assertArrayEquals(new int[] { graph.idOf("A"), graph.idOf("B"), graph.idOf("D") },
+                DijkstraSearch.path(workspace, graph.idOf("A"), graph.idOf("D")));
+        assertEquals(592.0, profile.arrivalMinute(new int[] { graph.idOf("A"), graph.idOf("B"), graph.idOf("D") },
+                580.0, noLiveTraffic), 1e-9);
+    }
+
+    @Test
+    void testLeavingLaterNeverArrivesEarlierAcrossAChangeover() {
+        // B-D is jammed from 09:45 until 10:00, when it clears
+        int jammed = graph.findEdge(graph.idOf("B"), graph.idOf("D"));
+        int slot = TrafficProfile.slotOf(585.0);
+        TrafficProfile profile = TrafficProfile.builder(graph).set(jammed, slot, 4.0f).build();
+        int[] viaB = { graph.idOf("A"), graph.idOf("B"), graph.idOf("D") };
+
+        // Entering B-D at 09:46 crawls until 10:00, covering 3.5 of its 6 minutes, then walks the rest at full pace
+        assertEquals(602.5, profile.arrivalMinute(viaB, 580.0, noLiveTraffic), 1e-9);
+
+        double previous = Double.NEGATIVE_INFINITY;
+        for (double departure = 570.0; departure <= 610.0; departure += 0.25) {
+            SearchWorkspace workspace = SearchWorkspace.forward(graph.getNodeCount());
+            TimeDependentDijkstra.run(profile, noLiveTraffic, workspace, graph.idOf("A"), graph.idOf("D"), departure);
+            double arrival = workspace.distance(graph.idOf("D"));
+            assertTrue(arrival >= previous, "Leaving at " + departure + " arrives before an earlier departure");
+            previous = arrival;
+        }
+    }
+
+    @Test
+    void testLiveTrafficScalesEdges() {
+        int slowed = graph.findEdge(graph.idOf("A"), graph.idOf("B"));
+        TrafficProfile profile = TrafficProfile.builder(graph).build();
+        TrafficOverlay overlay = noLiveTraffic.with(new int[] { slowed }, new float[] { 3.0f }, 1);
+        SearchWorkspace workspace = SearchWorkspace.forward(graph.getNodeCount());
+        TimeDependentDijkstra.run(profile, overlay, workspace, graph.idOf("A"), graph.idOf("D"), 0.0);
+        assertArrayEquals(new int[] { graph.idOf("A"), graph.idOf("C"), graph.idOf("D") },
+                DijkstraSearch.path(workspace, graph.idOf("A"), graph.idOf("D")));
+        assertEquals(1.0f, noLiveTraffic.multiplier(slowed));
+    }
+
+    @Test
+    void testSlotWrapsPastMidnight() {
+        assertEquals(0, TrafficProfile.slotOf(24 * 60 + 5.0));
+        assertEquals(TrafficProfile.SLOTS - 1, TrafficProfile.slotOf(-1.0));
+    }
+}
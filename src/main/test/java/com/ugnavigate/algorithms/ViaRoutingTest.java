@@ -0,0 +1,69 @@
+package com.ugnavigate.algorithms;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.CampusMap;
+
+import java.util.*;
+
+class ViaRoutingTest {
+
+    private CampusGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        CampusMap campusMap = new CampusMap();
+        Random random = new Random(11);
+        for (int row = 0; row < 5; row++) {
+            for (int col = 0; col < 5; col++) {
+                if (col < 4) {
+                    campusMap.addConnection("N" + row + col, "N" + row + (col + 1), 1 + random.nextInt(9));
+                }
+                if (row < 4) {
+                    campusMap.addConnection("N" + row + col, "N" + (row + 1) + col, 1 + random.nextInt(9));
+                }
+            }
+        }
+        campusMap.addConnection("X", "Y", 1.0);
+        graph = campusMap.getGraph();
+    }
+
+    @Test
+    void testMatchesSeparateSearches() {
+        int source = graph.idOf("N00");
+        int target = graph.idOf("N44");
+        int[] candidates = { graph.idOf("N04"), graph.idOf("N22"), graph.idOf("N40"), graph.idOf("N13"),
+                graph.idOf("N31"), graph.idOf("X") };
+
+        List<Double> expected = new ArrayList<>();
+        for (int via : candidates) {
+            double distance = distance(source, via) + distance(via, target);
+            if (distance < Double.POSITIVE_INFINITY) {
+                expected.add(distance);
+            }
+        }
+        Collections.sort(expected);
+
+        List<ViaRouting.ViaPath> routes = ViaRouting.find(graph, source, target, candidates, 3);
+        assertEquals(3, routes.size());
+        for (int i = 0; i < routes.size(); i++) {
+            ViaRouting.ViaPath route = routes.get(i);
+            int[] path = route.getPath();
+            assertEquals(expected.get(i), route.getDistance(), 1e-9);
+            assertEquals(route.getDistance(), graph.pathDistance(path), 1e-9);
+            assertEquals(source, path[0]);
+            assertEquals(target, path[path.length - 1]);
+            assertTrue(Arrays.stream(path).anyMatch(node -> node == route.getVia()));
+        }
+        assertEquals(5, ViaRouting.find(graph, source, target, candidates, 10).size());
+    }
+
+    private double distance(int from, int to) {
+        SearchWorkspace workspace = SearchWorkspace.forward(graph.getNodeCount());
+        DijkstraSearch.run(graph, workspace, from, to);
+        return workspace.distance(to);
+    }
+}
@@ -0,0 +1,64 @@
+package com.ugnavigate.controllers;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.ugnavigate.services.CampusDataService;
+import com.ugnavigate.services.RoutingService;
+import com.ugnavigate.services.TrafficService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.CrossOrigin;
+
+class AdminControllerTest {
+
+    private final CampusDataService campusDataService = new CampusDataService();
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withBean(CampusDataService.class, () -> campusDataService)
+            .withBean(RoutingService.class, () -> new RoutingService(campusDataService.getCampusMap(),
+                    new TrafficService()))
+            .withUserConfiguration(AdminController.class);
+
+    @Test
+    void testEndpointsAreOffUnlessEnabled() {
+        runner.run(context -> assertEquals(0, context.getBeanNamesForType(AdminController.class).length));
+        runner.withPropertyValues("ugnavigate.admin.enabled=false", "ugnavigate.admin.token=secret")
+                .run(context -> assertEquals(0, context.getBeanNamesForType(AdminController.class).length));
+        // Enabling them without a secret would open them to anyone, so the application does not start
+        runner.withPropertyValues("ugnavigate.admin.enabled=true")
+                .run(context -> assertNotNull(context.getStartupFailure()));
+        assertNull(AdminController.class.getAnnotation(CrossOrigin.class));
+    }
+
+    @Test
+    void testRequestsNeedTheToken() {
+        runner.withPropertyValues("ugnavigate.admin.enabled=true", "ugnavigate.admin.token=secret").run(context -> {
+            MockMvc mvc = MockMvcBuilders.standaloneSetup(context.getBean(AdminController.class)).build();
+            String body = "{\"from\": \"A\", \"to\": \"B\"}";
+
+            mvc.perform(post("/api/routing/connections/close").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isForbidden());
+            mvc.perform(post("/api/routing/connections/close").contentType(MediaType.APPLICATION_JSON).content(body)
+                    .header(AdminController.TOKEN_HEADER, "wrong"))
+                    .andExpect(status().isForbidden());
+            mvc.perform(post("/api/routing/connections/distance").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"from\": \"A\", \"to\": \"B\", \"distance\": 1.0}"))
+                    .andExpect(status().isForbidden());
+            mvc.perform(post("/api/routing/reload")).andExpect(status().isForbidden());
+
+            mvc.perform(post("/api/routing/connections/close").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"from\": \"Nowhere\", \"to\": \"Elsewhere\"}")
+                    .header(AdminController.TOKEN_HEADER, "secret"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").exists());
+            mvc.perform(post("/api/routing/reload").header(AdminController.TOKEN_HEADER, "secret"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.version").isNumber());
+        });
+    }
+}
@@ -0,0 +1,180 @@
+package com.ugnavigate.controllers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ugnavigate.models.CampusMap;
+import com.ugnavigate.models.Route;
+import com.ugnavigate.services.BatchExecutor;
+import com.ugnavigate.services.RoutingService;
+import com.ugnavigate.services.TrafficService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RoutingControllerTest {
+    private static final int THREADS = 2;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger started = new AtomicInteger();
+    private final CountDownLatch firstLineWritten = new CountDownLatch(1);
+    private BatchExecutor batchExecutor;
+    private RoutingController controller;
+
+    @BeforeEach
+    void setUp() {
+        CampusMap campusMap = new CampusMap();
+        campusMap.addConnection("A", "B", 1.0);
+        campusMap.addConnection("B", "C", 1.0);
+        // Counts the requests being solved; "slow" waits until a line has gone out, and "boom" fails
+        RoutingService routingService = new RoutingService(campusMap, new TrafficService()) {
+            @Override
+            public Route findRoute(String startLocation, String endLocation, String algorithm) {
+                started.incrementAndGet();
+                if ("slow".equals(startLocation)) {
+                    await(firstLineWritten);
+                    startLocation = "A";
+                }
+                if ("boom".equals(startLocation)) {
+                    throw new IllegalArgumentException("Unknown algorithm");
+                }
+                return super.findRoute(startLocation, endLocation, algorithm);
+            }
+        };
+        batchExecutor = new BatchExecutor(THREADS);
+        controller = new RoutingController();
+        ReflectionTestUtils.setField(controller, "routingService", routingService);
+        ReflectionTestUtils.setField(controller, "batchExecutor", batchExecutor);
+        ReflectionTestUtils.setField(controller, "objectMapper", objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchExecutor.shutdownNow();
+    }
+
+    @Test
+    void testBatchStreamsOneLinePerRequestInCompletionOrder() throws IOException {
+        List<Map<String, String>> requests = new ArrayList<>();
+        requests.add(request("slow", "C"));
+        requests.add(request("A", "C"));
+        requests.add(request("boom", "C"));
+        requests.add(request(null, "C"));
+        requests.add(request("A", "Nowhere"));
+        requests.add(request("C", "A"));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                firstLineWritten.countDown();
+            }
+        };
+        stream(requests, output);
+
+        String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(requests.size(), lines.length);
+        Map<Integer, Map<?, ?>> byIndex = new HashMap<>();
+        for (String line : lines) {
+            Map<?, ?> parsed = objectMapper.readValue(line, Map.class);
+            assertNull(byIndex.put((Integer) parsed.get("index"), parsed), line);
+        }
+        // The slow first request cannot finish before another line is out
+        assertNotEquals(0, objectMapper.readValue(lines[0], Map.class).get("index"));
+
+        assertTrue(byIndex.get(0).containsKey("route"));
+        assertTrue(byIndex.get(1).containsKey("route"));
+        assertEquals("Unknown algorithm", byIndex.get(2).get("error"));
+        assertEquals("No route found", byIndex.get(3).get("error"));
+        assertEquals("No route found", byIndex.get(4).get("error"));
+        assertTrue(byIndex.get(5).containsKey("route"));
+    }
+
+    @Test
+    void testBatchKeepsAtMostTwoRequestsPerThreadInFlight() throws Exception {
+        List<Map<String, String>> requests = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            requests.add(request("A", "C"));
+        }
+
+        // A client that reads nothing until released; solving stops once the window is full
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger startedBeforeRelease = new AtomicInteger(-1);
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        OutputStream slowClient = new OutputStream() {
+            @Override
+            public void write(int b) {
+                await(release);
+                received.write(b);
+            }
+        };
+        Thread streamer = new Thread(() -> {
+            try {
+                stream(requests, slowClient);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+        streamer.start();
+
+        Thread.sleep(300);
+        startedBeforeRelease.set(started.get());
+        release.countDown();
+        streamer.join(TimeUnit.SECONDS.toMillis(30));
+        assertFalse(streamer.isAlive());
+
+        assertTrue(startedBeforeRelease.get() > 0);
+        assertTrue(startedBeforeRelease.get() <= 2 * THREADS, startedBeforeRelease + " requests started");
+        assertEquals(requests.size(), started.get());
+        Set<Object> indexes = new HashSet<>();
+        for (String line : new String(received.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            indexes.add(objectMapper.readValue(line, Map.class).get("index"));
+        }
+        assertEquals(requests.size(), indexes.size());
+    }
+
+    @Test
+    void testOversizedBatchIsRejected() {
+        List<Map<String, String>> requests = Collections.nCopies(10_001, request("A", "B"));
+        assertEquals(400, controller.getBatchRoutes(requests).getStatusCodeValue());
+        assertEquals(0, started.get());
+    }
+
+    private void stream(List<Map<String, String>> requests, OutputStream output) throws IOException {
+        ResponseEntity<StreamingResponseBody> response = controller.getBatchRoutes(requests);
+        assertEquals(200, response.getStatusCodeValue());
+        response.getBody().writeTo(output);
+    }
+
+    private static Map<String, String> request(String start, String end) {
+        Map<String, String> request = new HashMap<>();
+        request.put("start", start);
+        request.put("end", end);
+        return request;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.ugnavigate.loaders;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ugnavigate.models.CampusGraph;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+class MapLoaderTest {
+
+    @Test
+    void testJsonSectionsInAnyOrder() throws IOException {
+        String json = "{\"connections\": [{\"from\": \"Library\", \"to\": \"Hall\", \"distance\": 0.35},"
+                + " {\"from\": \"Hall\", \"to\": \"Library\", \"distance\": 0.4}],"
+                + " \"version\": 2,"
+                + " \"locations\": [{\"name\": \"Library\", \"latitude\": 5.658, \"longitude\": -0.1905,"
+                + " \"category\": \"facility\", \"landmarks\": [\"Books\", \"Study Area\"]},"
+                + " {\"name\": \"Hall\", \"latitude\": 5.664, \"longitude\": -0.1935}]}";
+        CampusGraph graph = MapLoader.read("map.json", stream(json));
+
+        int library = graph.idOf("Library");
+        int hall = graph.idOf("Hall");
+        assertEquals(2, graph.getNodeCount());
+        // A connection listed twice is kept once, at its shorter distance
+        assertEquals(2, graph.getEdgeCount());
+        assertEquals(0.35, graph.distance(hall, library));
+        assertEquals("facility", graph.category(library));
+        assertEquals(5.658, graph.latitude(library));
+        assertEquals(Arrays.asList("Books", "Study Area"), graph.landmarks(library));
+    }
+
+    @Test
+    void testCsvRecords() throws IOException {
+        String csv = "# type,name,latitude,longitude,category,description,landmarks\n"
+                + "location,\"Library, Main\",5.658,-0.1905,facility,\"The \"\"Balme\"\" library\",Books;Study\n"
+                + "\n"
+                + "location,Hall,5.664,-0.1935\n"
+                + "connection,\"Library, Main\",Hall,0.35\n";
+        CampusGraph graph = MapLoader.read("map.csv", stream(csv));
+
+        int library = graph.idOf("Library, Main");
+        assertEquals("The \"Balme\" library", graph.description(library));
+        assertEquals(Arrays.asList("Books", "Study"), graph.landmarks(library));
+        assertEquals("general", graph.category(graph.idOf("Hall")));
+        assertEquals(0.35, graph.distance(library, graph.idOf("Hall")));
+    }
+
+    @Test
+    void testCsvReportsLineOfBadRecord() {
+        String csv = "location,Hall,5.664,-0.1935\nconnection,Hall,Library,far\n";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> MapLoader.read("map.csv", stream(csv)));
+        assertTrue(e.getMessage().contains("line 2"));
+    }
+
+    @Test
+    void testJsonReportsWhereTheStructureIsWrong() {
+        String json = "{\"locations\": [{\"name\": \"Hall\", \"latitude\": 5.664, \"longitude\": -0.1935}],"
+                + " \"connections\": {\"from\": \"Hall\"}}";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> MapLoader.read("map.json", stream(json)));
+        assertTrue(e.getMessage().contains("$.connections"), e.getMessage());
+    }
+
+    @Test
+    void testJsonRejectsLocationsWithoutCoordinates() {
+        String json = "{\"locations\": [{\"name\": \"Hall\", \"latitude\": 5.664}]}";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> MapLoader.read("map.json", stream(json)));
+        assertTrue(e.getMessage().contains("Hall"), e.getMessage());
+    }
+
+    @Test
+    void testOsmKeepsWalkableWays() throws IOException {
+        String osm = "<?xml version='1.0' encoding='UTF-8'?>\n<osm version='0.6'>\n"
+                + " <node id='1' lat='5.6500' lon='-0.1867'><tag k='name' v='Library'/>"
+                + "<tag k='amenity' v='library'/><tag k='short_name' v='Balme'/></node>\n"
+                + " <node id='2' lat='5.6510' lon='-0.1867'/>\n"
+                + " <node id='3' lat='5.6510' lon='-0.1877'/>\n"
+                + " <node id='4' lat='5.6600' lon='-0.1900'/>\n"
+                + " <way id='10'><nd ref='1'/><nd ref='2'/><nd ref='3'/><nd ref='99'/>"
+                + "<tag k='highway' v='footway'/></way>\n"
+                + " <way id='11'><nd ref='3'/><nd ref='4'/><tag k='highway' v='motorway'/></way>\n"
+                + " <way id='12'><nd ref='2'/><nd ref='4'/><tag k='building' v='yes'/></way>\n"
+                + "</osm>\n";
+        CampusGraph graph = MapLoader.read("campus.osm", stream(osm));
+
+        assertEquals(3, graph.getNodeCount());
+        assertEquals(4, graph.getEdgeCount());
+        int library = graph.idOf("Library");
+        int corner = graph.idOf("node/2");
+        assertEquals("facility", graph.category(library));
+        assertEquals(Arrays.asList("Balme"), graph.landmarks(library));
+        // 0.001 degrees of latitude is about 111 m
+        assertEquals(0.111, graph.distance(library, corner), 0.001);
+        assertEquals(-1, graph.idOf("node/4"));
+    }
+
+    @Test
+    void testOsmReportsWhereAnAttributeIsMissing() {
+        String[] broken = {
+                " <node id='1' lat='5.6500'/>\n",
+                " <node lat='5.6500' lon='-0.1867'/>\n",
+                " <node id='1' lat='north' lon='-0.1867'/>\n",
+                " <node id='1' lat='5.6500' lon='-0.1867'/>\n <way id='10'><nd/></way>\n" };
+        for (String element : broken) {
+            String osm = "<?xml version='1.0' encoding='UTF-8'?>\n<osm version='0.6'>\n" + element + "</osm>\n";
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> MapLoader.read("campus.osm", stream(osm)), element);
+            assertTrue(e.getMessage().contains("line " + (element.contains("<nd/>") ? 4 : 3)), e.getMessage());
+        }
+    }
+
+    @Test
+    void testUnknownFormatIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> MapLoader.forFile("map.shp"));
+        assertTrue(MapLoader.forFile("planet.osm.gz") instanceof OsmMapLoader);
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,74 @@
+package com.ugnavigate.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class CampusGraphFileTest {
+
+    @TempDir
+    Path directory;
+
+    private CampusGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        CampusMap campusMap = new CampusMap();
+        Location library = new Location("Balme Library", 5.6580, -0.1905, "facility", "Main Library");
+        library.addLandmark("Books");
+        library.addLandmark("Study Area");
+        campusMap.addLocation(library);
+        campusMap.addLocation(new Location("L\u00e9gon Hall", 5.6640, -0.1935, "landmark", "Great Hall"));
+        campusMap.addLocation(new Location("Bank", 5.6600, -0.1915));
+        campusMap.addConnection("Balme Library", "L\u00e9gon Hall", 0.35);
+        campusMap.addConnection("L\u00e9gon Hall", "Bank", 0.2);
+        double[] anchorDistances = { 0.0, 0.35, 0.55 };
+        graph = campusMap.getGraph().withAnchorTable(new AnchorTable(new int[] { 0 },
+                DoubleBuffer.wrap(anchorDistances), DoubleBuffer.wrap(anchorDistances)));
+    }
+
+    @Test
+    void testMappedGraphMatchesWrittenGraph() throws IOException {
+        Path file = directory.resolve("campus.graph");
+        CampusGraphFile.write(graph, file, 42L);
+        CampusGraph mapped = CampusGraphFile.map(file);
+
+        assertEquals(graph.getVersion(), mapped.getVersion());
+        assertEquals(graph.getNodeCount(), mapped.getNodeCount());
+        assertEquals(graph.getEdgeCount(), mapped.getEdgeCount());
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            assertEquals(v, mapped.idOf(graph.nameOf(v)));
+            assertEquals(graph.nameOf(v), mapped.nameOf(v));
+            assertEquals(graph.latitude(v), mapped.latitude(v));
+            assertEquals(graph.category(v), mapped.category(v));
+            assertEquals(graph.description(v), mapped.description(v));
+            assertEquals(graph.landmarks(v), mapped.landmarks(v));
+            for (int e = graph.edgeStart(v); e < graph.edgeEnd(v); e++) {
+                assertEquals(graph.target(e), mapped.target(e));
+                assertEquals(graph.weight(e), mapped.weight(e));
+            }
+        }
+        assertEquals(-1, mapped.idOf("Unknown"));
+        assertArrayEquals(new int[] { 0 }, mapped.getAnchorTable().getAnchors());
+        assertEquals(0.55, mapped.getAnchorTable().getFromAnchor().get(2));
+    }
+
+    @Test
+    void testStampIdentifiesSource() throws IOException {
+        Path file = directory.resolve("campus.graph");
+        assertNull(CampusGraphFile.readStamp(file));
+
+        CampusGraphFile.write(graph, file, 7L);
+        assertEquals(Long.valueOf(7L), CampusGraphFile.readStamp(file));
+
+        Files.write(file, new byte[128]);
+        assertNull(CampusGraphFile.readStamp(file));
+        assertThrows(IllegalArgumentException.class, () -> CampusGraphFile.map(file));
+    }
+}
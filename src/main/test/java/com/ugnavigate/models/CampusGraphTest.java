@@ -0,0 +1,65 @@
+package com.ugnavigate.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+class CampusGraphTest {
+
+    private CampusMap campusMap;
+
+    @BeforeEach
+    void setUp() {
+        campusMap = new CampusMap();
+        Location library = new Location("Library", 5.6580, -0.1905, "facility", "Main Library");
+        library.addLandmark("Books");
+        campusMap.addLocation(library);
+        campusMap.addLocation(new Location("Hall", 5.6640, -0.1935, "landmark", "Great Hall"));
+        campusMap.addLocation(new Location("Bank", 5.6600, -0.1915));
+        campusMap.addConnection("Library", "Hall", 0.35);
+        campusMap.addConnection("Hall", "Bank", 0.2);
+    }
+
+    @Test
+    void testSnapshotMatchesMap() {
+        CampusGraph graph = campusMap.getGraph();
+        assertEquals(3, graph.getNodeCount());
+        assertEquals(4, graph.getEdgeCount());
+
+        int library = graph.idOf("Library");
+        int hall = graph.idOf("Hall");
+        int bank = graph.idOf("Bank");
+        assertEquals("Library", graph.nameOf(library));
+        assertEquals(0.35, graph.distance(library, hall));
+        assertEquals(0.35, graph.distance(hall, library));
+        assertEquals(Double.POSITIVE_INFINITY, graph.distance(library, bank));
+        assertEquals(-1, graph.idOf("Unknown"));
+    }
+
+    @Test
+    void testSnapshotKeepsAttributes() {
+        CampusGraph graph = campusMap.getGraph();
+        int library = graph.idOf("Library");
+        assertEquals("facility", graph.category(library));
+        assertEquals(Arrays.asList("Books"), graph.landmarks(library));
+        assertEquals("general", graph.category(graph.idOf("Bank")));
+
+        Location location = graph.toLocation(library);
+        assertEquals(5.6580, location.getLatitude());
+        assertTrue(location.hasLandmark("Books"));
+        assertEquals(0.35, location.getDistanceTo("Hall"));
+    }
+
+    @Test
+    void testSnapshotIsRebuiltAfterChange() {
+        CampusGraph before = campusMap.getGraph();
+        assertSame(before, campusMap.getGraph());
+
+        campusMap.addConnection("Library", "Bank", 0.5);
+        CampusGraph after = campusMap.getGraph();
+        assertNotSame(before, after);
+        assertEquals(0.5, after.distance(after.idOf("Bank"), after.idOf("Library")));
+    }
+}
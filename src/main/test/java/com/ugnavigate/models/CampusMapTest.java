@@ -0,0 +1,103 @@
+package com.ugnavigate.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CampusMapTest {
+
+    private CampusMap campusMap;
+
+    @BeforeEach
+    void setUp() {
+        campusMap = new CampusMap();
+        campusMap.addLocation(new Location("Library", 5.6580, -0.1905));
+        campusMap.addLocation(new Location("Hall", 5.6640, -0.1935));
+        campusMap.addConnection("Library", "Hall", 0.35);
+    }
+
+    @Test
+    void testSnapshotIsStableAcrossChanges() {
+        CampusMap.Snapshot before = campusMap.getSnapshot();
+        assertSame(before, campusMap.getSnapshot());
+        assertEquals(campusMap.getVersion(), before.getGraph().getVersion());
+
+        campusMap.addConnection("Hall", "Bank", 0.2);
+        CampusMap.Snapshot after = campusMap.getSnapshot();
+
+        assertTrue(after.getVersion() > before.getVersion());
+        assertFalse(before.getDistances().get("Hall").containsKey("Bank"));
+        assertEquals(0.2, after.getDistances().get("Hall").get("Bank"));
+        assertThrows(UnsupportedOperationException.class,
+                () -> after.getLocations().put("Bank", new Location("Bank", 0.0, 0.0)));
+    }
+
+    @Test
+    void testReplaceWithSwapsInOneVersion() {
+        CampusMap.Snapshot before = campusMap.getSnapshot();
+
+        CampusMap fresh = new CampusMap();
+        fresh.addLocation(new Location("Bank", 5.6600, -0.1915));
+        fresh.addLocation(new Location("Registry", 5.6550, -0.1890));
+        fresh.addConnection("Bank", "Registry", 0.3);
+        campusMap.replaceWith(fresh);
+
+        CampusMap.Snapshot after = campusMap.getSnapshot();
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(after.getVersion(), after.getGraph().getVersion());
+        assertFalse(campusMap.hasLocation("Library"));
+        assertEquals(0.3, campusMap.getDistance("Registry", "Bank"));
+
+        // The old snapshot still answers for queries that started before the swap
+        assertTrue(before.hasLocation("Library"));
+        assertEquals(0.35, before.getGraph().distance(before.getGraph().idOf("Library"),
+                before.getGraph().idOf("Hall")));
+
+        // Later edits to the source map do not leak into the replaced one
+        fresh.addConnection("Bank", "Hall", 1.0);
+        assertFalse(campusMap.hasLocation("Hall"));
+    }
+
+    @Test
+    void testClosedConnectionKeepsIdsAndReopens() {
+        campusMap.addConnection("Hall", "Bank", 0.2);
+        CampusGraph before = campusMap.getGraph();
+
+        CampusMap.EdgeUpdate closure = campusMap.closeConnection("Hall", "Library");
+        CampusGraph closed = campusMap.getGraph();
+        assertSame(before, closure.getPrevious());
+        assertSame(closed, closure.getGraph());
+        assertTrue(before.hasSameEdges(closed));
+        assertEquals(2, closure.getEdges().length);
+        assertTrue(closure.isLengthening());
+        assertEquals(Double.POSITIVE_INFINITY, campusMap.getDistance("Library", "Hall"));
+        assertEquals(0.35, before.distance(before.idOf("Library"), before.idOf("Hall")));
+
+        // While closed, a new distance is kept for when the connection reopens
+        CampusMap.EdgeUpdate reweight = campusMap.setConnectionDistance("Library", "Hall", 0.4);
+        assertSame(reweight.getPrevious(), reweight.getGraph());
+        assertSame(closed, campusMap.getGraph());
+
+        CampusMap.EdgeUpdate reopening = campusMap.reopenConnection("Library", "Hall");
+        assertFalse(reopening.isLengthening());
+        assertFalse(campusMap.isClosed("Library", "Hall"));
+        assertEquals(0.4, campusMap.getDistance("Hall", "Library"));
+        assertEquals(0.4, campusMap.getGraph().distance(before.idOf("Library"), before.idOf("Hall")));
+        assertEquals(campusMap.getVersion(), campusMap.getGraph().getVersion());
+
+        assertThrows(IllegalArgumentException.class, () -> campusMap.closeConnection("Library", "Bank"));
+        assertThrows(IllegalArgumentException.class, () -> campusMap.setConnectionDistance("Hall", "Bank", -1.0));
+    }
+
+    @Test
+    void testLoadedGraphIsUpdatedInPlace() {
+        CampusMap loaded = new CampusMap();
+        loaded.replaceWith(campusMap.getGraph());
+        CampusGraph before = loaded.getGraph();
+
+        loaded.setConnectionDistance("Library", "Hall", 0.5);
+        assertTrue(before.hasSameEdges(loaded.getGraph()));
+        assertEquals(0.5, loaded.getDistance("Hall", "Library"));
+        assertEquals(0.35, campusMap.getDistance("Hall", "Library"));
+    }
+}
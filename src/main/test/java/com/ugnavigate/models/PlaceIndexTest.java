@@ -0,0 +1,67 @@
+package com.ugnavigate.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+class PlaceIndexTest {
+
+    private CampusMap campusMap;
+    private CampusGraph graph;
+    private PlaceIndex index;
+
+    @BeforeEach
+    void setUp() {
+        campusMap = new CampusMap();
+        Location cs = new Location("Computer Science Department", 5.6505, -0.1875, "academic", "DCIT");
+        cs.addLandmark("Computer Lab");
+        campusMap.addLocation(cs);
+        Location library = new Location("Balme Library", 5.6580, -0.1905, "Facility", "Main Library");
+        library.addLandmark("Books");
+        library.addLandmark("Study Area");
+        campusMap.addLocation(library);
+        campusMap.addLocation(new Location("L\u00e9gon Hall", 5.6640, -0.1935, "residential", "Great Hall"));
+        campusMap.addLocation(new Location("Science Library", 5.6510, -0.1880, "facility", "Science books"));
+        graph = campusMap.getGraph();
+        index = campusMap.getSnapshot().getPlaceIndex();
+    }
+
+    @Test
+    void testWordPrefixesMatchNames() {
+        assertArrayEquals(ids("Computer Science Department", "Science Library"), index.nodesMatching("sci"));
+        assertArrayEquals(ids("Computer Science Department"), index.nodesMatching("comp SCI"));
+        assertArrayEquals(ids("L\u00e9gon Hall"), index.nodesMatching("legon"));
+        assertArrayEquals(ids("Balme Library", "Science Library"), index.nodesMatching("Library"));
+        assertEquals(0, index.nodesMatching("ience").length);
+        assertEquals(0, index.nodesMatching("  ").length);
+    }
+
+    @Test
+    void testCategoriesAndLandmarksIgnoreCase() {
+        assertArrayEquals(ids("Balme Library", "Science Library"), index.nodesInCategory("FACILITY"));
+        assertEquals(Arrays.asList("academic", "Facility", "residential", "facility"), index.getCategories());
+        assertArrayEquals(ids("Balme Library"), index.nodesWithLandmark("study area"));
+        assertArrayEquals(ids("Computer Science Department"), index.nodesNearLandmark("Computer Lab"));
+        assertEquals(2, campusMap.getLocationsByLandmark("Library").size());
+        assertEquals(new HashSet<>(Arrays.asList("Computer Lab", "Books", "Study Area")),
+                new HashSet<>(campusMap.getAllLandmarks()));
+    }
+
+    @Test
+    void testIndexIsSharedAcrossEdgeUpdates() {
+        campusMap.addConnection("Balme Library", "Science Library", 0.9);
+        PlaceIndex before = campusMap.getSnapshot().getPlaceIndex();
+        campusMap.closeConnection("Balme Library", "Science Library");
+        assertSame(before, campusMap.getSnapshot().getPlaceIndex());
+
+        campusMap.addLocation(new Location("Science Park", 5.6520, -0.1870));
+        assertEquals(3, campusMap.findLocations("science").size());
+    }
+
+    private int[] ids(String... names) {
+        return Arrays.stream(names).mapToInt(graph::idOf).sorted().toArray();
+    }
+}
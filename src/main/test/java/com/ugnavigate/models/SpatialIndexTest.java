@@ -0,0 +1,148 @@
+package com.ugnavigate.models;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ugnavigate.TestMaps;
+
+import java.util.Random;
+
+class SpatialIndexTest {
+
+    @Test
+    void testNearestNodesMatchBruteForce() {
+        CampusGraph graph = randomGraph(new Random(7), 2000);
+        SpatialIndex index = SpatialIndex.build(graph);
+        Random random = new Random(11);
+        for (int query = 0; query < 200; query++) {
+            // Some queries fall outside the map
+            double latitude = 5.64 + random.nextDouble() * 0.04;
+            double longitude = -0.20 + random.nextDouble() * 0.04;
+            int[] nearest = index.nearestNodes(latitude, longitude, 5);
+            assertEquals(5, nearest.length);
+            double fifth = index.distanceKm(latitude, longitude, nearest[4]);
+            int closer = 0;
+            for (int v = 0; v < graph.getNodeCount(); v++) {
+                if (index.distanceKm(latitude, longitude, v) < fifth - 1e-12) {
+                    closer++;
+                }
+            }
+            assertEquals(4, closer);
+            for (int i = 1; i < nearest.length; i++) {
+                assertTrue(index.distanceKm(latitude, longitude, nearest[i - 1])
+                        <= index.distanceKm(latitude, longitude, nearest[i]));
+            }
+        }
+    }
+
+    @Test
+    void testNearestEdgeMatchesBruteForce() {
+        CampusGraph graph = randomGraph(new Random(3), 1000);
+        SpatialIndex index = SpatialIndex.build(graph);
+        Random random = new Random(5);
+        for (int query = 0; query < 200; query++) {
+            double latitude = 5.645 + random.nextDouble() * 0.03;
+            double longitude = -0.195 + random.nextDouble() * 0.03;
+            SpatialIndex.Snap snap = index.nearestEdge(latitude, longitude);
+            assertNotNull(snap);
+            double best = Double.POSITIVE_INFINITY;
+            for (int e = 0; e < graph.getEdgeCount(); e++) {
+                best = Math.min(best, segmentDistance(graph, latitude, longitude, e));
+            }
+            assertEquals(best, snap.getDistance(), 1e-9);
+            assertEquals(snap.getFrom(), graph.source(snap.getEdge()));
+            assertTrue(snap.getFraction() >= 0.0 && snap.getFraction() <= 1.0);
+        }
+    }
+
+    @Test
+    void testSnappingSkipsClosedConnections() {
+        CampusMap campusMap = TestMaps.gates();
+
+        // Just north of the road between the gates, nearer the east end
+        SpatialIndex.Snap snap = campusMap.getSnapshot().getSpatialIndex().nearestEdge(5.6502, -0.1820);
+        assertEquals("East Gate", campusMap.getGraph().nameOf(snap.getNearestNode()));
+        assertEquals(0.8, snap.getFraction(), 1e-6);
+        assertEquals(0.022, snap.getDistance(), 1e-3);
+
+        campusMap.closeConnection("West Gate", "East Gate");
+        snap = campusMap.getSnapshot().getSpatialIndex().nearestEdge(5.6502, -0.1820);
+        CampusGraph graph = campusMap.getGraph();
+        // The library path is the only one left, and the position is still nearest its East Gate end
+        assertEquals("Library", graph.nameOf(graph.nameOf(snap.getFrom()).equals("East Gate")
+                ? snap.getTo() : snap.getFrom()));
+        assertEquals("East Gate", graph.nameOf(snap.getNearestNode()));
+        assertArrayEquals(new int[] { graph.idOf("East Gate") },
+                campusMap.getSnapshot().getSpatialIndex().nearestNodes(5.6502, -0.1820, 1));
+    }
+
+    @Test
+    void testEmptyAndSingleNodeMaps() {
+        SpatialIndex empty = SpatialIndex.build(CampusGraph.builder().build());
+        assertEquals(0, empty.nearestNodes(5.65, -0.19, 3).length);
+        assertNull(empty.nearestEdge(5.65, -0.19));
+
+        CampusGraph.Builder builder = CampusGraph.builder();
+        builder.addNode("Balme Library", 5.6580, -0.1905, "facility", "");
+        SpatialIndex single = SpatialIndex.build(builder.build());
+        assertArrayEquals(new int[] { 0 }, single.nearestNodes(0.0, 0.0, 3));
+        assertNull(single.nearestEdge(5.65, -0.19));
+    }
+
+    @Test
+    void testUnplacedNodesStayOutOfTheGrid() {
+        CampusGraph placed = randomGraph(new Random(9), 200);
+        CampusGraph.Builder builder = CampusGraph.builder();
+        for (int v = 0; v < placed.getNodeCount(); v++) {
+            builder.addNode(placed.nameOf(v), placed.latitude(v), placed.longitude(v), "general", "");
+        }
+        // A junction only ever named by a connection, so it sits at (0, 0)
+        int junction = builder.node("Junction");
+        builder.addEdge(0, junction, 1.0);
+        builder.addEdge(junction, 0, 1.0);
+        SpatialIndex index = SpatialIndex.build(builder.build());
+
+        assertEquals(SpatialIndex.build(placed).getCellCount(), index.getCellCount());
+        assertEquals(200, index.nearestNodes(0.0, 0.0, 500).length);
+        for (int node : index.nearestNodes(0.0, 0.0, 500)) {
+            assertNotEquals(junction, node);
+        }
+        // Its connection is the only one, and has nowhere to be drawn
+        assertNull(index.nearestEdge(0.0, 0.0));
+    }
+
+    // Nodes scattered over a few square kilometres, each joined both ways to a few random neighbours
+    private static CampusGraph randomGraph(Random random, int n) {
+        CampusGraph.Builder builder = CampusGraph.builder();
+        for (int v = 0; v < n; v++) {
+            builder.addNode("Node " + v, 5.65 + random.nextDouble() * 0.03, -0.195 + random.nextDouble() * 0.03,
+                    "general", "");
+        }
+        for (int v = 1; v < n; v++) {
+            int u = random.nextInt(v);
+            builder.addEdge(u, v, 1.0);
+            builder.addEdge(v, u, 1.0);
+        }
+        return builder.build();
+    }
+
+    // Point to segment distance on the same plane as the index: degrees scaled to kilometres at the mean latitude
+    private static double segmentDistance(CampusGraph graph, double latitude, double longitude, int edge) {
+        double meanLatitude = 0.0;
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            meanLatitude += graph.latitude(v) / graph.getNodeCount();
+        }
+        double kmPerDegree = 6371.0088 * Math.PI / 180.0;
+        double xScale = kmPerDegree * Math.cos(Math.toRadians(meanLatitude));
+        int u = graph.source(edge);
+        int v = graph.target(edge);
+        double ux = graph.longitude(u) * xScale;
+        double uy = graph.latitude(u) * kmPerDegree;
+        double dx = graph.longitude(v) * xScale - ux;
+        double dy = graph.latitude(v) * kmPerDegree - uy;
+        double px = longitude * xScale - ux;
+        double py = latitude * kmPerDegree - uy;
+        double t = Math.max(0.0, Math.min(1.0, (px * dx + py * dy) / (dx * dx + dy * dy)));
+        return Math.hypot(px - t * dx, py - t * dy);
+    }
+}
@@ -0,0 +1,83 @@
+package com.ugnavigate.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class SuggesterTest {
+
+    private CampusMap campusMap;
+
+    @BeforeEach
+    void setUp() {
+        campusMap = new CampusMap();
+        Location library = new Location("Balme Library", 5.6580, -0.1905, "facility", "Main Library");
+        library.addLandmark("Study Area");
+        campusMap.addLocation(library);
+        campusMap.addLocation(new Location("Science Library", 5.6510, -0.1880, "facility", "Science books"));
+        campusMap.addLocation(new Location("Bank of Ghana", 5.6500, -0.1860, "service", "ATM"));
+        campusMap.addLocation(new Location("L\u00e9gon Hall", 5.6640, -0.1935, "residential", "Great Hall"));
+        campusMap.addConnection("Balme Library", "Bank of Ghana", 0.4);
+        campusMap.addConnection("Balme Library", "L\u00e9gon Hall", 0.6);
+    }
+
+    @Test
+    void testSuggestsWordPrefixesOfNamesLandmarksAndDescriptions() {
+        Suggester suggester = campusMap.getSnapshot().getSuggester();
+        assertEquals(texts("Balme Library", "Science Library", "Main Library"), texts(suggester.suggest("lib", 10)));
+        assertEquals(texts("Balme Library"), texts(suggester.suggest("BALME li", 10)));
+        assertEquals(texts("L\u00e9gon Hall"), texts(suggester.suggest("legon", 10)));
+
+        Suggestion landmark = suggester.suggest("study", 10).get(0);
+        assertEquals("Study Area", landmark.getText());
+        assertEquals("Balme Library", landmark.getLocation());
+        assertEquals(Suggester.LANDMARK, landmark.getType());
+
+        assertEquals(1, suggester.suggest("lib", 1).size());
+        assertTrue(suggester.suggest("brary", 10).isEmpty());
+        assertTrue(suggester.suggest(" ", 10).isEmpty());
+    }
+
+    @Test
+    void testPopularLocationsRankFirst() {
+        Suggester suggester = campusMap.getSnapshot().getSuggester();
+        // Balme Library has the most connections
+        assertEquals("Balme Library", suggester.suggest("b", 1).get(0).getText());
+
+        int bank = campusMap.getGraph().idOf("Bank of Ghana");
+        for (int i = 0; i < 16; i++) {
+            suggester.recordUse(bank);
+        }
+        assertEquals("Bank of Ghana", suggester.suggest("b", 1).get(0).getText());
+    }
+
+    @Test
+    void testSuggestionsCarryOverEdgeUpdates() {
+        Suggester before = campusMap.getSnapshot().getSuggester();
+        campusMap.closeConnection("Balme Library", "Bank of Ghana");
+        assertSame(before, campusMap.getSnapshot().getSuggester());
+
+        campusMap.addLocation(new Location("Balme Annex", 5.6581, -0.1906));
+        assertNotSame(before, campusMap.getSnapshot().getSuggester());
+        assertEquals(2, campusMap.getSnapshot().getSuggester().suggest("bal", 10).size());
+    }
+
+    private static List<String> texts(String... texts) {
+        List<String> result = new ArrayList<>();
+        for (String text : texts) {
+            result.add(text);
+        }
+        return result;
+    }
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        List<String> result = new ArrayList<>();
+        for (Suggestion suggestion : suggestions) {
+            result.add(suggestion.getText());
+        }
+        return result;
+    }
+}
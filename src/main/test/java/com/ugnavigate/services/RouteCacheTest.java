@@ -0,0 +1,135 @@
+package com.ugnavigate.services;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ugnavigate.models.CampusMap;
+import com.ugnavigate.models.Route;
+import com.ugnavigate.models.TrafficProfile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+class RouteCacheTest {
+
+    @Test
+    void testFullSegmentEvictsItsLeastRecentlyUsedRoute() {
+        // Two routes per segment; three keys that share one segment
+        RouteCache cache = new RouteCache(32);
+        List<RouteCache.Key> keys = keysInOneSegment(3);
+        RouteCache.Key first = keys.get(0);
+        RouteCache.Key second = keys.get(1);
+        RouteCache.Key third = keys.get(2);
+
+        cache.put(first, routes("first"));
+        cache.put(second, routes("second"));
+        assertNotNull(cache.get(first));
+        cache.put(third, routes("third"));
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+        assertNull(cache.get(second));
+        assertEquals("first", cache.get(first).get(0).getAlgorithm());
+        assertEquals("third", cache.get(third).get(0).getAlgorithm());
+
+        // Replacing a cached key evicts nothing
+        cache.put(first, routes("again"));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals("again", cache.get(first).get(0).getAlgorithm());
+    }
+
+    @Test
+    void testSizeStaysWithinBoundAndEveryEvictionIsCounted() {
+        RouteCache cache = new RouteCache(64);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(key(i), routes("r" + i));
+        }
+        assertTrue(cache.size() <= 64, cache.size() + " routes");
+        assertEquals(1000, cache.size() + cache.getEvictionCount());
+        assertEquals(0, cache.getInvalidationCount());
+
+        long hits = cache.getHitCount();
+        long misses = cache.getMissCount();
+        assertNotNull(cache.get(key(999)));
+        assertNull(cache.get(key(-1)));
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    @Test
+    void testEdgeChangesDropRoutesByTheirEdgesAndInvalidationsAreCounted() {
+        RouteCache cache = new RouteCache(100);
+        cache.put(key(1), routes("over 3"), new int[] { 3, 4 }, Double.POSITIVE_INFINITY);
+        cache.put(key(2), routes("over 5"), new int[] { 5 }, Double.POSITIVE_INFINITY);
+        cache.put(key(3), routes("no edges"));
+
+        // Routes cached without their edges could use any of them
+        assertEquals(2, cache.invalidateEdges(new int[] { 4 }));
+        assertNull(cache.get(key(1)));
+        assertNull(cache.get(key(3)));
+        assertNotNull(cache.get(key(2)));
+        assertEquals(2, cache.getInvalidationCount());
+
+        assertEquals(1, cache.invalidateIf((key, bound) -> key.getAlgorithm().equals("algorithm-2")));
+        assertEquals(0, cache.size());
+        assertEquals(3, cache.getInvalidationCount());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    void testNewTrafficEpochFlushesTheCache() {
+        CampusMap campusMap = new CampusMap();
+        campusMap.addConnection("A", "B", 1.0);
+        campusMap.addConnection("B", "C", 1.0);
+        campusMap.addConnection("C", "D", 1.0);
+        TrafficService trafficService = new TrafficService();
+        RoutingService routingService = new RoutingService(campusMap, trafficService);
+        RouteCache cache = routingService.getRouteCache();
+
+        routingService.findShortestRoute("A", "C");
+        routingService.findShortestRoute("B", "D");
+        long hits = cache.getHitCount();
+        routingService.findShortestRoute("A", "C");
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals(2, cache.size());
+
+        // A fitted profile changes every estimated time, so nothing cached before it is served after it
+        long epoch = trafficService.getEpoch();
+        trafficService.setProfile(TrafficProfile.builder(campusMap.getGraph()).build());
+        assertTrue(trafficService.getEpoch() > epoch);
+        Route route = routingService.findShortestRoute("A", "C");
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals(Arrays.asList("A", "B", "C"), route.getPath());
+        assertEquals(1, cache.size());
+
+        trafficService.advanceEpoch();
+        routingService.findShortestRoute("B", "D");
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    // Finds keys that land in one segment: with one route per segment, each evicts the first key
+    private static List<RouteCache.Key> keysInOneSegment(int count) {
+        List<RouteCache.Key> keys = new ArrayList<>();
+        keys.add(key(0));
+        for (int i = 1; keys.size() < count; i++) {
+            RouteCache probe = new RouteCache(16);
+            probe.put(keys.get(0), routes("probe"));
+            probe.put(key(i), routes("probe"));
+            if (probe.getEvictionCount() == 1) {
+                keys.add(key(i));
+            }
+        }
+        return keys;
+    }
+
+    private static RouteCache.Key key(int i) {
+        return new RouteCache.Key("start-" + i, "end-" + i, "algorithm-" + i, "");
+    }
+
+    private static List<Route> routes(String algorithm) {
+        return Collections.singletonList(new Route(Arrays.asList("A", "B"), 1.0, 12, algorithm));
+    }
+}
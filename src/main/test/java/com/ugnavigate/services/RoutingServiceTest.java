@@ -0,0 +1,252 @@
+package com.ugnavigate.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ugnavigate.TestMaps;
+import com.ugnavigate.algorithms.DijkstraSearch;
+import com.ugnavigate.algorithms.SearchWorkspace;
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.CampusMap;
+import com.ugnavigate.models.Route;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+class RoutingServiceTest {
+
+    private CampusMap campusMap;
+    private RoutingService routingService;
+
+    @BeforeEach
+    void setUp() {
+        campusMap = new CampusMap();
+        campusMap.addConnection("A", "B", 1.0);
+        campusMap.addConnection("B", "C", 1.0);
+        campusMap.addConnection("A", "C", 3.0);
+        campusMap.addConnection("C", "D", 1.0);
+        campusMap.addConnection("E", "F", 1.0);
+        routingService = new RoutingService(campusMap, new TrafficService());
+    }
+
+    @Test
+    void testClosureOnlyDropsRoutesThatUseIt() {
+        routingService.findShortestRoute("A", "C");
+        routingService.findShortestRoute("C", "D");
+        routingService.findShortestRoute("E", "F");
+        RouteCache cache = routingService.getRouteCache();
+        assertEquals(3, cache.size());
+
+        long version = routingService.closeConnection("B", "C");
+        assertEquals(version, campusMap.getVersion());
+        assertEquals(2, cache.size());
+
+        Route detour = routingService.findShortestRoute("A", "C");
+        assertEquals(Arrays.asList("A", "C"), detour.getPath());
+        assertEquals(version, detour.getMapVersion());
+        long hits = cache.getHitCount();
+        assertEquals(1.0, routingService.findShortestRoute("C", "D").getTotalDistance());
+        assertEquals(hits + 1, cache.getHitCount());
+    }
+
+    @Test
+    void testLiveTrafficOnlyDropsRoutesOverTheCongestedConnections() {
+        routingService.findShortestRoute("A", "B");
+        routingService.findShortestRoute("E", "F");
+        routingService.findDepartureRoute("A", "B", LocalTime.of(12, 0));
+        RouteCache cache = routingService.getRouteCache();
+        assertEquals(3, cache.size());
+
+        // Earliest-arrival answers weigh every connection by its traffic, so they go too
+        Map<String, Float> slowed = new HashMap<>();
+        slowed.put("F", 3.0f);
+        routingService.updateLiveTraffic(Collections.singletonMap("E", slowed));
+        assertEquals(1, cache.size());
+
+        long hits = cache.getHitCount();
+        routingService.findShortestRoute("A", "B");
+        assertEquals(hits + 1, cache.getHitCount());
+        assertNotNull(routingService.findShortestRoute("E", "F"));
+        assertEquals(hits + 1, cache.getHitCount());
+    }
+
+    @Test
+    void testMetricsTimeMissesAndCountSearchWork() {
+        CampusMap map = TestMaps.gates();
+        RoutingService service = new RoutingService(map, new TrafficService());
+        MeterRegistry registry = new SimpleMeterRegistry();
+        service.getMetrics().bindTo(registry);
+        long settled = SearchWorkspace.getSettledCount();
+        long relaxed = SearchWorkspace.getRelaxedCount();
+
+        service.findOptimalRoute("West Gate", "Library");
+        service.findOptimalRoute("West Gate", "Library");
+        int top = service.findTopRoutes("West Gate", "Library", 3).size();
+
+        // The second optimal route comes from the cache, so only its first lookup is timed
+        assertEquals(1, registry.get("ugnavigate.routing.compute").tag("algorithm", "optimal").timer().count());
+        assertEquals(1, registry.get("ugnavigate.routing.compute").tag("algorithm", "top").timer().count());
+        assertEquals(2.0 + top, registry.get("ugnavigate.routes.returned").functionCounter().count());
+        assertTrue(SearchWorkspace.getSettledCount() > settled);
+        assertTrue(SearchWorkspace.getRelaxedCount() > relaxed);
+        assertEquals(3.0, registry.get("ugnavigate.graph.locations").gauge().value());
+        assertEquals(2.0, registry.get("ugnavigate.graph.connections").gauge().value());
+        assertTrue(Double.isNaN(registry.get("ugnavigate.precompute.age").tag("table", "contraction")
+                .timeGauge().value()));
+    }
+
+    @Test
+    void testShorterConnectionDropsRoutesItCanBeat() {
+        routingService.findShortestRoute("A", "D");
+        routingService.findShortestRoute("B", "C");
+        routingService.findShortestRoute("E", "F");
+        routingService.findTopRoutes("B", "D", 5);
+
+        // A-C at 1.5 beats A-B-C-D (3.0) but cannot beat B-C (1.0); B-D had fewer than 5 routes, so any new
+        // path could join them
+        routingService.setConnectionDistance("A", "C", 1.5);
+        assertEquals(2, routingService.getRouteCache().size());
+        assertEquals(Arrays.asList("A", "C", "D"), routingService.findShortestRoute("A", "D").getPath());
+
+        routingService.closeConnection("E", "F");
+        assertNull(routingService.findShortestRoute("E", "F"));
+        routingService.reopenConnection("E", "F");
+        assertEquals(1.0, routingService.findShortestRoute("E", "F").getTotalDistance());
+    }
+
+    @Test
+    void testCachedRoutesFollowEdgeUpdatesUnderLoad() throws InterruptedException {
+        CampusMap map = TestMaps.randomGrid(6, 7L, false);
+        RoutingService service = new RoutingService(map, new TrafficService());
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // Readers fill the cache from whichever graph they happen to read while connections keep changing
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            long seed = r;
+            Thread reader = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    while (running.get()) {
+                        service.findShortestRoute(randomCell(random, 6), randomCell(random, 6));
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+
+        Random random = new Random(99L);
+        try {
+            for (int i = 0; i < 200; i++) {
+                int row = random.nextInt(6);
+                int col = random.nextInt(5);
+                String from = row + ":" + col;
+                String to = row + ":" + (col + 1);
+                service.closeConnection(from, to);
+                Route route = service.findShortestRoute(from, to);
+                assertNotNull(route);
+                assertNotEquals(Arrays.asList(from, to), route.getPath());
+                assertShortest(service, map, "0:0", "5:5");
+                service.reopenConnection(from, to);
+                assertEquals(Arrays.asList(from, to), service.findShortestRoute(from, to).getPath());
+            }
+        } finally {
+            running.set(false);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        }
+        assertNull(failure.get());
+
+        // Nothing cached along the way survives past the update that changed it
+        for (int i = 0; i < 100; i++) {
+            assertShortest(service, map, randomCell(random, 6), randomCell(random, 6));
+        }
+    }
+
+    @Test
+    void testSearchRoutesAreBuiltFromTheMapVersionTheyReport() throws InterruptedException {
+        Map<Long, CampusGraph> versions = new ConcurrentHashMap<>();
+        versions.put(campusMap.getVersion(), campusMap.getGraph());
+        List<Route> found = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    found.addAll(routingService.searchRoutes("A", "D", "C"));
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        });
+        reader.start();
+        try {
+            for (int i = 0; i < 500; i++) {
+                routingService.setConnectionDistance("A", "B", i % 2 == 0 ? 5.0 : 1.0);
+                versions.put(campusMap.getVersion(), campusMap.getGraph());
+            }
+        } finally {
+            running.set(false);
+            reader.join();
+        }
+        assertNull(failure.get());
+
+        assertFalse(found.isEmpty());
+        for (Route route : found) {
+            CampusGraph graph = versions.get(route.getMapVersion());
+            double distance = 0.0;
+            for (int i = 0; i + 1 < route.getPath().size(); i++) {
+                distance += graph.distance(graph.idOf(route.getPath().get(i)), graph.idOf(route.getPath().get(i + 1)));
+            }
+            assertEquals(distance, route.getTotalDistance(), 1e-9, route.getPath() + " at " + route.getMapVersion());
+        }
+    }
+
+    private static String randomCell(Random random, int side) {
+        return random.nextInt(side) + ":" + random.nextInt(side);
+    }
+
+    private static void assertShortest(RoutingService service, CampusMap map, String start, String end) {
+        CampusGraph graph = map.getGraph();
+        SearchWorkspace workspace = SearchWorkspace.forward(graph.getNodeCount());
+        DijkstraSearch.run(graph, workspace, graph.idOf(start), graph.idOf(end));
+        assertEquals(workspace.distance(graph.idOf(end)), service.findShortestRoute(start, end).getTotalDistance(),
+                1e-9, start + " -> " + end);
+    }
+
+    @Test
+    void testPositionsSnapToTheNearerEndOfTheClosestPath() {
+        CampusMap map = TestMaps.gates();
+        RoutingService service = new RoutingService(map, new TrafficService());
+
+        // Beside the road between the gates: the library is closer as the crow flies, but off the road
+        assertEquals("West Gate", service.snapToLocation(5.6520, -0.1870));
+        assertEquals("East Gate", service.snapToLocation(5.6520, -0.1830));
+        // Standing at a location resolves to it even where another path passes by
+        assertEquals("Library", service.snapToLocation(5.66003, -0.1830));
+        assertEquals(Arrays.asList("West Gate", "Library"),
+                Arrays.asList(service.findNearestLocations(5.6550, -0.1880, 2).keySet().toArray()));
+
+        map.closeConnection("West Gate", "East Gate");
+        assertEquals("East Gate", service.snapToLocation(5.6520, -0.1870));
+        assertNull(new RoutingService(new CampusMap(), new TrafficService()).snapToLocation(5.65, -0.19));
+    }
+}
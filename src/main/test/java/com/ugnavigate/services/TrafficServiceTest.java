@@ -0,0 +1,86 @@
+package com.ugnavigate.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.ugnavigate.models.CampusGraph;
+import com.ugnavigate.models.CampusMap;
+import com.ugnavigate.models.TrafficOverlay;
+
+class TrafficServiceTest {
+
+    private TrafficService trafficService;
+    private CampusMap campusMap;
+
+    @BeforeEach
+    void setUp() {
+        trafficService = new TrafficService();
+        campusMap = new CampusMap();
+        campusMap.addConnection("A", "B", 1.0);
+        campusMap.addConnection("B", "C", 2.0);
+    }
+
+    @Test
+    void testUpdatePublishesNewEpoch() {
+        CampusGraph graph = campusMap.getGraph();
+        TrafficOverlay before = trafficService.getOverlay(graph);
+        int edge = graph.findEdge(graph.idOf("A"), graph.idOf("B"));
+
+        trafficService.updateLiveTraffic(graph, new int[] { edge }, new float[] { 2.5f });
+        TrafficOverlay after = trafficService.getOverlay(graph);
+
+        assertEquals(before.getEpoch() + 1, trafficService.getEpoch());
+        assertEquals(2.5f, after.multiplier(edge));
+        // Snapshots already handed out never change
+        assertEquals(1.0f, before.multiplier(edge));
+    }
+
+    @Test
+    void testLiveTrafficSurvivesGraphRebuild() {
+        CampusGraph graph = campusMap.getGraph();
+        int edge = graph.findEdge(graph.idOf("B"), graph.idOf("C"));
+        trafficService.updateLiveTraffic(graph, new int[] { edge }, new float[] { 2.0f });
+
+        campusMap.addConnection("C", "D", 1.0);
+        CampusGraph rebuilt = campusMap.getGraph();
+        TrafficOverlay overlay = trafficService.getOverlay(rebuilt);
+        assertEquals(2.0f, overlay.multiplier(rebuilt.findEdge(rebuilt.idOf("B"), rebuilt.idOf("C"))));
+        assertEquals(1.0f, overlay.multiplier(rebuilt.findEdge(rebuilt.idOf("C"), rebuilt.idOf("B"))));
+    }
+
+    @Test
+    void testOldSnapshotReadsDoNotRollTheOverlayBack() {
+        CampusGraph old = campusMap.getGraph();
+        campusMap.addConnection("C", "D", 1.0);
+        CampusGraph current = campusMap.getGraph();
+        int newEdge = current.findEdge(current.idOf("C"), current.idOf("D"));
+        trafficService.updateLiveTraffic(current, new int[] { newEdge }, new float[] { 3.0f });
+
+        TrafficOverlay published = trafficService.getOverlay(current);
+        for (int i = 0; i < 3; i++) {
+            // A search still on the old map sees the old map's edges, without touching the shared snapshot
+            TrafficOverlay stale = trafficService.getOverlay(old);
+            assertSame(old, stale.getGraph());
+            assertSame(published, trafficService.getOverlay(current));
+            assertEquals(3.0f, trafficService.getOverlay(current).multiplier(newEdge));
+        }
+
+        // Congestion posted against the old map is carried forward rather than replacing the newer snapshot
+        int oldEdge = old.findEdge(old.idOf("A"), old.idOf("B"));
+        trafficService.updateLiveTraffic(old, new int[] { oldEdge }, new float[] { 2.0f });
+        TrafficOverlay overlay = trafficService.getOverlay(current);
+        assertSame(current, overlay.getGraph());
+        assertEquals(2.0f, overlay.multiplier(current.findEdge(current.idOf("A"), current.idOf("B"))));
+        assertEquals(3.0f, overlay.multiplier(newEdge));
+    }
+
+    @Test
+    void testRejectsInvalidMultipliers() {
+        CampusGraph graph = campusMap.getGraph();
+        assertThrows(IllegalArgumentException.class,
+                () -> trafficService.updateLiveTraffic(graph, new int[] { 0 }, new float[] { 0.0f }));
+        assertThrows(IllegalArgumentException.class,
+                () -> trafficService.updateLiveTraffic(graph, new int[] { 0 }, new float[] { Float.NaN }));
+    }
+}